@@ -2,35 +2,45 @@ package sma.agents;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import sma.environnement.Carte;
 import sma.environnement.Case;
+import sma.environnement.Maillon;
 import sma.environnement.Zone;
+import sma.navigation.FiltreCases;
 import sma.objets.Tresor;
 
 public abstract class Agent {
 
-    private static int compteurId = 0;
     protected final int id;
     protected final TypologieAgent type;
     protected int pvMax = 100;
     protected int pv = 100;
     protected Case caseActuelle;
-    protected boolean enVie = true;
+    protected volatile boolean enVie = true;
     protected Carte carte; // Référence à la carte pour le passage entre zones
+    private volatile Maillon maillonCase = null; // place de l'agent dans la liste de sa case
+    protected ArbitreActions arbitre = null; // moteur à ticks : déplacements et secours différés, null = appliqués tout de suite
 
+    protected final SplittableRandom alea; // flux propre à l'agent, dérivé de la graine maîtresse
+    protected final ContexteSimulation contexte; // état de sa simulation, dont ses traces
     protected final AgentStats stats;
     protected final List<Tresor> tresorsCollectes = new ArrayList<>(); //à vérifier
 
-    public Agent(TypologieAgent type, Case positionInitiale, Carte carte) {
-        compteurId++;
-        this.id = compteurId;
+    public Agent(TypologieAgent type, Case positionInitiale, Carte carte, ContexteSimulation contexte) {
+        this.id = contexte.prochainIdAgent(); // ids propres à la simulation
+        this.alea = contexte.fluxAgent(id);
+        this.contexte = contexte;
         this.type = type;
         this.caseActuelle = positionInitiale;
         this.carte = carte;
         this.stats = new AgentStats();
 
         if (positionInitiale != null) {
+            if (carte != null) {
+                carte.getIndexSpatial().ajouter(this, positionInitiale.getZone().getId());
+            }
             positionInitiale.ajouterAgent(this);
         }
     }
@@ -71,7 +81,22 @@ public abstract class Agent {
         return tresorsCollectes;
     }
 
-    //cases adjacentes 
+    /**
+     * Maillon de l'agent dans la liste de sa case (tenu à jour par Case).
+     */
+    public Maillon getMaillonCase() {
+        return maillonCase;
+    }
+
+    public void setMaillonCase(Maillon maillonCase) {
+        this.maillonCase = maillonCase;
+    }
+
+    public void setArbitre(ArbitreActions arbitre) {
+        this.arbitre = arbitre;
+    }
+
+    //cases adjacentes accessibles (lues dans la table de voisinage de la carte, passage entre zones compris)
     public List<Case> getCasesAdjacentes() {
         List<Case> adjacentes = new ArrayList<>();
 
@@ -79,65 +104,46 @@ public abstract class Agent {
             return adjacentes;
         }
 
-        int x = caseActuelle.getX();
-        int y = caseActuelle.getY();
-        Zone zone = caseActuelle.getZone();
-
-        //pas déplacement en diagonale haut, bas, gauche, droite
-        int[] horizontale = {0, 0, -1, 1};
-        int[] verticale = {-1, 1, 0, 0};
-
-        for (int i = 0; i < 4; i++) {
-            int newX = x + horizontale[i];
-            int newY = y + verticale[i];
-
-            // Dans la même zone
-            if (zone.estDansLimites(newX, newY)) {
-                Case c = zone.getCase(newX, newY);
-                if (c != null && c.isAccessible()) {
-                    adjacentes.add(c);
-                }
-            } //passage d'une zone à une autre => bords  avec les margins pour bien distinguer => à ajuster dans ihm
-            else {
-                Case caseAutreZone = getCaseZoneAdjacente(zone, x, y, horizontale[i], verticale[i]);
-                if (caseAutreZone != null && caseAutreZone.isAccessible()) {
-                    adjacentes.add(caseAutreZone);
-                }
+        int idCase = caseActuelle.getId();
+        for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+            int voisin = carte.getVoisin(idCase, d);
+            if (voisin != Carte.AUCUN_VOISIN) {
+                adjacentes.add(carte.getCase(voisin));
             }
         }
 
         return adjacentes;
     }
 
-    private Case getCaseZoneAdjacente(Zone zoneActuelle, int x, int y, int dx, int dy) {
-        int newZoneX = zoneActuelle.getZoneX();
-        int newZoneY = zoneActuelle.getZoneY();
-        int newCaseX = x;
-        int newCaseY = y;
-        if (dx == -1 && x == 0) {
-            newZoneX--;
-            newCaseX = Zone.TAILLE - 1;
-        } else if (dx == 1 && x == Zone.TAILLE - 1) {
-            newZoneX++;
-            newCaseX = 0;
-        } else if (dy == -1 && y == 0) {
-            newZoneY--;
-            newCaseY = Zone.TAILLE - 1;
-        } else if (dy == 1 && y == Zone.TAILLE - 1) {
-
-            newZoneY++;
-            newCaseY = 0;
-        } else {
-            return null; // Pas au bord
+    /**
+     * Tire uniformément une case voisine accessible et non interdite, sans
+     * allocation. Renvoie Carte.AUCUN_VOISIN s'il n'y en a pas.
+     */
+    protected int choisirVoisinAleatoire(FiltreCases interdites) {
+        if (caseActuelle == null || carte == null) {
+            return Carte.AUCUN_VOISIN;
         }
 
-        // Récupérer la zone adjacente
-        Zone zoneAdjacente = carte.getZone(newZoneX, newZoneY);
-        if (zoneAdjacente == null) {
-            return null;
+        int idCase = caseActuelle.getId();
+        int nbCandidats = 0;
+        for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+            int voisin = carte.getVoisin(idCase, d);
+            if (voisin != Carte.AUCUN_VOISIN && !interdites.estInterdite(voisin)) {
+                nbCandidats++;
+            }
+        }
+        if (nbCandidats == 0) {
+            return Carte.AUCUN_VOISIN;
         }
 
-        return zoneAdjacente.getCase(newCaseX, newCaseY);
+        int choix = alea.nextInt(nbCandidats);
+        for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+            int voisin = carte.getVoisin(idCase, d);
+            if (voisin != Carte.AUCUN_VOISIN && !interdites.estInterdite(voisin) && choix-- == 0) {
+                return voisin;
+            }
+        }
+        return Carte.AUCUN_VOISIN;
     }
 
     //changer case que si accessible (obstacle seulement poru rendre choses intéressantes )
@@ -146,26 +152,73 @@ public abstract class Agent {
             return false;
         }
 
-        if (caseActuelle != null) {
-            caseActuelle.retirerAgent(this);
+        if (arbitre != null) {
+            arbitre.proposerDeplacement(this, destination);
+        } else {
+            appliquerDeplacement(destination);
         }
+        return true;
+    }
 
-        caseActuelle = destination;
-        destination.ajouterAgent(this);
+    /**
+     * Déplacement effectif (appelé directement ou par l'arbitre au moment de
+     * la résolution).
+     */
+    public void appliquerDeplacement(Case destination) {
+        changerDeCase(destination);
         stats.incrementerCasesVisitees();
+    }
 
-        return true;
+    /**
+     * Change l'agent de case : occupants des deux cases et index spatial (si
+     * la zone change) sont mis à jour avant l'interaction avec l'objet de la
+     * nouvelle case.
+     */
+    protected void changerDeCase(Case nouvelle) {
+        Case ancienne = caseActuelle;
+        if (ancienne != null) {
+            ancienne.retirerAgent(this);
+        }
+
+        caseActuelle = nouvelle;
+        if (carte != null && idZone(ancienne) != idZone(nouvelle)) {
+            carte.getIndexSpatial().deplacer(this, idZone(ancienne), idZone(nouvelle));
+            changerDeZone(idZone(ancienne), idZone(nouvelle));
+        }
+        nouvelle.ajouterAgent(this);
+    }
+
+    private static int idZone(Case c) {
+        return c != null && c.getZone() != null ? c.getZone().getId() : -1;
+    }
+
+    /**
+     * L'agent vivant quitte ancienneZone pour nouvelleZone (-1 : aucune, à la
+     * mort et à la réapparition). Rien par défaut ; les agents abonnés au bus
+     * de zone y déplacent leur abonnement. Jamais appelé depuis le
+     * constructeur : une sous-classe s'abonne elle-même une fois ses champs
+     * initialisés.
+     */
+    protected void changerDeZone(int ancienneZone, int nouvelleZone) {
     }
 
     public void seFaireAttaquer(int dmg) {
         pv -= dmg;
         stats.ajouterDegats(dmg);
-        System.out.println("Agent " + id + " (" + type + "): s'est pris des dégats de" + dmg + " il reste " + pv + "/" + pvMax);
-        if (pv <= 0) {
+        if (contexte.isTraces()) {
+            System.out.println("Agent " + id + " (" + type + "): s'est pris des dégats de" + dmg + " il reste " + pv + "/" + pvMax);
+        }
+        if (pv <= 0 && enVie) {
             pv = 0;
             enVie = false;
             stats.incrementerMorts();
-            System.out.println(" Agent " + id + " (" + type + "): est mort à " + caseActuelle + "");
+            if (carte != null) {
+                carte.getIndexSpatial().signalerMort(this, idZone(caseActuelle));
+                changerDeZone(idZone(caseActuelle), -1);
+            }
+            if (contexte.isTraces()) {
+                System.out.println(" Agent " + id + " (" + type + "): est mort à " + caseActuelle + "");
+            }
 
         }
     }
@@ -176,30 +229,33 @@ public abstract class Agent {
     }
 
     public void resetToQG() {
-        if (caseActuelle != null) {
-            caseActuelle.retirerAgent(this);
-        }
-
-        Case qg = carte.getCaseQG();
-        this.caseActuelle = qg;
-        qg.ajouterAgent(this);
-
-        this.pv = pvMax;
-        this.enVie = true;
-        stats.incrementerRespawn();
+        revivreSur(carte.getCaseQG());
     }
 
     public void resetToCaseActuelle(Case caseActuelle) {
-        if (caseActuelle != null) {
-            caseActuelle.retirerAgent(this);
+        revivreSur(caseActuelle);
+    }
+
+    private void revivreSur(Case c) {
+        Case ancienne = caseActuelle;
+        boolean etaitMort = !enVie;
+        if (ancienne != null) {
+            ancienne.retirerAgent(this);
         }
 
-        
-        this.caseActuelle = caseActuelle;
-        caseActuelle.ajouterAgent(this);
+        this.caseActuelle = c;
         this.pv = pvMax;
         this.enVie = true;
+        if (etaitMort) {
+            carte.getIndexSpatial().signalerVie(this, idZone(ancienne), idZone(c));
+            changerDeZone(-1, idZone(c));
+        } else {
+            carte.getIndexSpatial().deplacer(this, idZone(ancienne), idZone(c));
+            changerDeZone(idZone(ancienne), idZone(c));
+        }
+        c.ajouterAgent(this);
         stats.incrementerRespawn();
     }
+
     public abstract void step();
 }
@@ -1,75 +1,246 @@
 package sma.agents;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Random;
-import java.util.Set;
 
+import sma.concurrent.BoiteAuxLettres;
+import sma.concurrent.BoiteAuxLettres.PolitiqueDebordement;
 import sma.environnement.Carte;
 import sma.environnement.Case;
-import sma.environnement.Zone;
+import sma.messaging.AbonneZone;
+import sma.messaging.LotMessages;
+import sma.messaging.TableauNoir;
+import sma.navigation.ChampsDistances;
+import sma.navigation.FiltreCases;
+import sma.navigation.ModeNavigation;
+import sma.navigation.PlanificateurAStar;
+import sma.navigation.ReplanificateurIncremental;
 import sma.objets.Tresor;
 
-public class AgentCognitif extends Agent {
+public class AgentCognitif extends Agent implements AbonneZone {
 
-    private final Queue<Message> messagesRecus = new LinkedList<>();
-    private final List<Case> tresorsConnus = new ArrayList<>();
-    private final Set<Case> casesAEviter = new HashSet<>();
-    private final Random random = new Random();
+    public static final int CAPACITE_BOITE_DEFAUT = 64;
+    public static final int CAPACITE_LOTS_DEFAUT = 16; // au plus un lot par communicant de la zone et par pas
+
+    // déposés par les communicants sans verrou, bornés : les renvois périodiques se fusionnent
+    private BoiteAuxLettres<Message> messagesRecus = nouvelleBoite(CAPACITE_BOITE_DEFAUT, PolitiqueDebordement.FUSIONNER);
+    // un lot perdu emporterait tout un pas d'informations : l'expéditeur attend une place
+    private BoiteAuxLettres<LotMessages> lotsRecus = new BoiteAuxLettres<>(CAPACITE_LOTS_DEFAUT, PolitiqueDebordement.BLOQUER);
+    private final Connaissances connaissances; // trésors signalés et cases à éviter, par id de case
+
+    private final FiltreCases filtreEvitement;
 
     private Case destination = null;
     private LinkedList<Case> cheminActuel = new LinkedList<>();
+    private ModeNavigation modeNavigation = ModeNavigation.ASTAR;
+    private ModeDiffusion modeDiffusion = ModeDiffusion.DELTA; // TABLEAU_NOIR : lit le tableau noir à chaque pas
+    private long versionTableauLue = 0; // version 0 : tableau noir vierge, rien à lire
+    private ReplanificateurIncremental replanificateur = null; // mode INCREMENTAL : recherche gardée pour la destination courante
+
+    public AgentCognitif(Case positionInitiale, Carte carte, ContexteSimulation contexte) {
+        super(TypologieAgent.COGNITIF, positionInitiale, carte, contexte);
+        this.connaissances = new Connaissances(carte.getNbCases());
+        this.filtreEvitement = connaissances::estAEviter;
+        if (positionInitiale != null) {
+            carte.getBus().abonner(this, positionInitiale.getZone().getId()); // en dernier : boîtes prêtes à recevoir
+        }
+    }
+
+    public ModeNavigation getModeNavigation() {
+        return modeNavigation;
+    }
+
+    public void setModeNavigation(ModeNavigation modeNavigation) {
+        this.modeNavigation = modeNavigation;
+    }
+
+    public ModeDiffusion getModeDiffusion() {
+        return modeDiffusion;
+    }
+
+    public void setModeDiffusion(ModeDiffusion modeDiffusion) {
+        this.modeDiffusion = modeDiffusion;
+    }
+
+    /**
+     * Remplace la boîte aux lettres (à faire avant le démarrage) ; les
+     * messages déjà reçus passent dans la nouvelle.
+     */
+    public void configurerBoiteAuxLettres(int capacite, PolitiqueDebordement politique) {
+        BoiteAuxLettres<Message> ancienne = messagesRecus;
+        BoiteAuxLettres<Message> nouvelle = nouvelleBoite(capacite, politique);
+        Message msg;
+        while ((msg = ancienne.retirer()) != null) {
+            nouvelle.deposer(msg);
+        }
+        this.messagesRecus = nouvelle;
+    }
+
+    /**
+     * Remplace la boîte des lots (à faire avant le démarrage) ; les lots
+     * déjà reçus passent dans la nouvelle. attenteMaxNanos borne l'attente
+     * d'un expéditeur avec BLOQUER (0 : jamais d'attente, pour le moteur à
+     * ticks où le destinataire ne vide sa boîte qu'à son propre pas).
+     */
+    public void configurerBoiteAuxLots(int capacite, PolitiqueDebordement politique, long attenteMaxNanos) {
+        BoiteAuxLettres<LotMessages> ancienne = lotsRecus;
+        BoiteAuxLettres<LotMessages> nouvelle = new BoiteAuxLettres<>(capacite, politique, null, attenteMaxNanos);
+        LotMessages lot;
+        while ((lot = ancienne.retirer()) != null) {
+            nouvelle.deposer(lot);
+        }
+        this.lotsRecus = nouvelle;
+    }
+
+    private static BoiteAuxLettres<Message> nouvelleBoite(int capacite, PolitiqueDebordement politique) {
+        return new BoiteAuxLettres<>(capacite, politique, Message::getCleFusion, BoiteAuxLettres.ATTENTE_MAX_DEFAUT_NANOS);
+    }
+
+    /**
+     * Boîte aux lettres de l'agent (profondeur, pertes, fusions).
+     */
+    public BoiteAuxLettres<Message> getBoiteAuxLettres() {
+        return messagesRecus;
+    }
+
+    public void recevoirMessage(Message message) {
+        messagesRecus.deposer(message);
+    }
+
+    /**
+     * Lots de messages reçus (profondeur, pertes).
+     */
+    public BoiteAuxLettres<LotMessages> getBoiteAuxLots() {
+        return lotsRecus;
+    }
+
+    @Override
+    public void recevoir(Message message) {
+        recevoirMessage(message);
+    }
+
+    @Override
+    public void recevoirLot(LotMessages lot) {
+        lotsRecus.deposer(lot);
+    }
 
-    public AgentCognitif(Case positionInitiale, Carte carte) {
-        super(TypologieAgent.COGNITIF, positionInitiale, carte);
+    Connaissances getConnaissances() {
+        return connaissances;
     }
 
-    public synchronized void recevoirMessage(Message message) {
-        messagesRecus.add(message);
+    @Override
+    protected void changerDeZone(int ancienneZone, int nouvelleZone) {
+        carte.getBus().deplacer(this, ancienneZone, nouvelleZone); // abonné à la zone où il se trouve, vivant
     }
 
     @Override
     public void step() {
         traiterMessages();
+        if (modeDiffusion == ModeDiffusion.TABLEAU_NOIR) {
+            lireTableauNoir(); // sinon personne n'y écrit : pas de lecture à compter
+        }
         nettoyerTresorsCollectes();
         deciderAction();
     }
 
     //traiter messages communicant
     private void traiterMessages() {
-        synchronized (this) {
-            while (!messagesRecus.isEmpty()) {
-                Message msg = messagesRecus.poll(); //défiler la fifo
-
-                //si trésor trouvé=> dire que y a un trésor
-                if (msg.getType() == Message.TypeMessage.TRESOR_TROUVE) {
-                    if (msg.getPosition() != null && !tresorsConnus.contains(msg.getPosition())) {
-                        tresorsConnus.add(msg.getPosition());
-                        System.out.println("Cognitif " + id + ": Trésor signalé à " + msg.getPosition());
-                    }
-                } else if (msg.getType() == Message.TypeMessage.ANIMAL_DETECTE) {
-                    if (msg.getPosition() != null) {
-                        casesAEviter.add(msg.getPosition());
-                        if (cheminActuel.contains(msg.getPosition())) {
-                            cheminActuel.clear();
-                        }
-                    }
+        Message msg;
+        while ((msg = messagesRecus.retirer()) != null) { //défiler la fifo
+            traiterInformation(msg.getType(), msg.getPosition(), msg.getZoneId());
+        }
+        LotMessages lot;
+        while ((lot = lotsRecus.retirer()) != null) {
+            for (int i = 0; i < lot.getNbEntrees(); i++) { // décodage entrée par entrée, sans objet intermédiaire
+                int idCase = lot.getIdCase(i);
+                Case position = idCase == LotMessages.AUCUNE_CASE ? null : carte.getCase(idCase);
+                traiterInformation(lot.getType(i), position, position != null ? position.getZone().getId() : lot.getIdZone(i));
+            }
+        }
+    }
+
+    /**
+     * Reprend du tableau noir les trésors et dangers encore inconnus ; rien
+     * à faire si sa version n'a pas changé depuis la dernière lecture.
+     */
+    private void lireTableauNoir() {
+        TableauNoir.Instantane etat = carte.getTableauNoir().lire();
+        if (etat.getVersion() == versionTableauLue) {
+            return;
+        }
+        versionTableauLue = etat.getVersion();
+        for (int idCase = etat.tresorSuivant(0); idCase >= 0; idCase = etat.tresorSuivant(idCase + 1)) {
+            if (!connaissances.connaitTresor(idCase)) {
+                Case c = carte.getCase(idCase);
+                traiterInformation(Message.TypeMessage.TRESOR_TROUVE, c, c.getZone().getId());
+            }
+        }
+        for (int idCase = etat.dangerSuivant(0); idCase >= 0; idCase = etat.dangerSuivant(idCase + 1)) {
+            if (!connaissances.estAEviter(idCase)) {
+                Case c = carte.getCase(idCase);
+                traiterInformation(Message.TypeMessage.ANIMAL_DETECTE, c, c.getZone().getId());
+            }
+        }
+    }
+
+    private void traiterInformation(Message.TypeMessage type, Case position, int zoneId) {
+        //si trésor trouvé=> dire que y a un trésor
+        if (type == Message.TypeMessage.TRESOR_TROUVE) {
+            // message, lot ou tableau en retard sur un ramassage : la carte fait foi (l'intersection
+            // ne repasse que si un trésor change, elle ne rattraperait pas celui-ci)
+            if (position != null && carte.getTresorsNonCollectes().contient(position.getId())
+                    && connaissances.ajouterTresor(position.getId())) {
+                if (contexte.isTraces()) {
+                    System.out.println("Cognitif " + id + ": Trésor signalé à " + position);
+                }
+            }
+        } else if (type == Message.TypeMessage.ANIMAL_DETECTE) {
+            if (position != null) {
+                boolean nouvelle = connaissances.ajouterCaseAEviter(position.getId());
+                if (modeNavigation == ModeNavigation.CHAMP_DISTANCES) {
+                    carte.getChampsDistances().signalerCaseAEviter(position.getId());
+                }
+                if (nouvelle && replanificateur != null) {
+                    replanificateur.signalerCaseInterdite(position.getId());
+                }
+                if (cheminActuel.contains(position)) {
+                    cheminActuel.clear();
+                }
+            }
+        } else if (type == Message.TypeMessage.TRESOR_COLLECTE) {
+            // trésor ramassé sur cette case : cible périmée
+            if (position != null) {
+                oublierTresor(position);
+            }
+        } else if (type == Message.TypeMessage.AUCUN_TRESOR_ZONE) {
+            for (int i = connaissances.getNbTresors() - 1; i >= 0; i--) { // à rebours : oublier décale la suite
+                Case c = carte.getCase(connaissances.getTresor(i));
+                if (c.getZone().getId() == zoneId) {
+                    oublierTresor(c);
                 }
             }
         }
     }
 
+    private void oublierTresor(Case c) {
+        connaissances.oublierTresor(c.getId());
+        if (modeNavigation == ModeNavigation.CHAMP_DISTANCES) {
+            carte.getChampsDistances().oublier(c.getId());
+        }
+        if (c.equals(destination)) {
+            destination = null;
+            cheminActuel.clear();
+        }
+    }
+
     private void nettoyerTresorsCollectes() {
-        tresorsConnus.removeIf(c
-                -> c == null || c.getObjet() == null
-                || !(c.getObjet() instanceof Tresor)
-                || ((Tresor) c.getObjet()).isCollecte()
-        ); //traiter tous les cas de figure et nettoyer la liste chainées des trésor 
+        // intersection avec les trésors non collectés de la carte, seulement si l'un d'eux a changé
+        connaissances.intersecter(carte.getTresorsNonCollectes(), carte.getVersionTresors(), idCase -> {
+            if (modeNavigation == ModeNavigation.CHAMP_DISTANCES) {
+                carte.getChampsDistances().oublier(idCase); // le champ de ce trésor ne sert plus
+            }
+        });
 
         if (destination != null && destination.getObjet() instanceof Tresor) {
             if (((Tresor) destination.getObjet()).isCollecte()) {
@@ -80,32 +251,46 @@ public class AgentCognitif extends Agent {
     }
 
     private void deciderAction() {
-        System.out.println("Cognitif " + id + "Zone " + this.getCaseActuelle().getZone() + "trésors connus = " + tresorsConnus.size()
-                + ", destination = " + destination
-                + ", chemin = " + cheminActuel.size());
+        if (contexte.isTraces()) {
+            System.out.println("Cognitif " + id + "Zone " + this.getCaseActuelle().getZone() + "trésors connus = " + connaissances.getNbTresors()
+                    + ", destination = " + destination
+                    + ", chemin = " + cheminActuel.size());
+        }
+        // avec le moteur à ticks le déplacement est appliqué après step() : l'arrivée se constate au tick suivant
+        verifierArrivee();
+
         //priorité 1 : secourir blessé même zone
         Case agentBlesse = trouverAgentBlesseProche();
         if (agentBlesse != null && destination != agentBlesse) {
             destination = agentBlesse;
-            cheminActuel = calculerCheminDijkstra(caseActuelle, destination);
-            System.out.println("Cognitif " + id + ": Secours agent à " + destination);
+            cheminActuel = calculerChemin(caseActuelle, destination);
+            if (contexte.isTraces()) {
+                System.out.println("Cognitif " + id + ": Secours agent à " + destination);
+            }
         }
 
         //2 => aller vers trésor connu et pas encore collecté 
-        if (agentBlesse == null && destination == null && !tresorsConnus.isEmpty()) {
+        if (agentBlesse == null && destination == null && connaissances.getNbTresors() > 0) {
             destination = trouverTresorLePlusProche();
             if (destination != null) {
-                cheminActuel = calculerCheminDijkstra(caseActuelle, destination);
-                System.out.println("Cognitif " + id + ": Cap vers trésor à " + destination);
+                // en mode champ de distances pas de chemin à calculer : on descend le champ partagé à chaque pas
+                cheminActuel = modeNavigation == ModeNavigation.CHAMP_DISTANCES
+                        ? new LinkedList<>()
+                        : calculerChemin(caseActuelle, destination);
+                if (contexte.isTraces()) {
+                    System.out.println("Cognitif " + id + ": Cap vers trésor à " + destination);
+                }
             }
         }
 
         //explorer aléatoirement et suivre un chemin
         if (!cheminActuel.isEmpty()) {
             suivreChemin();
+        } else if (destination != null && avancerParChampDistances()) {
+            // un pas vers le trésor en descendant le champ partagé
         } else if (destination != null) {
             //chemin actuel
-            cheminActuel = calculerCheminDijkstra(caseActuelle, destination);
+            cheminActuel = calculerChemin(caseActuelle, destination);
             if (!cheminActuel.isEmpty()) {
                 suivreChemin(); // suivre le chemin 
             } else {
@@ -116,10 +301,15 @@ public class AgentCognitif extends Agent {
         }
 
         //arriver à destination
+        verifierArrivee();
+    }
+
+    private void verifierArrivee() {
         if (destination != null && caseActuelle == destination) {
             secourirAgentsSurCase();
             destination = null;
             cheminActuel.clear();
+            replanificateur = null;
         }
     }
 
@@ -131,157 +321,71 @@ public class AgentCognitif extends Agent {
 
         Case prochaine = cheminActuel.peekFirst();
 
-        if (prochaine != null && prochaine.isAccessible() && !casesAEviter.contains(prochaine)) {
+        if (prochaine != null && prochaine.isAccessible() && !connaissances.estAEviter(prochaine.getId())) {
             cheminActuel.pollFirst();
             deplacerVers(prochaine);
         } else {
-            //obstacle => recalculer djikstra
-            cheminActuel = calculerCheminDijkstra(caseActuelle, destination);
+            //obstacle => recalculer le chemin
+            cheminActuel = calculerChemin(caseActuelle, destination);
             if (!cheminActuel.isEmpty()) {
                 deplacerVers(cheminActuel.pollFirst());
             }
         }
     }
 
-    private void explorerAleatoirement() {
-        // System.out.println("agent cognitif"+id+"explore aléatoirement");
-        List<Case> adjacentes = getCasesAdjacentes();
-        if (adjacentes.isEmpty()) {
-            adjacentes = super.getCasesAdjacentes();
+    /**
+     * Mode CHAMP_DISTANCES : avance d'une case vers le trésor visé grâce au
+     * champ de distances partagé. Renvoie false si le mode n'est pas actif,
+     * si la destination n'est pas un trésor ou si aucune descente n'est
+     * possible (l'agent planifie alors avec A*).
+     */
+    private boolean avancerParChampDistances() {
+        if (modeNavigation != ModeNavigation.CHAMP_DISTANCES || !connaissances.connaitTresor(destination.getId())) {
+            return false;
         }
-        if (!adjacentes.isEmpty()) {
-            deplacerVers(adjacentes.get(random.nextInt(adjacentes.size())));
+        ChampsDistances champs = carte.getChampsDistances();
+        int pas = champs.prochainPas(caseActuelle.getId(), destination.getId(), filtreEvitement);
+        if (pas == Carte.AUCUN_VOISIN) {
+            return false;
         }
+        return deplacerVers(carte.getCase(pas));
     }
 
-    //Algo djikstra
-    private LinkedList<Case> calculerCheminDijkstra(Case depart, Case arrivee) {
-        if (depart == null || arrivee == null) {
-            return new LinkedList<>();
+    private void explorerAleatoirement() {
+        // System.out.println("agent cognitif"+id+"explore aléatoirement");
+        int voisin = choisirVoisinAleatoire(filtreEvitement);
+        if (voisin == Carte.AUCUN_VOISIN) {
+            voisin = choisirVoisinAleatoire(FiltreCases.AUCUN);
         }
-
-        Map<Case, Integer> distances = new HashMap<>();
-        Map<Case, Case> parents = new HashMap<>();
-        Set<Case> visites = new HashSet<>();
-        List<Case> aTraiter = new ArrayList<>();
-
-        distances.put(depart, 0);
-        aTraiter.add(depart);
-
-        while (!aTraiter.isEmpty()) {
-            Case courante = null;
-            int minDist = Integer.MAX_VALUE;
-            for (Case c : aTraiter) {
-                int d = distances.getOrDefault(c, Integer.MAX_VALUE);
-                if (d < minDist) {
-                    minDist = d;
-                    courante = c;
-                }
-            }
-
-            if (courante == null) {
-                break;
-            }
-
-            aTraiter.remove(courante);
-            visites.add(courante);
-
-            if (courante == arrivee) {
-                return reconstruireChemin(parents, arrivee);
-            }
-
-            int distCourante = distances.get(courante);
-            for (Case voisin : getVoisinsAccessibles(courante)) {
-                if (visites.contains(voisin) || casesAEviter.contains(voisin)) {
-                    continue;
-                }
-
-                int nouvelleDist = distCourante + 1;
-                if (nouvelleDist < distances.getOrDefault(voisin, Integer.MAX_VALUE)) {
-                    distances.put(voisin, nouvelleDist);
-                    parents.put(voisin, courante);
-                    if (!aTraiter.contains(voisin)) {
-                        aTraiter.add(voisin);
-                    }
-                }
-            }
+        if (voisin != Carte.AUCUN_VOISIN) {
+            deplacerVers(carte.getCase(voisin));
         }
-
-        return new LinkedList<>();
     }
 
-    private LinkedList<Case> reconstruireChemin(Map<Case, Case> parents, Case arrivee) {
+    //A* sur les ids de case (tas indexé + tableaux de travail réutilisés), remplace l'ancien Dijkstra
+    private LinkedList<Case> calculerChemin(Case depart, Case arrivee) {
         LinkedList<Case> chemin = new LinkedList<>();
-        Case courant = arrivee;
-
-        while (parents.containsKey(courant)) {
-            chemin.addFirst(courant);
-            courant = parents.get(courant);
-        }
-        return chemin;
-    }
-
-    private List<Case> getVoisinsAccessibles(Case c) {
-        List<Case> voisins = new ArrayList<>();
-        if (c == null || c.getZone() == null) {
-            return voisins;
+        if (depart == null || arrivee == null) {
+            return chemin;
         }
 
-        Zone zone = c.getZone();
-        int x = c.getX();
-        int y = c.getY();
-
-        int[][] dirs = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
-
-        for (int[] d : dirs) {
-            int nx = x + d[0];
-            int ny = y + d[1];
-
-            if (nx >= 0 && nx < Zone.TAILLE && ny >= 0 && ny < Zone.TAILLE) {
-                Case voisin = zone.getCase(nx, ny);
-                if (voisin != null && voisin.isAccessible()) {
-                    voisins.add(voisin);
-                }
-            } else {
-                // Entre zones
-                Case voisin = getCaseEntreZones(c, d[0], d[1]);
-                if (voisin != null && voisin.isAccessible()) {
-                    voisins.add(voisin);
-                }
+        // en mode hiérarchique, seul le segment jusqu'à la zone suivante est calculé : on replanifie en y arrivant
+        int[] ids;
+        if (modeNavigation == ModeNavigation.HIERARCHIQUE) {
+            ids = carte.getPlanificateurHierarchique().planifier(depart.getId(), arrivee.getId(), filtreEvitement);
+        } else if (modeNavigation == ModeNavigation.INCREMENTAL) {
+            // D* Lite : la recherche est réparée (nouvelles cases à éviter, agent déplacé) au lieu d'être refaite
+            if (replanificateur == null || replanificateur.getArrivee() != arrivee.getId()) {
+                replanificateur = new ReplanificateurIncremental(carte, arrivee.getId(), filtreEvitement);
             }
+            ids = replanificateur.chemin(depart.getId());
+        } else {
+            ids = PlanificateurAStar.chercher(carte, depart.getId(), arrivee.getId(), filtreEvitement);
         }
-        return voisins;
-    }
-
-    private Case getCaseEntreZones(Case c, int dx, int dy) {
-        Zone zone = c.getZone();
-        int zx = zone.getZoneX();
-        int zy = zone.getZoneY();
-        int cx = c.getX() + dx;
-        int cy = c.getY() + dy;
-
-        if (cx < 0) {
-            zx--;
-            cx = Zone.TAILLE - 1;
-        } else if (cx >= Zone.TAILLE) {
-            zx++;
-            cx = 0;
-        }
-
-        if (cy < 0) {
-            zy--;
-            cy = Zone.TAILLE - 1;
-        } else if (cy >= Zone.TAILLE) {
-            zy++;
-            cy = 0;
-        }
-
-        if (zx < 0 || zx >= Carte.NB_ZONES_COTE || zy < 0 || zy >= Carte.NB_ZONES_COTE) {
-            return null;
+        for (int idCase : ids) {
+            chemin.add(carte.getCase(idCase));
         }
-
-        Zone zoneAdj = carte.getZone(zx, zy);
-        return zoneAdj != null ? zoneAdj.getCase(cx, cy) : null;
+        return chemin;
     }
 
     private Case trouverAgentBlesseProche() {
@@ -289,39 +393,35 @@ public class AgentCognitif extends Agent {
             return null;
         }
 
-        Zone zone = caseActuelle.getZone();
-        Case plusProche = null;
-        int minDist = Integer.MAX_VALUE;
-
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
-                Case c = zone.getCase(x, y);
-                if (c == null) {
-                    continue;
-                }
+        // l'index spatial connaît les morts de la zone : pas de parcours des cases
+        Agent blesse = carte.getIndexSpatial().getMortLePlusProche(caseActuelle);
+        return blesse != null && blesse != this ? blesse.getCaseActuelle() : null;
+    }
 
-                for (Agent agent : new ArrayList<>(c.getAgents())) {
-                    if (agent != null && agent != this && !agent.isAlive()) {
-                        int dist = calculerDistance(caseActuelle, c);
-                        if (dist < minDist) {
-                            minDist = dist;
-                            plusProche = c;
-                        }
-                    }
+    private void secourirAgentsSurCase() {
+        for (Agent agent : caseActuelle.getAgents()) { // parcours sans copie, sûr même si un secouru quitte la case
+            if (agent != null && agent != this && !agent.isAlive()) {
+                if (arbitre != null) {
+                    arbitre.proposerSecours(this, agent);
+                } else {
+                    secourir(agent);
                 }
             }
         }
-        return plusProche;
     }
 
-    private void secourirAgentsSurCase() {
-        for (Agent agent : new ArrayList<>(caseActuelle.getAgents())) {
-            if (agent != null && agent != this && !agent.isAlive()) {
-                agent.resetToQG();
-                System.out.println("Cognitif " + id + ": " + agent.getType() + " " + agent.getId() + " secouru !");
-                stats.incrementerSecours();
-            }
+    /**
+     * Renvoie l'agent blessé au QG (sans effet s'il a déjà été secouru).
+     */
+    public void secourir(Agent blesse) {
+        if (blesse.isAlive()) {
+            return;
+        }
+        blesse.resetToQG();
+        if (contexte.isTraces()) {
+            System.out.println("Cognitif " + id + ": " + blesse.getType() + " " + blesse.getId() + " secouru !");
         }
+        stats.incrementerSecours();
     }
 
     @Override
@@ -329,7 +429,7 @@ public class AgentCognitif extends Agent {
         List<Case> adjacentes = super.getCasesAdjacentes();
         List<Case> filtrees = new ArrayList<>();
         for (Case c : adjacentes) {
-            if (!casesAEviter.contains(c)) {
+            if (!connaissances.estAEviter(c.getId())) {
                 filtrees.add(c);
             }
         }
@@ -340,10 +440,8 @@ public class AgentCognitif extends Agent {
         Case plusProche = null;
         int minDist = Integer.MAX_VALUE;
 
-        for (Case c : tresorsConnus) {
-            if (c == null) {
-                continue;
-            }
+        for (int i = 0; i < connaissances.getNbTresors(); i++) {
+            Case c = carte.getCase(connaissances.getTresor(i));
             int dist = calculerDistance(caseActuelle, c);
             if (dist < minDist) {
                 minDist = dist;
@@ -358,14 +456,6 @@ public class AgentCognitif extends Agent {
             return Integer.MAX_VALUE;
         }
 
-        Zone za = a.getZone();
-        Zone zb = b.getZone();
-
-        int ax = za.getZoneX() * Zone.TAILLE + a.getX();
-        int ay = za.getZoneY() * Zone.TAILLE + a.getY();
-        int bx = zb.getZoneX() * Zone.TAILLE + b.getX();
-        int by = zb.getZoneY() * Zone.TAILLE + b.getY();
-
-        return Math.abs(ax - bx) + Math.abs(ay - by);
+        return Math.abs(a.getXGlobal() - b.getXGlobal()) + Math.abs(a.getYGlobal() - b.getYGlobal());
     }
 }
@@ -1,35 +1,107 @@
 package sma.agents;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import sma.environnement.Carte;
 import sma.environnement.Case;
+import sma.environnement.EnsembleCases;
+import sma.environnement.RegistreObjets;
 import sma.environnement.Zone;
-import sma.objets.Animal;
-import sma.objets.ObjetPassif;
-import sma.objets.Tresor;
+import sma.messaging.AbonneZone;
+import sma.messaging.BusZones;
+import sma.messaging.LotMessages;
+import sma.messaging.TableauNoir;
 
 public class AgentCommunicant extends Agent {
     
-    //static pour partager entre les objets les zones occupées => considérons le static comme le QG ... , les zones visitées doivent changer à chaque fois
-    private static final Set<Integer> zonesOccupees = new HashSet<>();
+    // zones occupées partagées par les communicants de la simulation (son contexte), les zones visitées doivent changer à chaque fois
+    private final Set<Integer> zonesOccupees;
+    private final ReentrantLock verrouZones;
     
     private final Set<Integer> zonesVisitees = new HashSet<>();
     private int zoneActuelleId = -1;
-    
-    public AgentCommunicant(Case positionInitiale, Carte carte) {
-        super(TypologieAgent.COMMUNICANT, positionInitiale, carte);
+
+    // mode DELTA : ce qui a déjà été annoncé dans chaque zone, et à qui dans la zone courante
+    private ModeDiffusion modeDiffusion = ModeDiffusion.DELTA;
+    private final Map<Integer, Annonces> annoncesParZone = new HashMap<>();
+    private final Map<AbonneZone, Long> abonnesServis = new HashMap<>(); // abonné -> jeton de l'abonnement servi
+    private int zoneServie = -1;
+    private int versionArriveesServie = -1;
+
+    // par lots : les informations d'un pas partent ensemble, un lot par destinataire
+    private boolean messagesParLots = true;
+    private final LotMessages.Tampon tampon = new LotMessages.Tampon();
+
+    // mode TABLEAU_NOIR : écritures d'un pas, publiées ensemble
+    private final TableauNoir.Modifications modifications = new TableauNoir.Modifications();
+    private int zoneAffichee = -1;
+
+    /**
+     * Objets d'une zone déjà annoncés (index locaux) et version du registre
+     * de la zone à ce moment-là.
+     */
+    private static final class Annonces {
+        int version = -1;
+        final BitSet tresors = new BitSet();
+        final BitSet animaux = new BitSet();
+    }
+
+    public AgentCommunicant(Case positionInitiale, Carte carte, ContexteSimulation contexte) {
+        super(TypologieAgent.COMMUNICANT, positionInitiale, carte, contexte);
+        this.zonesOccupees = contexte.getZonesOccupees();
+        this.verrouZones = contexte.getVerrouZones();
         
         if (positionInitiale != null && positionInitiale.getZone() != null) {
             zoneActuelleId = positionInitiale.getZone().getId();
             zonesVisitees.add(zoneActuelleId);
-            synchronized (zonesOccupees) {
+            verrouZones.lock();
+            try {
                 zonesOccupees.add(zoneActuelleId);
+            } finally {
+                verrouZones.unlock();
+            }
+        }
+    }
+
+    public ModeDiffusion getModeDiffusion() {
+        return modeDiffusion;
+    }
+
+    /**
+     * En mode TABLEAU_NOIR, la zone tenue est affichée sur le tableau noir
+     * et non dans zonesOccupees, réservé aux modes COMPLETE et DELTA.
+     */
+    public void setModeDiffusion(ModeDiffusion modeDiffusion) {
+        boolean tableauNoir = modeDiffusion == ModeDiffusion.TABLEAU_NOIR;
+        if (zoneActuelleId >= 0 && tableauNoir != (this.modeDiffusion == ModeDiffusion.TABLEAU_NOIR)) {
+            verrouZones.lock();
+            try {
+                if (tableauNoir) {
+                    zonesOccupees.remove(zoneActuelleId); // réservée sur le tableau au premier pas
+                } else {
+                    zonesOccupees.add(zoneActuelleId);
+                }
+            } finally {
+                verrouZones.unlock();
             }
         }
+        this.modeDiffusion = modeDiffusion;
+    }
+
+    public boolean isMessagesParLots() {
+        return messagesParLots;
+    }
+
+    public void setMessagesParLots(boolean messagesParLots) {
+        this.messagesParLots = messagesParLots;
     }
 
     @Override
@@ -42,80 +114,239 @@ public class AgentCommunicant extends Agent {
         Zone zoneActuelle = caseActuelle.getZone();
         
         // 1. Scanner et informer les cognitifs présents dans cette zone
-        scannerEtInformer(zoneActuelle);
+        if (modeDiffusion == ModeDiffusion.COMPLETE) {
+            scannerEtInformer(zoneActuelle);
+        } else {
+            diffuserChangements(zoneActuelle);
+        }
+        publierLot(zoneActuelle);
+        publierSurTableauNoir();
         
         // 2. Si plus de trésors dans la zone, se téléporter ailleurs
         if (compterTresorsRestants(zoneActuelle) == 0) {
-            System.out.println("Communicant " + id + ": Zone " + zoneActuelle.getId() + " vidée, téléportation...");
+            if (contexte.isTraces()) {
+                System.out.println("Communicant " + id + ": Zone " + zoneActuelle.getId() + " vidée, téléportation...");
+            }
             teleporterVersNouvelleZone();
         }
     }   
 
     private void scannerEtInformer(Zone zone) {
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
-                Case c = zone.getCase(x, y);
-                if (c == null) continue;
-                
-                ObjetPassif objet = c.getObjet();
-                if (objet == null) continue;
-                
-                if (objet instanceof Tresor && !((Tresor) objet).isCollecte()) {
-                    envoyerAuxCognitifsDansZone(Message.TypeMessage.TRESOR_TROUVE, c, zone);
-                }
-                else if (objet instanceof Animal) {
-                    envoyerAuxCognitifsDansZone(Message.TypeMessage.ANIMAL_DETECTE, c, zone);
+        // parcours du registre de la zone : seulement les cases qui portent un trésor ou un animal
+        RegistreObjets registre = zone.getRegistre();
+        EnsembleCases tresors = registre.getTresors();
+        for (int i = tresors.suivant(0); i >= 0; i = tresors.suivant(i + 1)) {
+            envoyerAuxCognitifsDansZone(Message.TypeMessage.TRESOR_TROUVE, carte.getCase(zone.idCaseLocale(i)), zone);
+        }
+
+        EnsembleCases animaux = registre.getAnimaux();
+        for (int i = animaux.suivant(0); i >= 0; i = animaux.suivant(i + 1)) {
+            envoyerAuxCognitifsDansZone(Message.TypeMessage.ANIMAL_DETECTE, carte.getCase(zone.idCaseLocale(i)), zone);
+        }
+    }
+
+    // destinataires : les abonnés de la zone sur le bus, sans parcourir ses cases
+    private void envoyerAuxCognitifsDansZone(Message.TypeMessage type, Case position, Zone zone) {
+        if (modeDiffusion == ModeDiffusion.TABLEAU_NOIR) {
+            ecrireSurTableauNoir(type, position.getId());
+        } else if (messagesParLots) {
+            tampon.ajouter(type, position.getId());
+        } else {
+            carte.getBus().publier(zone.getId(), new Message(this.id, type, position, zone.getId()));
+        }
+    }
+
+    private void envoyerZoneAuxCognitifs(Message.TypeMessage type, Zone zone) {
+        if (modeDiffusion == ModeDiffusion.TABLEAU_NOIR) {
+            return; // le tableau noir a déjà perdu les trésors ramassés de la zone
+        }
+        if (messagesParLots) {
+            tampon.ajouterZone(type, zone.getId());
+        } else {
+            carte.getBus().publier(zone.getId(), new Message(this.id, type, null, zone.getId()));
+        }
+    }
+
+    /**
+     * Publie en un seul lot ce qui a été accumulé pendant le pas, horodaté
+     * par le numéro du pas.
+     */
+    private void publierLot(Zone zone) {
+        if (messagesParLots && !tampon.estVide()) {
+            carte.getBus().publierLot(zone.getId(), tampon.construire(this.id, stats.getIterations()));
+            tampon.vider();
+        }
+    }
+
+    // ========== TABLEAU NOIR ==========
+    private void ecrireSurTableauNoir(Message.TypeMessage type, int idCase) {
+        switch (type) {
+            case TRESOR_TROUVE:
+                modifications.ajouterTresor(idCase);
+                break;
+            case TRESOR_COLLECTE:
+                modifications.retirerTresor(idCase);
+                break;
+            case ANIMAL_DETECTE:
+                modifications.ajouterDanger(idCase);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Réservation de la zone courante (si personne ne la tient) puis
+     * publication, en une fois, de tout ce que le pas a écrit.
+     */
+    private void publierSurTableauNoir() {
+        if (modeDiffusion != ModeDiffusion.TABLEAU_NOIR) {
+            return;
+        }
+        if (zoneAffichee != zoneServie) {
+            if (zoneAffichee >= 0) {
+                modifications.libererZone(zoneAffichee, this.id);
+            }
+            modifications.reserverZone(zoneServie, this.id);
+            zoneAffichee = zoneServie;
+        }
+        if (!modifications.estVide()) {
+            carte.getTableauNoir().publier(modifications);
+            modifications.vider();
+        }
+    }
+
+    // ========== DIFFUSION DELTA ==========
+    /**
+     * N'envoie que ce qui a changé depuis la dernière annonce dans la zone :
+     * nouveaux objets, trésors ramassés (TRESOR_COLLECTE sur leur case, puis
+     * AUCUN_TRESOR_ZONE quand il n'en reste plus), et un état complet pour
+     * chaque cognitif arrivé ou revenu depuis le pas précédent. Rien si ni le registre
+     * ni les abonnés de la zone n'ont changé. En mode TABLEAU_NOIR, les mêmes
+     * changements sont écrits sur le tableau noir au lieu d'être envoyés.
+     */
+    private void diffuserChangements(Zone zone) {
+        int idZone = zone.getId();
+        BusZones bus = carte.getBus();
+        if (idZone != zoneServie) {
+            zoneServie = idZone;
+            abonnesServis.clear();
+            versionArriveesServie = -1;
+        }
+        Annonces annonces = annoncesParZone.computeIfAbsent(idZone, k -> new Annonces());
+
+        // arrivants d'abord : ils reçoivent ce qui a déjà été annoncé, puis le delta avec les autres
+        // (inutile avec le tableau noir, que chacun relit quand il veut)
+        int arrivees = bus.getVersionArrivees(idZone);
+        if (modeDiffusion != ModeDiffusion.TABLEAU_NOIR && arrivees != versionArriveesServie) {
+            versionArriveesServie = arrivees;
+            Collection<AbonneZone> presents = bus.getAbonnes(idZone);
+            abonnesServis.keySet().retainAll(presents);
+            List<AbonneZone> arrivants = new ArrayList<>();
+            for (AbonneZone abonne : presents) {
+                // jeton changé : parti puis revenu depuis le dernier service, il a pu manquer des deltas
+                long jeton = bus.getJeton(abonne, idZone);
+                Long servi = abonnesServis.put(abonne, jeton);
+                if (servi == null || servi != jeton) {
+                    arrivants.add(abonne);
                 }
             }
+            if (!arrivants.isEmpty()) {
+                envoyerEtat(arrivants, annonces, zone);
+            }
+        }
+
+        RegistreObjets registre = zone.getRegistre();
+        int version = registre.getVersion(); // lue avant le parcours : un changement pendant le parcours sera revu au pas suivant
+        if (version == annonces.version) {
+            return;
+        }
+        annonces.version = version;
+        boolean tresorsRamasses = diffuser(registre.getTresors(), annonces.tresors,
+                Message.TypeMessage.TRESOR_TROUVE, Message.TypeMessage.TRESOR_COLLECTE, zone);
+        diffuser(registre.getAnimaux(), annonces.animaux, Message.TypeMessage.ANIMAL_DETECTE, null, zone);
+        if (tresorsRamasses && annonces.tresors.isEmpty()) {
+            envoyerZoneAuxCognitifs(Message.TypeMessage.AUCUN_TRESOR_ZONE, zone);
         }
     }
 
-    private void envoyerAuxCognitifsDansZone(Message.TypeMessage type, Case position, Zone zone) {
-        Message msg = new Message(this.id, type, position, zone.getId());
-        
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
-                Case caseRecupere = zone.getCase(x, y);
-                if (caseRecupere == null) continue;
-                
-                List<Agent> agentsSurCase = caseRecupere.getAgents();
-                if (agentsSurCase == null || agentsSurCase.isEmpty()) continue;
-                
-                List<Agent> agentsCopie = new ArrayList<>(agentsSurCase);
-                for (Agent a : agentsCopie) {
-                    if (a instanceof AgentCognitif) {
-                        ((AgentCognitif) a).recevoirMessage(msg);
-                    }
+    /**
+     * Publie les apparitions et, si disparition n'est pas null, les
+     * disparitions par rapport aux annonces, qui sont mises à jour ; renvoie
+     * vrai si une case a disparu.
+     */
+    private boolean diffuser(EnsembleCases actuelles, BitSet annoncees, Message.TypeMessage apparition,
+            Message.TypeMessage disparition, Zone zone) {
+        for (int i = actuelles.suivant(0); i >= 0; i = actuelles.suivant(i + 1)) {
+            if (!annoncees.get(i)) {
+                annoncees.set(i);
+                envoyerAuxCognitifsDansZone(apparition, carte.getCase(zone.idCaseLocale(i)), zone);
+            }
+        }
+        boolean disparue = false;
+        for (int i = annoncees.nextSetBit(0); i >= 0; i = annoncees.nextSetBit(i + 1)) {
+            if (!actuelles.contient(i)) {
+                annoncees.clear(i);
+                disparue = true;
+                if (disparition != null) {
+                    envoyerAuxCognitifsDansZone(disparition, carte.getCase(zone.idCaseLocale(i)), zone);
                 }
             }
         }
+        return disparue;
     }
 
-    private int compterTresorsRestants(Zone zone) {
-        int count = 0;
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
-                Case c = zone.getCase(x, y);
-                if (c != null && c.getObjet() instanceof Tresor) {
-                    if (!((Tresor) c.getObjet()).isCollecte()) {
-                        count++;
-                    }
+    /**
+     * État déjà annoncé dans la zone, pour les arrivants : un lot construit
+     * une fois et livré à chacun, ou un message par objet.
+     */
+    private void envoyerEtat(List<AbonneZone> arrivants, Annonces annonces, Zone zone) {
+        BusZones bus = carte.getBus();
+        if (messagesParLots) {
+            for (int i = annonces.tresors.nextSetBit(0); i >= 0; i = annonces.tresors.nextSetBit(i + 1)) {
+                tampon.ajouter(Message.TypeMessage.TRESOR_TROUVE, zone.idCaseLocale(i));
+            }
+            for (int i = annonces.animaux.nextSetBit(0); i >= 0; i = annonces.animaux.nextSetBit(i + 1)) {
+                tampon.ajouter(Message.TypeMessage.ANIMAL_DETECTE, zone.idCaseLocale(i));
+            }
+            if (!tampon.estVide()) {
+                LotMessages etat = tampon.construire(this.id, stats.getIterations());
+                tampon.vider();
+                for (AbonneZone abonne : arrivants) {
+                    bus.envoyerLot(abonne, etat);
                 }
             }
+            return;
+        }
+        for (AbonneZone abonne : arrivants) {
+            for (int i = annonces.tresors.nextSetBit(0); i >= 0; i = annonces.tresors.nextSetBit(i + 1)) {
+                bus.envoyer(abonne, new Message(this.id, Message.TypeMessage.TRESOR_TROUVE, carte.getCase(zone.idCaseLocale(i)), zone.getId()));
+            }
+            for (int i = annonces.animaux.nextSetBit(0); i >= 0; i = annonces.animaux.nextSetBit(i + 1)) {
+                bus.envoyer(abonne, new Message(this.id, Message.TypeMessage.ANIMAL_DETECTE, carte.getCase(zone.idCaseLocale(i)), zone.getId()));
+            }
         }
-        return count;
+    }
+
+    private int compterTresorsRestants(Zone zone) {
+        return carte.compterTresorsRestants(zone.getId());
     }
 
     private void teleporterVersNouvelleZone() {
-        synchronized (zonesOccupees) {
+        if (modeDiffusion == ModeDiffusion.TABLEAU_NOIR) {
+            teleporterParTableauNoir();
+            return;
+        }
+        verrouZones.lock();
+        try {
             // Libérer la zone actuelle
             if (zoneActuelleId >= 0) {
                 zonesOccupees.remove(zoneActuelleId);
             }
             
             // Chercher une zone non occupée par un autre communicant
-            for (int zx = 0; zx < Carte.NB_ZONES_COTE; zx++) {
-                for (int zy = 0; zy < Carte.NB_ZONES_COTE; zy++) {
+            for (int zx = 0; zx < carte.getNbZonesCote(); zx++) {
+                for (int zy = 0; zy < carte.getNbZonesCote(); zy++) {
                     if (zx == 0 && zy == 0) {
                         continue; 
                     }
@@ -129,11 +360,13 @@ public class AgentCommunicant extends Agent {
                     if (!zonesOccupees.contains(zoneId) && compterTresorsRestants(zone) > 0) {
                         Case caseSafe = trouverCaseSafe(zone);
                         if (caseSafe != null) {
-                            caseActuelle = caseSafe;
+                            changerDeCase(caseSafe);
                             zoneActuelleId = zoneId;
                             zonesVisitees.add(zoneId);
                             zonesOccupees.add(zoneId);
-                            System.out.println("Communicant " + id + ": Téléporté vers Zone " + zoneId + " (libre)");
+                            if (contexte.isTraces()) {
+                                System.out.println("Communicant " + id + ": Téléporté vers Zone " + zoneId + " (libre)");
+                            }
                             return;
                         }
                     }
@@ -141,8 +374,8 @@ public class AgentCommunicant extends Agent {
             }
             
             // Si toutes les zones libres sont vides, chercher une zone avec trésors même occupée
-            for (int zx = 0; zx < Carte.NB_ZONES_COTE; zx++) {
-                for (int zy = 0; zy < Carte.NB_ZONES_COTE; zy++) {
+            for (int zx = 0; zx < carte.getNbZonesCote(); zx++) {
+                for (int zy = 0; zy < carte.getNbZonesCote(); zy++) {
                     if (zx == 0 && zy == 0) continue;
                     
                     Zone zone = carte.getZone(zx, zy);
@@ -151,29 +384,86 @@ public class AgentCommunicant extends Agent {
                     if (compterTresorsRestants(zone) > 0) {
                         Case caseSafe = trouverCaseSafe(zone);
                         if (caseSafe != null) {
-                            caseActuelle = caseSafe;
+                            changerDeCase(caseSafe);
                             zoneActuelleId = zone.getId();
                             zonesOccupees.add(zoneActuelleId);
-                            System.out.println("Communicant " + id + ": Téléporté vers Zone " + zoneActuelleId + " (fallback)");
+                            if (contexte.isTraces()) {
+                                System.out.println("Communicant " + id + ": Téléporté vers Zone " + zoneActuelleId + " (fallback)");
+                            }
                             return;
                         }
                     }
                 }
             }
             
-            System.out.println("Communicant " + id + ": Aucune zone avec trésors disponible");
+            if (contexte.isTraces()) {
+                System.out.println("Communicant " + id + ": Aucune zone avec trésors disponible");
+            }
+        } finally {
+            verrouZones.unlock();
         }
     }
 
-    private Case trouverCaseSafe(Zone zone) {
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
-                Case c = zone.getCase(x, y);
-                if (c != null && c.isAccessible() && !(c.getObjet() instanceof Animal)) {
-                    return c;
+    /**
+     * Même choix que teleporterVersNouvelleZone, sans verrou : les zones
+     * libres sont lues sur un instantané du tableau noir, puis réservées
+     * par CAS ; si un autre communicant a réservé la zone entre-temps, on
+     * passe à la suivante. Le repli sur une zone tenue par un autre ne la
+     * réserve pas.
+     */
+    private void teleporterParTableauNoir() {
+        TableauNoir tableau = carte.getTableauNoir();
+        TableauNoir.Instantane etat = tableau.lire();
+        for (int zx = 0; zx < carte.getNbZonesCote(); zx++) {
+            for (int zy = 0; zy < carte.getNbZonesCote(); zy++) {
+                Zone zone = carte.getZone(zx, zy);
+                if ((zx == 0 && zy == 0) || zone == null || etat.getAffectation(zone.getId()) != TableauNoir.AUCUN_AGENT
+                        || compterTresorsRestants(zone) == 0) {
+                    continue;
+                }
+                Case caseSafe = trouverCaseSafe(zone);
+                if (caseSafe != null && tableau.reserverZone(zone.getId(), zoneAffichee, this.id)) {
+                    changerDeCase(caseSafe);
+                    zoneActuelleId = zone.getId();
+                    zonesVisitees.add(zoneActuelleId);
+                    zoneAffichee = zoneActuelleId; // déjà réservée : rien à republier
+                    if (contexte.isTraces()) {
+                        System.out.println("Communicant " + id + ": Téléporté vers Zone " + zoneActuelleId + " (libre)");
+                    }
+                    return;
                 }
             }
         }
-        return null;
+
+        // plus de zone libre avec trésors : la zone vidée est rendue, repli sur une zone tenue
+        if (zoneAffichee >= 0) {
+            modifications.libererZone(zoneAffichee, this.id);
+        }
+        for (int zx = 0; zx < carte.getNbZonesCote(); zx++) {
+            for (int zy = 0; zy < carte.getNbZonesCote(); zy++) {
+                Zone zone = carte.getZone(zx, zy);
+                if ((zx == 0 && zy == 0) || zone == null || compterTresorsRestants(zone) == 0) {
+                    continue;
+                }
+                Case caseSafe = trouverCaseSafe(zone);
+                if (caseSafe != null) {
+                    changerDeCase(caseSafe);
+                    zoneActuelleId = zone.getId();
+                    zoneAffichee = zoneActuelleId; // tenue par un autre : pas de réservation
+                    if (contexte.isTraces()) {
+                        System.out.println("Communicant " + id + ": Téléporté vers Zone " + zoneActuelleId + " (fallback)");
+                    }
+                    return;
+                }
+            }
+        }
+        if (contexte.isTraces()) {
+            System.out.println("Communicant " + id + ": Aucune zone avec trésors disponible");
+        }
+    }
+
+    private Case trouverCaseSafe(Zone zone) {
+        int index = zone.getRegistre().premiereCaseLibre(0); // ni animal ni trésor ni obstacle : le communicant ne ramasse rien
+        return index >= 0 ? carte.getCase(zone.idCaseLocale(index)) : null;
     }
-}
\ No newline at end of file
+}
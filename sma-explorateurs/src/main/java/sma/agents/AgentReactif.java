@@ -1,28 +1,23 @@
 package sma.agents;
 
-import java.util.List;
-import java.util.Random;
-
 import sma.environnement.Carte;
 import sma.environnement.Case;
+import sma.navigation.FiltreCases;
 
 public class AgentReactif extends Agent {
-    
-    private final Random random = new Random();
 
-    public AgentReactif(Case positionInitiale, Carte carte) {
-        super(TypologieAgent.REACTIF, positionInitiale, carte);
+    public AgentReactif(Case positionInitiale, Carte carte, ContexteSimulation contexte) {
+        super(TypologieAgent.REACTIF, positionInitiale, carte, contexte);
     }
 
     @Override
     public void step() {
-        List<Case> casesAccessibles = getCasesAdjacentes();
-        
-        if (casesAccessibles.isEmpty()) {
+        int destination = choisirVoisinAleatoire(FiltreCases.AUCUN);
+
+        if (destination == Carte.AUCUN_VOISIN) {
             return;
         }
-        
-        Case destination = casesAccessibles.get(random.nextInt(casesAccessibles.size()));
-        deplacerVers(destination);
+
+        deplacerVers(carte.getCase(destination));
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package sma.agents;
+
+import sma.environnement.Case;
+
+/**
+ * Reçoit les actions qu'un agent veut faire sur le monde quand elles ne sont
+ * pas appliquées tout de suite (moteur à ticks) : elles sont résolues plus
+ * tard dans un ordre fixé par l'arbitre.
+ */
+public interface ArbitreActions {
+
+    void proposerDeplacement(Agent agent, Case destination);
+
+    void proposerSecours(AgentCognitif sauveteur, Agent blesse);
+}
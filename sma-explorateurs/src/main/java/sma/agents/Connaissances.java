@@ -0,0 +1,133 @@
+package sma.agents;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import sma.environnement.EnsembleCases;
+
+/**
+ * Ce qu'un agent cognitif sait de la carte, indexé par id global de case :
+ * trésors signalés et cases à éviter sous forme de bitsets (ajout et test
+ * en O(1), nbCases / 8 octets chacun quel que soit le nombre d'informations
+ * reçues), plus la liste compacte des trésors connus, dans l'ordre où ils
+ * ont été appris, pour choisir une cible sans parcourir le bitset.
+ *
+ * Les trésors ramassés depuis sont retirés d'un coup par intersection avec
+ * l'ensemble des trésors non collectés de la carte, seulement quand la
+ * version des trésors de la carte a changé.
+ */
+public class Connaissances {
+
+    private final long[] tresors;
+    private final long[] aEviter;
+    private int[] cibles = new int[8];  // ids des trésors connus, bits à 1 de tresors
+    private int nbCibles = 0;
+    private int nbAEviter = 0;
+    private int versionMondeVue = -1;
+
+    public Connaissances(int nbCases) {
+        int nbMots = (nbCases + 63) >>> 6;
+        this.tresors = new long[nbMots];
+        this.aEviter = new long[nbMots];
+    }
+
+    // ========== TRÉSORS ==========
+    /**
+     * @return true si le trésor n'était pas déjà connu
+     */
+    public boolean ajouterTresor(int idCase) {
+        if (contient(tresors, idCase)) {
+            return false;
+        }
+        tresors[idCase >>> 6] |= 1L << idCase;
+        if (nbCibles == cibles.length) {
+            cibles = Arrays.copyOf(cibles, nbCibles * 2);
+        }
+        cibles[nbCibles++] = idCase;
+        return true;
+    }
+
+    public boolean connaitTresor(int idCase) {
+        return contient(tresors, idCase);
+    }
+
+    /**
+     * @return true si le trésor était connu
+     */
+    public boolean oublierTresor(int idCase) {
+        if (!contient(tresors, idCase)) {
+            return false;
+        }
+        tresors[idCase >>> 6] &= ~(1L << idCase);
+        for (int i = 0; i < nbCibles; i++) {
+            if (cibles[i] == idCase) {
+                System.arraycopy(cibles, i + 1, cibles, i, nbCibles - i - 1); // garde l'ordre d'apprentissage
+                nbCibles--;
+                break;
+            }
+        }
+        return true;
+    }
+
+    public int getNbTresors() {
+        return nbCibles;
+    }
+
+    /**
+     * i-ème trésor connu, 0 <= i < getNbTresors().
+     */
+    public int getTresor(int i) {
+        return cibles[i];
+    }
+
+    /**
+     * Retire les trésors absents de l'ensemble des trésors non collectés de
+     * la carte (tresorsDuMonde, indexé par id global) ; rien à faire si la
+     * version n'a pas changé depuis le dernier appel. surOubli reçoit l'id
+     * de chaque trésor retiré. Renvoie le nombre de trésors retirés.
+     */
+    public int intersecter(EnsembleCases tresorsDuMonde, int versionMonde, IntConsumer surOubli) {
+        if (versionMonde == versionMondeVue) {
+            return 0;
+        }
+        versionMondeVue = versionMonde;
+        tresorsDuMonde.intersecter(tresors);
+        int gardes = 0;
+        for (int i = 0; i < nbCibles; i++) {
+            int idCase = cibles[i];
+            if (contient(tresors, idCase)) {
+                cibles[gardes++] = idCase;
+            } else if (surOubli != null) {
+                surOubli.accept(idCase);
+            }
+        }
+        int retires = nbCibles - gardes;
+        nbCibles = gardes;
+        return retires;
+    }
+
+    // ========== CASES À ÉVITER ==========
+    /**
+     * @return true si la case n'était pas déjà à éviter
+     */
+    public boolean ajouterCaseAEviter(int idCase) {
+        if (contient(aEviter, idCase)) {
+            return false;
+        }
+        aEviter[idCase >>> 6] |= 1L << idCase;
+        nbAEviter++;
+        return true;
+    }
+
+    public boolean estAEviter(int idCase) {
+        return nbAEviter > 0 && contient(aEviter, idCase);
+    }
+
+    public int getNbCasesAEviter() {
+        return nbAEviter;
+    }
+
+    private static boolean contient(long[] bits, int idCase) {
+        return (bits[idCase >>> 6] & (1L << idCase)) != 0;
+    }
+}
@@ -0,0 +1,100 @@
+package sma.agents;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * État partagé propre à une simulation (créé par la Simulation, transmis à
+ * sa Carte et à ses agents) : compteurs d'ids, zones tenues par les
+ * communicants, fin de la simulation, graine maîtresse, traces. Deux
+ * simulations d'une même JVM ne partagent rien.
+ */
+public class ContexteSimulation {
+
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final AtomicInteger compteurAgents = new AtomicInteger();
+    private final AtomicInteger compteurObjets = new AtomicInteger();
+    private final Set<Integer> zonesOccupees = new HashSet<>(); // considérons-le comme le QG des communicants
+    private final ReentrantLock verrouZones = new ReentrantLock(); // garde zonesOccupees
+    private final AtomicBoolean simulationTerminee = new AtomicBoolean(false);
+    private volatile boolean traces = true;
+    private volatile long graineMaitre = new SplittableRandom().nextLong(); // tirée au hasard tant qu'elle n'est pas fixée
+
+    // ========== HASARD ==========
+    /**
+     * À fixer avant de créer les agents : leurs flux en dépendent.
+     */
+    public void fixerGraineMaitre(long graine) {
+        this.graineMaitre = graine;
+    }
+
+    public long getGraineMaitre() {
+        return graineMaitre;
+    }
+
+    /**
+     * Flux propre à un agent, fonction de la graine maîtresse et de son id
+     * seulement : pas d'état partagé entre agents, et le même flux quel que
+     * soit l'ordre (ou le thread) de création.
+     */
+    public SplittableRandom fluxAgent(int idAgent) {
+        return new SplittableRandom(melanger(graineMaitre + idAgent * GAMMA));
+    }
+
+    // finaliseur de MurmurHash3 : deux ids voisins donnent des graines sans rapport
+    private static long melanger(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    // ========== TRACES ==========
+    /**
+     * Traces console des agents ; fixées par la Simulation d'après sa
+     * configuration.
+     */
+    public boolean isTraces() {
+        return traces;
+    }
+
+    public void setTraces(boolean traces) {
+        this.traces = traces;
+    }
+
+    // ========== IDS ET ÉTAT PARTAGÉ ==========
+    public int prochainIdAgent() {
+        return compteurAgents.incrementAndGet();
+    }
+
+    public int prochainIdObjet() {
+        return compteurObjets.incrementAndGet();
+    }
+
+    /**
+     * Zones occupées par un communicant ; à manipuler sous getVerrouZones().
+     */
+    public Set<Integer> getZonesOccupees() {
+        return zonesOccupees;
+    }
+
+    public ReentrantLock getVerrouZones() {
+        return verrouZones;
+    }
+
+    public boolean isSimulationTerminee() {
+        return simulationTerminee.get();
+    }
+
+    /**
+     * Marque la simulation terminée ; renvoie true pour le seul appelant qui
+     * a fait la transition (c'est lui qui arrête la simulation).
+     */
+    public boolean terminer() {
+        return simulationTerminee.compareAndSet(false, true);
+    }
+}
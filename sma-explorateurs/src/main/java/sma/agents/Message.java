@@ -1,6 +1,7 @@
 package sma.agents;
 
 import sma.environnement.Case;
+import sma.messaging.LotMessages;
 
 /**
  * Message envoyé par un agent communicant vers un agent cognitif.
@@ -11,7 +12,8 @@ public class Message {
         TRESOR_TROUVE,
         ANIMAL_DETECTE,
         ZONE_EXPLOREE,
-        AUCUN_TRESOR_ZONE
+        AUCUN_TRESOR_ZONE,
+        TRESOR_COLLECTE     // le trésor de cette case a été ramassé
     }
 
     private final int expediteurId;
@@ -48,6 +50,14 @@ public class Message {
         return timestamp;
     }
 
+    /**
+     * Clé (type, case) ou (type, zone) sans position : deux messages de même
+     * clé portent la même information et peuvent être fusionnés.
+     */
+    public long getCleFusion() {
+        return position != null ? LotMessages.encoder(type, position.getId()) : LotMessages.encoderZone(type, zoneId);
+    }
+
     @Override
     public String toString() {
         return String.format("Message[de=%d, type=%s, zone=%d]", expediteurId, type, zoneId);
@@ -0,0 +1,11 @@
+package sma.agents;
+
+/**
+ * Ce qu'un agent communicant diffuse aux cognitifs à chaque pas, et par
+ * quel moyen.
+ */
+public enum ModeDiffusion {
+    COMPLETE,       // tous les trésors et animaux de la zone, à chaque pas
+    DELTA,          // seulement les changements depuis la dernière annonce, plus un état complet pour chaque arrivant
+    TABLEAU_NOIR    // les changements sont écrits sur le tableau noir du QG, que tous les cognitifs lisent
+}
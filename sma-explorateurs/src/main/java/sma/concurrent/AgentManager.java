@@ -1,49 +1,59 @@
 package sma.concurrent;
 
 import sma.agents.Agent;
+import sma.agents.ContexteSimulation;
 import sma.simulation.Simulation;
 
-public class AgentManager extends Thread {
+/**
+ * Boucle d'un agent (pas, attente) sur son propre thread, classique ou
+ * virtuel. À sa mort, l'agent libère son thread : sa réapparition est
+ * planifiée dans la roue temporelle de la simulation, qui relance une
+ * boucle sur un nouveau thread une fois le délai écoulé.
+ */
+public class AgentManager implements Runnable {
 
     private final Agent agent;
     private final Simulation simulation;
     private volatile boolean running = true;
     private final long delaiEnMiliSecondes;
-    private static volatile boolean simulationTerminee = false; //on peut le faire en synchronized 
-    //mais notifie aux autres threads que la simulation est bien terminée 
+    private final boolean virtuel;
+    private volatile Thread thread;
     private static final int MULTIPLICATEUR_RESPAWN = 100;  // Facteur de pénalité
 
     public AgentManager(Agent agent, Simulation simulation, long delaiEnMiliSecondes) {
+        this(agent, simulation, delaiEnMiliSecondes, false);
+    }
+
+    public AgentManager(Agent agent, Simulation simulation, long delaiEnMiliSecondes, boolean virtuel) {
         this.agent = agent;
         this.simulation = simulation;
         this.delaiEnMiliSecondes = delaiEnMiliSecondes;
+        this.virtuel = virtuel;
+    }
+
+    public void start() {
+        thread = FabriqueThreads.creer(this, "agent-" + agent.getId(), virtuel);
+        thread.start();
     }
 
     @Override
     public void run() {
-        while (running && !simulationTerminee) {
+        ContexteSimulation contexte = simulation.getContexte(); // fin notifiée aux autres threads de la même simulation
+        while (running && !contexte.isSimulationTerminee()) {
             if (simulation.getCarte().tousTresorsCollectes()) {
-                if (!simulationTerminee) {
-                    simulationTerminee = true;
+                if (contexte.terminer()) {
                     simulation.arreter();
                 }
                 break;
             }
 
-            if (agent.isAlive()) {
-                agent.step();
-                agent.getStats().incrementerIterations();
-
-            } else {
-                try {
-                    Thread.sleep(delaiEnMiliSecondes * MULTIPLICATEUR_RESPAWN); //reset temps réapparition en théroei on est sur du 100*100 donc 10 secondes 
-                } catch (InterruptedException e) {
-                    System.out.println("erreur exception interrupted +> ");
-                    e.printStackTrace();
-                    break;
-                }
-                agent.resetToQG();
+            if (!agent.isAlive()) {
+                // en théorie 100*100 donc 10 secondes, sans garder de thread endormi
+                simulation.getRoueTemporelle().planifierDansMs(delaiEnMiliSecondes * MULTIPLICATEUR_RESPAWN, this::reanimer);
+                break;
             }
+            agent.step();
+            agent.getStats().incrementerIterations();
             try {
                 Thread.sleep(delaiEnMiliSecondes);
             } catch (InterruptedException e) {
@@ -53,16 +63,26 @@ public class AgentManager extends Thread {
         }
     }
 
+    // exécuté par le thread de la roue
+    private void reanimer() {
+        if (!running || simulation.getContexte().isSimulationTerminee()) {
+            return;
+        }
+        if (!agent.isAlive()) { // peut avoir été secouru entre-temps
+            agent.resetToQG();
+        }
+        start();
+    }
+
     public void stopAgent() {
         running = false;
-        this.interrupt();
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
     }
 
     public Agent getAgent() {
         return agent;
     }
-
-    public static boolean isSimulationTerminee() {
-        return simulationTerminee;
-    }
 }
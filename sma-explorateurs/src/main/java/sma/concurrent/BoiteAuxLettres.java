@@ -0,0 +1,231 @@
+package sma.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+/**
+ * Boîte aux lettres bornée et sans verrou : plusieurs expéditeurs, un
+ * destinataire. Anneau à numéros de séquence (file bornée de D. Vyukov) :
+ * chaque case de l'anneau porte un numéro qui dit si elle est libre pour le
+ * dépôt de rang n ou pleine pour le retrait de rang n.
+ *
+ * Quand la boîte est pleine, la politique choisit :
+ * - SUPPRIMER_PLUS_ANCIEN : le plus vieux message est jeté ;
+ * - FUSIONNER : un message dont la clé (ex. type + case) est déjà en attente
+ *   n'est pas redéposé ; si la boîte reste pleine, le plus vieux est jeté.
+ *   Les clés en attente sont dans une table à adressage direct : en cas de
+ *   collision la fusion n'a simplement pas lieu ;
+ * - BLOQUER : l'expéditeur attend une place (attente active puis parkNanos),
+ *   au plus attenteMaxNanos, après quoi le message est perdu. Avec
+ *   attenteMaxNanos = 0, un message qui ne trouve pas de place est perdu
+ *   tout de suite (destinataire qui ne vide pas sa boîte en parallèle).
+ */
+public class BoiteAuxLettres<T> {
+
+    public enum PolitiqueDebordement {
+        SUPPRIMER_PLUS_ANCIEN,
+        FUSIONNER,
+        BLOQUER
+    }
+
+    public static final long ATTENTE_MAX_DEFAUT_NANOS = 10_000_000L; // 10 ms
+    private static final long AUCUNE_CLE = 0L;
+
+    private final int masque;
+    private final AtomicReferenceArray<T> messages;
+    private final AtomicLongArray sequences;
+    private final AtomicLong rangDepot = new AtomicLong();
+    private final AtomicLong rangRetrait = new AtomicLong();
+
+    private final PolitiqueDebordement politique;
+    private final ToLongFunction<T> cle;
+    private final AtomicLongArray clesEnAttente;   // [hash(clé)] = clé + 1, 0 si libre
+    private final long attenteMaxNanos;
+
+    private final AtomicLong deposes = new AtomicLong();
+    private final AtomicLong pertes = new AtomicLong();
+    private final AtomicLong fusions = new AtomicLong();
+
+    public BoiteAuxLettres(int capacite, PolitiqueDebordement politique) {
+        this(capacite, politique, null, ATTENTE_MAX_DEFAUT_NANOS);
+    }
+
+    /**
+     * @param capacite arrondie à la puissance de deux supérieure
+     * @param cle clé de fusion (obligatoire pour FUSIONNER), valeurs >= 0
+     */
+    public BoiteAuxLettres(int capacite, PolitiqueDebordement politique, ToLongFunction<T> cle, long attenteMaxNanos) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("Capacité invalide : " + capacite);
+        }
+        if (politique == PolitiqueDebordement.FUSIONNER && cle == null) {
+            throw new IllegalArgumentException("La politique FUSIONNER demande une clé");
+        }
+        int taille = Integer.highestOneBit(capacite * 2 - 1);
+        this.masque = taille - 1;
+        this.messages = new AtomicReferenceArray<>(taille);
+        this.sequences = new AtomicLongArray(taille);
+        for (int i = 0; i < taille; i++) {
+            sequences.set(i, i);
+        }
+        this.politique = politique;
+        this.cle = cle;
+        this.clesEnAttente = politique == PolitiqueDebordement.FUSIONNER ? new AtomicLongArray(taille * 2) : null;
+        this.attenteMaxNanos = attenteMaxNanos;
+    }
+
+    // ========== DÉPÔT (expéditeurs) ==========
+    /**
+     * Dépose un message. Renvoie false si le message n'a pas été ajouté
+     * (fusionné avec un message en attente ou perdu).
+     */
+    public boolean deposer(T message) {
+        if (clesEnAttente != null) {
+            long valeur = cle.applyAsLong(message) + 1;
+            int slot = slotCle(valeur);
+            long presente = clesEnAttente.get(slot);
+            if (presente == valeur) {
+                fusions.incrementAndGet();
+                return false;
+            }
+            if (presente == AUCUNE_CLE) {
+                // si le CAS échoue (collision ou course), le message est déposé sans être fusionnable
+                clesEnAttente.compareAndSet(slot, AUCUNE_CLE, valeur);
+            }
+        }
+
+        if (essayerDeposer(message)) {
+            deposes.incrementAndGet();
+            return true;
+        }
+
+        if (politique == PolitiqueDebordement.BLOQUER) {
+            long limite = System.nanoTime() + attenteMaxNanos;
+            int tours = 0;
+            while (System.nanoTime() < limite) {
+                if (essayerDeposer(message)) {
+                    deposes.incrementAndGet();
+                    return true;
+                }
+                if (++tours < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(50_000L);
+                }
+            }
+            pertes.incrementAndGet();
+            return false;
+        }
+
+        // SUPPRIMER_PLUS_ANCIEN et FUSIONNER : on fait de la place
+        while (true) {
+            if (retirer() != null) {
+                pertes.incrementAndGet();
+            }
+            if (essayerDeposer(message)) {
+                deposes.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private boolean essayerDeposer(T message) {
+        long rang = rangDepot.get();
+        while (true) {
+            int i = (int) rang & masque;
+            long difference = sequences.get(i) - rang;
+            if (difference == 0) {
+                if (rangDepot.compareAndSet(rang, rang + 1)) {
+                    messages.set(i, message);
+                    sequences.set(i, rang + 1); // publie le message au destinataire
+                    return true;
+                }
+                rang = rangDepot.get();
+            } else if (difference < 0) {
+                return false; // pleine
+            } else {
+                rang = rangDepot.get();
+            }
+        }
+    }
+
+    // ========== RETRAIT (destinataire, ou expéditeur qui fait de la place) ==========
+    /**
+     * Plus vieux message en attente, ou null si la boîte est vide.
+     */
+    public T retirer() {
+        long rang = rangRetrait.get();
+        while (true) {
+            int i = (int) rang & masque;
+            long difference = sequences.get(i) - (rang + 1);
+            if (difference == 0) {
+                if (rangRetrait.compareAndSet(rang, rang + 1)) {
+                    T message = messages.get(i);
+                    messages.set(i, null);
+                    sequences.set(i, rang + masque + 1); // case libre pour le tour suivant de l'anneau
+                    oublierCle(message);
+                    return message;
+                }
+                rang = rangRetrait.get();
+            } else if (difference < 0) {
+                return null; // vide
+            } else {
+                rang = rangRetrait.get();
+            }
+        }
+    }
+
+    private void oublierCle(T message) {
+        if (clesEnAttente != null) {
+            long valeur = cle.applyAsLong(message) + 1;
+            clesEnAttente.compareAndSet(slotCle(valeur), valeur, AUCUNE_CLE);
+        }
+    }
+
+    private int slotCle(long valeur) {
+        long h = valeur * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & (clesEnAttente.length() - 1);
+    }
+
+    // ========== COMPTEURS ==========
+    /**
+     * Nombre de messages en attente (instantané approximatif).
+     */
+    public int getProfondeur() {
+        long profondeur = rangDepot.get() - rangRetrait.get();
+        return (int) Math.max(0, Math.min(profondeur, masque + 1));
+    }
+
+    public int getCapacite() {
+        return masque + 1;
+    }
+
+    public PolitiqueDebordement getPolitique() {
+        return politique;
+    }
+
+    public long getNbDeposes() {
+        return deposes.get();
+    }
+
+    /**
+     * Messages jetés : les plus vieux remplacés (SUPPRIMER_PLUS_ANCIEN,
+     * FUSIONNER) ou les nouveaux après attente (BLOQUER).
+     */
+    public long getNbPertes() {
+        return pertes.get();
+    }
+
+    public long getNbFusions() {
+        return fusions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BoiteAuxLettres[%s, profondeur=%d/%d, déposés=%d, pertes=%d, fusions=%d]",
+                politique, getProfondeur(), getCapacite(), getNbDeposes(), getNbPertes(), getNbFusions());
+    }
+}
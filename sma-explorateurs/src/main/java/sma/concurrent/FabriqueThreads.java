@@ -0,0 +1,55 @@
+package sma.concurrent;
+
+import java.lang.reflect.Method;
+
+/**
+ * Création des threads des agents : threads classiques ou threads virtuels.
+ * Les threads virtuels (JDK 21+) sont obtenus par réflexion pour que le
+ * projet compile toujours en Java 17 ; sur un JDK plus ancien on retombe sur
+ * des threads classiques.
+ */
+public final class FabriqueThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NOMMER;
+    private static final Method DEMARRER;
+
+    static {
+        Method ofVirtual = null;
+        Method nommer = null;
+        Method demarrer = null;
+        try {
+            Class<?> constructeur = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            nommer = constructeur.getMethod("name", String.class);
+            demarrer = constructeur.getMethod("unstarted", Runnable.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null; // JDK < 21
+        }
+        OF_VIRTUAL = ofVirtual;
+        NOMMER = nommer;
+        DEMARRER = demarrer;
+    }
+
+    private FabriqueThreads() {
+    }
+
+    public static boolean threadsVirtuelsDisponibles() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Thread non démarré exécutant la tâche ; virtuel si demandé et disponible.
+     */
+    public static Thread creer(Runnable tache, String nom, boolean virtuel) {
+        if (virtuel && OF_VIRTUAL != null) {
+            try {
+                Object constructeur = NOMMER.invoke(OF_VIRTUAL.invoke(null), nom);
+                return (Thread) DEMARRER.invoke(constructeur, tache);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Impossible de créer un thread virtuel", e);
+            }
+        }
+        return new Thread(tache, nom);
+    }
+}
@@ -0,0 +1,124 @@
+package sma.concurrent;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Rapport d'exécution sur threads virtuels : épinglages des threads porteurs
+ * (événement JFR jdk.VirtualThreadPinned, avec les endroits du code qui les
+ * provoquent) et utilisation approximative des porteurs (temps CPU du
+ * processus rapporté au parallélisme de l'ordonnanceur).
+ *
+ * Sur un JDK sans threads virtuels, l'événement n'existe pas et le rapport
+ * indique simplement 0 épinglage. JFR livre les événements par paquets
+ * (environ une seconde) : ceux de la toute fin peuvent manquer.
+ */
+public class RapportVirtuels {
+
+    private static final int NB_SITES_AFFICHES = 10;
+
+    private final RecordingStream flux;
+    private final AtomicLong epinglages = new AtomicLong();
+    private final AtomicLong dureeEpingleeNanos = new AtomicLong();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private final int parallelisme;
+    private long debutNanos;
+    private long debutCpuNanos;
+    private String resume;
+
+    public RapportVirtuels() {
+        this.parallelisme = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        this.flux = new RecordingStream();
+        flux.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+        flux.onEvent("jdk.VirtualThreadPinned", this::enregistrer);
+    }
+
+    public void demarrer() {
+        debutNanos = System.nanoTime();
+        debutCpuNanos = tempsCpuProcessus();
+        flux.startAsync();
+    }
+
+    /**
+     * Arrête l'enregistrement et renvoie le rapport (une ligne par mesure).
+     */
+    public String arreter() {
+        long dureeNanos = System.nanoTime() - debutNanos;
+        long cpuNanos = tempsCpuProcessus() - debutCpuNanos;
+        int porteurs = compterPorteurs();
+        flux.close();
+
+        double utilisation = cpuNanos < 0 || dureeNanos == 0 ? -1 : 100.0 * cpuNanos / ((double) dureeNanos * parallelisme);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("threads porteurs : %d (parallélisme %d), utilisation ~%.0f%%%n",
+                porteurs, parallelisme, utilisation));
+        sb.append(String.format("épinglages : %d, durée totale %.1f ms%n",
+                epinglages.get(), dureeEpingleeNanos.get() / 1e6));
+        sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(NB_SITES_AFFICHES)
+                .forEach(e -> sb.append(String.format("  %6d x %s%n", e.getValue().sum(), e.getKey())));
+        resume = sb.toString();
+        return resume;
+    }
+
+    public long getNbEpinglages() {
+        return epinglages.get();
+    }
+
+    private void enregistrer(RecordedEvent evenement) {
+        epinglages.incrementAndGet();
+        dureeEpingleeNanos.addAndGet(evenement.getDuration().toNanos());
+        sites.computeIfAbsent(site(evenement), s -> new LongAdder()).increment();
+    }
+
+    /**
+     * Première méthode du projet dans la pile de l'épinglage (sinon la première tout court).
+     */
+    private static String site(RecordedEvent evenement) {
+        if (evenement.getStackTrace() == null || evenement.getStackTrace().getFrames().isEmpty()) {
+            return "?";
+        }
+        for (RecordedFrame frame : evenement.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("sma.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        RecordedFrame premiere = evenement.getStackTrace().getFrames().get(0);
+        return premiere.getMethod().getType().getName() + "." + premiere.getMethod().getName();
+    }
+
+    private static long tempsCpuProcessus() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Threads porteurs vivants de l'ordonnanceur des threads virtuels
+     * (ForkJoinPool-N-worker-M).
+     */
+    private static int compterPorteurs() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().matches("ForkJoinPool-\\d+-worker-\\d+"))
+                .collect(Collectors.toList()).size();
+    }
+
+    @Override
+    public String toString() {
+        return resume != null ? resume : "RapportVirtuels[en cours]";
+    }
+}
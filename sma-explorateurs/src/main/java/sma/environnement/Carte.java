@@ -1,96 +1,609 @@
 package sma.environnement;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import sma.agents.ContexteSimulation;
+import sma.messaging.BusZones;
+import sma.messaging.TableauNoir;
+import sma.navigation.ChampsDistances;
+import sma.navigation.PlanificateurHierarchique;
+import sma.objets.Animal;
+import sma.objets.ObjetPassif;
+import sma.objets.Obstacle;
 import sma.objets.Tresor;
 
+/**
+ * La carte du monde. Les données de chaque case sont rangées dans des tableaux
+ * primitifs plats indexés par un identifiant global de case :
+ * id = xGlobal * cote + yGlobal. Les objets Zone et Case ne sont que des vues
+ * sur ces tableaux (les Case sont créées à la demande puis réutilisées pour
+ * garder l'égalité par référence utilisée par les agents).
+ */
 public class Carte {
 
-    public static final int NB_ZONES_COTE = 3;
-    private final Zone[][] zones = new Zone[NB_ZONES_COTE][NB_ZONES_COTE];
+    public static final int NB_ZONES_COTE_DEFAUT = 3;
+    private static final int NB_VERROUS_CASES_MAX = 1024;
+
+    // Nature de la case (ce qu'il y a dessus)
+    public static final byte NATURE_VIDE = 0;
+    public static final byte NATURE_TRESOR = 1;
+    public static final byte NATURE_ANIMAL = 2;
+    public static final byte NATURE_OBSTACLE = 3;
+
+    public static final int AUCUN_OBJET = -1;
+
+    // Directions de la table de voisinage : haut, bas, gauche, droite (pas de diagonale)
+    public static final int NB_DIRECTIONS = 4;
+    public static final int HAUT = 0;
+    public static final int BAS = 1;
+    public static final int GAUCHE = 2;
+    public static final int DROITE = 3;
+    public static final int AUCUN_VOISIN = -1;
+
+    private final int nbZonesCote;
+    private final int tailleZone;
+    private final int cote;     // nombre de cases sur un côté de la carte
+    private final int nbCases;
+    private final Zone[] zones;
+
+    private final byte[] natures;
+    private final int[] indexObjets;
+    private final AtomicIntegerArray occupations;
+    // Verrous des listes d'agents des cases, par bandes. Pas de synchronized : un thread
+    // virtuel qui attend un moniteur bloque son thread porteur.
+    private final ReentrantLock[] verrousCases;
+    private ObjetPassif[] objets = new ObjetPassif[16];
+    private int nbObjets = 0;
+
+    private final AtomicReferenceArray<Case> vues;
+
+    // Table de voisinage : voisins[id * 4 + direction] = id de la case voisine accessible, -1 sinon.
+    // Construite une fois, mise à jour localement quand l'accessibilité d'une case change.
+    private final int[] voisins;
+    private volatile int versionAccessibilite = 0;
+    private final int[] versionsAccessibiliteZones;
+
+    // Compteurs de trésors non collectés, tenus à jour à la pose et à la collecte
+    private final AtomicInteger tresorsRestants = new AtomicInteger();
+    private final AtomicIntegerArray tresorsRestantsParZone;
+    // Trésors non collectés par id global, et version changée à chaque pose, retrait ou collecte
+    private final EnsembleCases tresorsNonCollectes;
+    private final AtomicInteger versionTresors = new AtomicInteger();
+    private volatile boolean verificationCoherence = false;
+
+    private final ChampsDistances champsDistances;
+    private final IndexSpatial indexSpatial;
+    private final BusZones bus;
+    private final TableauNoir tableauNoir;
+    private volatile PlanificateurHierarchique planificateurHierarchique;
+    private final ReentrantLock verrouObjets = new ReentrantLock(); // pose/retrait d'objets et construction paresseuse
+    private final ContexteSimulation contexte;
 
     public Carte() {
+        this(NB_ZONES_COTE_DEFAUT, Zone.TAILLE_DEFAUT);
+    }
+
+    /**
+     * Carte isolée, avec son propre contexte (outils, tests).
+     */
+    public Carte(int nbZonesCote, int tailleZone) {
+        this(nbZonesCote, tailleZone, new ContexteSimulation());
+    }
+
+    public Carte(int nbZonesCote, int tailleZone, ContexteSimulation contexte) {
+        if (nbZonesCote <= 0 || tailleZone <= 0) {
+            throw new IllegalArgumentException("Dimensions de carte invalides : " + nbZonesCote + " zones de " + tailleZone);
+        }
+        long total = (long) nbZonesCote * tailleZone * nbZonesCote * tailleZone;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Carte trop grande : " + total + " cases");
+        }
+        this.contexte = contexte;
+        this.nbZonesCote = nbZonesCote;
+        this.tailleZone = tailleZone;
+        this.cote = nbZonesCote * tailleZone;
+        this.nbCases = (int) total;
+        this.zones = new Zone[nbZonesCote * nbZonesCote];
+        this.natures = new byte[nbCases];
+        this.indexObjets = new int[nbCases];
+        this.occupations = new AtomicIntegerArray(nbCases);
+        this.verrousCases = new ReentrantLock[Integer.highestOneBit(Math.max(1, Math.min(nbCases, NB_VERROUS_CASES_MAX)) * 2 - 1)];
+        for (int i = 0; i < verrousCases.length; i++) {
+            verrousCases[i] = new ReentrantLock();
+        }
+        this.vues = new AtomicReferenceArray<>(nbCases);
+        this.voisins = new int[nbCases * NB_DIRECTIONS];
+        this.versionsAccessibiliteZones = new int[zones.length];
+        this.tresorsRestantsParZone = new AtomicIntegerArray(zones.length);
+        this.tresorsNonCollectes = new EnsembleCases(nbCases);
+        Arrays.fill(indexObjets, AUCUN_OBJET);
         initialiserZones();
+        initialiserVoisins();
+        this.champsDistances = new ChampsDistances(this);
+        this.indexSpatial = new IndexSpatial(this);
+        this.bus = new BusZones(zones.length);
+        this.tableauNoir = new TableauNoir(nbCases, zones.length);
     }
 
     private void initialiserZones() {
         int compteur = 0;
-        for (int x = 0; x < NB_ZONES_COTE; x++) {
-            for (int y = 0; y < NB_ZONES_COTE; y++) {
-                zones[x][y] = new Zone(compteur, x, y);
+        for (int x = 0; x < nbZonesCote; x++) {
+            for (int y = 0; y < nbZonesCote; y++) {
+                zones[compteur] = new Zone(this, compteur, x, y);
                 compteur++;
             }
         }
     }
 
+    private void initialiserVoisins() {
+        for (int id = 0; id < nbCases; id++) {
+            for (int d = 0; d < NB_DIRECTIONS; d++) {
+                int voisin = voisinGeometrique(id, d);
+                voisins[id * NB_DIRECTIONS + d] = voisin != AUCUN_VOISIN && estAccessible(voisin) ? voisin : AUCUN_VOISIN;
+            }
+        }
+    }
+
+    // ========== DIMENSIONS ==========
+    public int getNbZonesCote() {
+        return nbZonesCote;
+    }
+
+    public int getNbZones() {
+        return zones.length;
+    }
+
+    public int getTailleZone() {
+        return tailleZone;
+    }
+
+    public int getCote() {
+        return cote;
+    }
+
+    public int getNbCases() {
+        return nbCases;
+    }
+
+    /**
+     * Cache des champs de distances vers les trésors, partagé par les agents
+     * de cette carte.
+     */
+    public ChampsDistances getChampsDistances() {
+        return champsDistances;
+    }
+
+    /**
+     * Id d'un objet posé sur la carte, propre à la simulation.
+     */
+    public int prochainIdObjet() {
+        return contexte.prochainIdObjet();
+    }
+
+    /**
+     * Planificateur hiérarchique (zones = clusters), construit à la première
+     * demande car son graphe abstrait coûte un parcours de toutes les zones.
+     */
+    public PlanificateurHierarchique getPlanificateurHierarchique() {
+        PlanificateurHierarchique planificateur = planificateurHierarchique;
+        if (planificateur != null) {
+            return planificateur;
+        }
+        verrouObjets.lock();
+        try {
+            if (planificateurHierarchique == null) {
+                planificateurHierarchique = new PlanificateurHierarchique(this);
+            }
+            return planificateurHierarchique;
+        } finally {
+            verrouObjets.unlock();
+        }
+    }
+
+    /**
+     * Index des agents par zone (type, vivant/mort).
+     */
+    public IndexSpatial getIndexSpatial() {
+        return indexSpatial;
+    }
+
+    /**
+     * Bus de messages par zone (abonnés : agents cognitifs vivants).
+     */
+    public BusZones getBus() {
+        return bus;
+    }
+
+    /**
+     * Tableau noir de l'équipe au QG (mode de diffusion TABLEAU_NOIR).
+     */
+    public TableauNoir getTableauNoir() {
+        return tableauNoir;
+    }
+
+    // ========== ZONES ==========
     public Zone getZone(int zoneX, int zoneY) {
         if (estZoneDansLimites(zoneX, zoneY)) {
-            return zones[zoneX][zoneY];
+            return zones[zoneX * nbZonesCote + zoneY];
         }
         return null;
     }
 
     public Zone getZoneById(int id) {
-        int x = id / NB_ZONES_COTE;
-        int y = id % NB_ZONES_COTE;
-        return getZone(x, y);
+        if (id < 0 || id >= zones.length) {
+            return null;
+        }
+        return zones[id];
+    }
+
+    public boolean estZoneDansLimites(int zoneX, int zoneY) {
+        return zoneX >= 0 && zoneX < nbZonesCote && zoneY >= 0 && zoneY < nbZonesCote;
+    }
+
+    // ========== IDENTIFIANTS DE CASE ==========
+    public int idCase(int xGlobal, int yGlobal) {
+        return xGlobal * cote + yGlobal;
+    }
+
+    public int xGlobal(int id) {
+        return id / cote;
+    }
+
+    public int yGlobal(int id) {
+        return id % cote;
+    }
+
+    public boolean estDansLimites(int xGlobal, int yGlobal) {
+        return xGlobal >= 0 && xGlobal < cote && yGlobal >= 0 && yGlobal < cote;
+    }
+
+    public int idZoneDe(int id) {
+        return (xGlobal(id) / tailleZone) * nbZonesCote + yGlobal(id) / tailleZone;
+    }
+
+    // ========== VUES Case ==========
+    /**
+     * Renvoie la vue Case de la case id, créée à la première demande. Deux
+     * appels pour le même id renvoient toujours la même instance.
+     */
+    public Case getCase(int id) {
+        Case c = vues.get(id);
+        if (c == null) {
+            int gx = xGlobal(id);
+            int gy = yGlobal(id);
+            Zone zone = zones[(gx / tailleZone) * nbZonesCote + gy / tailleZone];
+            Case nouvelle = new Case(this, zone, id, gx % tailleZone, gy % tailleZone);
+            if (vues.compareAndSet(id, null, nouvelle)) {
+                c = nouvelle;
+            } else {
+                c = vues.get(id);
+            }
+        }
+        return c;
+    }
+
+    public Case getCaseGlobale(int xGlobal, int yGlobal) {
+        if (!estDansLimites(xGlobal, yGlobal)) {
+            return null;
+        }
+        return getCase(idCase(xGlobal, yGlobal));
     }
 
     public Case getCaseQG() {
-        return zones[0][0].getCase(0, 0);
+        return getCase(0);
     }
 
-    public boolean estZoneDansLimites(int zoneX, int zoneY) {
-        return zoneX >= 0 && zoneX < NB_ZONES_COTE && zoneY >= 0 && zoneY < NB_ZONES_COTE;
+    // ========== CONTENU DES CASES ==========
+    public byte getNature(int id) {
+        return natures[id];
     }
 
+    public ObjetPassif getObjet(int id) {
+        int index = indexObjets[id];
+        return index == AUCUN_OBJET ? null : objets[index];
+    }
+
+    public int getIndexObjet(int id) {
+        return indexObjets[id];
+    }
+
+    public boolean estAccessible(int id) {
+        return natures[id] != NATURE_OBSTACLE;
+    }
+
+    // ========== VOISINAGE ==========
     /**
-     * Vérifie si tous les trésors de la carte sont collectés.
+     * Case voisine accessible dans la direction donnée (HAUT, BAS, GAUCHE,
+     * DROITE), passage entre zones compris, ou AUCUN_VOISIN. Lecture directe
+     * dans la table : aucune allocation, à utiliser dans une boucle
+     * for (d = 0; d < NB_DIRECTIONS; d++).
      */
-    public boolean tousTresorsCollectes() {
-        for (int zx = 0; zx < NB_ZONES_COTE; zx++) {
-            for (int zy = 0; zy < NB_ZONES_COTE; zy++) {
-                Zone zone = zones[zx][zy];
-                for (int x = 0; x < Zone.TAILLE; x++) {
-                    for (int y = 0; y < Zone.TAILLE; y++) {
-                        Case c = zone.getCase(x, y);
-                        if (c != null && c.getObjet() instanceof Tresor) {
-                            Tresor t = (Tresor) c.getObjet();
-                            if (!t.isCollecte()) {
-                                return false; // Au moins un trésor non collecté
-                            }
-                        }
-                    }
-                }
+    public int getVoisin(int id, int direction) {
+        return voisins[id * NB_DIRECTIONS + direction];
+    }
+
+    /**
+     * Case adjacente dans la direction donnée, accessible ou non, ou
+     * AUCUN_VOISIN au bord de la carte.
+     */
+    public int voisinGeometrique(int id, int direction) {
+        int x = id / cote;
+        int y = id % cote;
+        switch (direction) {
+            case HAUT:
+                return y > 0 ? id - 1 : AUCUN_VOISIN;
+            case BAS:
+                return y < cote - 1 ? id + 1 : AUCUN_VOISIN;
+            case GAUCHE:
+                return x > 0 ? id - cote : AUCUN_VOISIN;
+            case DROITE:
+                return x < cote - 1 ? id + cote : AUCUN_VOISIN;
+            default:
+                return AUCUN_VOISIN;
+        }
+    }
+
+    private static int directionOpposee(int direction) {
+        return direction ^ 1; // HAUT <-> BAS, GAUCHE <-> DROITE
+    }
+
+    /**
+     * Incrémentée à chaque changement d'accessibilité d'une case : permet aux
+     * caches de chemins de savoir s'ils sont encore valides.
+     */
+    public int getVersionAccessibilite() {
+        return versionAccessibilite;
+    }
+
+    /**
+     * Version d'accessibilité propre à une zone (obstacles posés ou retirés
+     * dans cette zone). Lire getVersionAccessibilite() avant pour voir les
+     * dernières valeurs.
+     */
+    public int getVersionAccessibilite(int idZone) {
+        return versionsAccessibiliteZones[idZone];
+    }
+
+    private void mettreAJourVoisinage(int id, boolean etaitAccessible) {
+        boolean accessible = estAccessible(id);
+        if (accessible == etaitAccessible) {
+            return;
+        }
+        for (int d = 0; d < NB_DIRECTIONS; d++) {
+            int voisin = voisinGeometrique(id, d);
+            if (voisin != AUCUN_VOISIN) {
+                voisins[voisin * NB_DIRECTIONS + directionOpposee(d)] = accessible ? id : AUCUN_VOISIN;
+            }
+        }
+        versionsAccessibiliteZones[idZoneDe(id)]++;
+        versionAccessibilite++; // écriture volatile après celle de la zone : publie les deux
+    }
+
+    /**
+     * Pose un objet sur une case (phase d'initialisation de la simulation).
+     */
+    public void placerObjet(int id, ObjetPassif objet) {
+        verrouObjets.lock();
+        try {
+            placerObjetVerrouille(id, objet);
+        } finally {
+            verrouObjets.unlock();
+        }
+    }
+
+    private void placerObjetVerrouille(int id, ObjetPassif objet) {
+        if (objet == null) {
+            retirerObjetVerrouille(id);
+            return;
+        }
+        if (indexObjets[id] != AUCUN_OBJET) {
+            retirerObjetVerrouille(id);
+        }
+        if (nbObjets == objets.length) {
+            objets = Arrays.copyOf(objets, objets.length * 2);
+        }
+        boolean etaitAccessible = estAccessible(id);
+        objets[nbObjets] = objet;
+        indexObjets[id] = nbObjets;
+        natures[id] = natureDe(objet);
+        nbObjets++;
+        mettreAJourVoisinage(id, etaitAccessible);
+        objet.poser(this, id);
+
+        Zone zone = zones[idZoneDe(id)];
+        if (objet instanceof Tresor && ((Tresor) objet).isCollecte()) {
+            return; // un trésor déjà collecté ne compte plus
+        }
+        zone.getRegistre().ajouter(natures[id], zone.indexLocal(id));
+        if (objet instanceof Tresor) {
+            tresorsRestants.incrementAndGet();
+            tresorsRestantsParZone.incrementAndGet(zone.getId());
+            tresorsNonCollectes.ajouter(id);
+            versionTresors.incrementAndGet();
+        }
+    }
+
+    public void retirerObjet(int id) {
+        verrouObjets.lock();
+        try {
+            retirerObjetVerrouille(id);
+        } finally {
+            verrouObjets.unlock();
+        }
+    }
+
+    private void retirerObjetVerrouille(int id) {
+        int index = indexObjets[id];
+        if (index != AUCUN_OBJET) {
+            ObjetPassif objet = objets[index];
+            if (objet instanceof Tresor && !((Tresor) objet).isCollecte()) {
+                tresorsRestants.decrementAndGet();
+                tresorsRestantsParZone.decrementAndGet(idZoneDe(id));
+                tresorsNonCollectes.retirer(id);
+                versionTresors.incrementAndGet();
             }
+            objet.poser(null, -1);
+            objets[index] = null;
+            Zone zone = zones[idZoneDe(id)];
+            zone.getRegistre().retirer(natures[id], zone.indexLocal(id));
+        }
+        boolean etaitAccessible = estAccessible(id);
+        indexObjets[id] = AUCUN_OBJET;
+        natures[id] = NATURE_VIDE;
+        mettreAJourVoisinage(id, etaitAccessible);
+    }
+
+    private static byte natureDe(ObjetPassif objet) {
+        if (objet instanceof Tresor) {
+            return NATURE_TRESOR;
+        } else if (objet instanceof Animal) {
+            return NATURE_ANIMAL;
+        } else if (objet instanceof Obstacle) {
+            return NATURE_OBSTACLE;
         }
-        return true; // Tous collectés
+        return NATURE_VIDE;
+    }
+
+    // ========== OCCUPATION ==========
+    public int getOccupation(int id) {
+        return occupations.get(id);
+    }
+
+    /**
+     * Verrou protégeant la liste des agents de la case (partagé avec d'autres cases).
+     */
+    ReentrantLock verrouCase(int id) {
+        return verrousCases[id & (verrousCases.length - 1)];
+    }
+
+    void incrementerOccupation(int id) {
+        occupations.incrementAndGet(id);
+    }
+
+    void decrementerOccupation(int id) {
+        occupations.decrementAndGet(id);
     }
 
+    // ========== TRÉSORS ==========
     /**
-     * Compte les trésors restants (non collectés).
+     * Appelé par un Tresor au moment où il passe à l'état collecté.
+     */
+    public void signalerTresorCollecte(int id) {
+        Zone zone = zones[idZoneDe(id)];
+        zone.getRegistre().retirer(NATURE_TRESOR, zone.indexLocal(id));
+        tresorsRestants.decrementAndGet();
+        tresorsRestantsParZone.decrementAndGet(zone.getId());
+        tresorsNonCollectes.retirer(id);
+        versionTresors.incrementAndGet(); // après le retrait : qui lit la nouvelle version voit l'ensemble à jour
+    }
+
+    /**
+     * Trésors non collectés, indexés par id global de case.
+     */
+    public EnsembleCases getTresorsNonCollectes() {
+        return tresorsNonCollectes;
+    }
+
+    /**
+     * Change à chaque pose, retrait ou collecte d'un trésor.
+     */
+    public int getVersionTresors() {
+        return versionTresors.get();
+    }
+
+    /**
+     * Vérifie si tous les trésors de la carte sont collectés. O(1).
+     */
+    public boolean tousTresorsCollectes() {
+        return compterTresorsRestants() == 0;
+    }
+
+    /**
+     * Compte les trésors restants (non collectés). O(1).
      */
     public int compterTresorsRestants() {
+        int restants = tresorsRestants.get();
+        if (verificationCoherence) {
+            verifierCompteur("carte", restants, scannerTresorsRestants(0, nbCases));
+        }
+        return restants;
+    }
+
+    /**
+     * Compte les trésors restants d'une zone. O(1).
+     */
+    public int compterTresorsRestants(int idZone) {
+        int restants = tresorsRestantsParZone.get(idZone);
+        if (verificationCoherence) {
+            verifierCompteur("zone " + idZone, restants, scannerTresorsRestants(zones[idZone]));
+        }
+        return restants;
+    }
+
+    /**
+     * Mode de vérification pour les tests : chaque lecture de compteur est
+     * comparée à un parcours complet des cases. À n'activer que lorsque la
+     * carte n'est pas modifiée en parallèle (tests, phases séquentielles).
+     */
+    public void setVerificationCoherence(boolean active) {
+        this.verificationCoherence = active;
+    }
+
+    public boolean isVerificationCoherence() {
+        return verificationCoherence;
+    }
+
+    /**
+     * Recompte tous les trésors par parcours des cases et lève une
+     * IllegalStateException si un compteur ne correspond pas.
+     */
+    public void verifierCoherenceTresors() {
+        verifierCompteur("carte", tresorsRestants.get(), scannerTresorsRestants(0, nbCases));
+        for (Zone zone : zones) {
+            int scan = scannerTresorsRestants(zone);
+            verifierCompteur("zone " + zone.getId(), tresorsRestantsParZone.get(zone.getId()), scan);
+            verifierCompteur("registre zone " + zone.getId(), zone.getRegistre().getTresors().taille(), scan);
+        }
+    }
+
+    private void verifierCompteur(String portee, int compteur, int scan) {
+        if (compteur != scan) {
+            throw new IllegalStateException("Compteur de trésors incohérent (" + portee + ") : compteur=" + compteur + ", scan=" + scan);
+        }
+    }
+
+    private int scannerTresorsRestants(int debut, int fin) {
         int count = 0;
-        for (int zx = 0; zx < NB_ZONES_COTE; zx++) {
-            for (int zy = 0; zy < NB_ZONES_COTE; zy++) {
-                Zone zone = zones[zx][zy];
-                for (int x = 0; x < Zone.TAILLE; x++) {
-                    for (int y = 0; y < Zone.TAILLE; y++) {
-                        Case c = zone.getCase(x, y);
-                        if (c != null && c.getObjet() instanceof Tresor) {
-                            Tresor t = (Tresor) c.getObjet();
-                            if (!t.isCollecte()) {
-                                count++;
-                            }
-                        }
-                    }
+        for (int id = debut; id < fin; id++) {
+            if (estTresorRestant(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int scannerTresorsRestants(Zone zone) {
+        int count = 0;
+        for (int x = 0; x < tailleZone; x++) {
+            for (int y = 0; y < tailleZone; y++) {
+                if (estTresorRestant(zone.idCase(x, y))) {
+                    count++;
                 }
             }
         }
         return count;
     }
 
+    private boolean estTresorRestant(int id) {
+        return natures[id] == NATURE_TRESOR && !((Tresor) getObjet(id)).isCollecte();
+    }
+
     @Override
     public String toString() {
-        return String.format("Carte[9 zones, 900 cases]");
+        return String.format("Carte[%d zones, %d cases]", zones.length, nbCases);
     }
 }
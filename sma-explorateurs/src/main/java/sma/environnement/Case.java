@@ -1,89 +1,176 @@
 package sma.environnement;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import sma.agents.Agent;
 import sma.objets.ObjetPassif;
-import sma.objets.Obstacle;
 
+/**
+ * Vue sur une case de la carte : la nature, l'objet et le nombre d'occupants
+ * sont stockés dans les tableaux de la Carte, la vue ne garde que ses
+ * coordonnées et la liste chaînée des agents présents (voir Maillon).
+ */
 public class Case {
-    
+
+    private final Carte carte;
+    private final Zone zone;
+    private final int id;
     private final int x;
     private final int y;
-    private Zone zone;
-    private ObjetPassif objet;
-    private final List<Agent> agents = new ArrayList<>();  //référence ne peut jamais être modifiée masi le contenu si via les méthodes ...
+    private volatile Maillon tete = null; // agents présents, le dernier arrivé en tête
 
-    public Case(int x, int y) {
+    Case(Carte carte, Zone zone, int id, int x, int y) {
+        this.carte = carte;
+        this.zone = zone;
+        this.id = id;
         this.x = x;
         this.y = y;
-        this.objet = null;
     }
 
-    public int getX() { 
-        return x; 
+    public int getId() {
+        return id;
+    }
+
+    public int getX() {
+        return x;
+    }
+    public int getY() {
+        return y;
+    }
+
+    public int getXGlobal() {
+        return zone.getZoneX() * zone.getTaille() + x;
     }
-    public int getY() { 
-        return y; 
+
+    public int getYGlobal() {
+        return zone.getZoneY() * zone.getTaille() + y;
     }
-    public Zone getZone() { 
+
+    public Zone getZone() {
         return zone;
     }
-    public ObjetPassif getObjet() { 
-        return objet; 
+    public ObjetPassif getObjet() {
+        return carte.getObjet(id);
+    }
+    public boolean hasObjet() {
+        return carte.getIndexObjet(id) != Carte.AUCUN_OBJET;
+    }
+
+    /**
+     * Agents présents, parcourus sans copie ni verrou. Le parcours est
+     * faiblement cohérent : il peut montrer ou non un agent qui arrive ou
+     * part pendant qu'il a lieu, mais ne saute jamais les autres.
+     */
+    public Iterable<Agent> getAgents() {
+        return () -> new Iterator<Agent>() {
+            private Maillon prochain = premierPresent(tete);
+
+            @Override
+            public boolean hasNext() {
+                return prochain != null;
+            }
+
+            @Override
+            public Agent next() {
+                if (prochain == null) {
+                    throw new NoSuchElementException();
+                }
+                Agent agent = prochain.agent;
+                prochain = premierPresent(prochain.suivant);
+                return agent;
+            }
+        };
     }
-    public boolean hasObjet() { 
-        return objet != null; 
+
+    private static Maillon premierPresent(Maillon m) {
+        while (m != null && m.retire) {
+            m = m.suivant;
+        }
+        return m;
     }
 
-    public List<Agent> getAgents() { 
-        return agents; 
+    public boolean contientAgent(Agent agent) {
+        Maillon m = agent.getMaillonCase();
+        return m != null && m.caseOccupee == this && !m.retire;
     }
 
     public boolean hasAgents() {
-        return !agents.isEmpty();
+        return carte.getOccupation(id) > 0;
     }
 
-    public int getNbAgents() { 
-        return agents.size(); 
+    public int getNbAgents() {
+        return carte.getOccupation(id);
     }
 
-    public synchronized void ajouterAgent(Agent agent) {
-        if (!agents.contains(agent)) {
-            agents.add(agent);
-            
-            if (objet != null) {
-                objet.interagir(agent);
+    public void ajouterAgent(Agent agent) {
+        ReentrantLock verrou = carte.verrouCase(id);
+        boolean arrive = false;
+        verrou.lock();
+        try {
+            if (!contientAgent(agent)) {
+                Maillon m = new Maillon(agent, this);
+                Maillon ancienneTete = tete;
+                m.suivant = ancienneTete;
+                if (ancienneTete != null) {
+                    ancienneTete.precedent = m;
+                }
+                tete = m; // écriture volatile : publie le maillon complet
+                agent.setMaillonCase(m);
+                carte.incrementerOccupation(id);
+                arrive = true;
             }
+        } finally {
+            verrou.unlock();
         }
-    }
 
-    public synchronized void retirerAgent(Agent agent) {
-        agents.remove(agent);
+        // hors du verrou de la case : deux agents arrivés en même temps se disputent
+        // le trésor par la réclamation atomique, pas par l'ordre d'entrée dans le verrou
+        ObjetPassif objet = arrive ? getObjet() : null;
+        if (objet != null) {
+            objet.interagir(agent);
+        }
     }
 
-    public void setZone(Zone zone) { 
-        this.zone = zone; 
+    public void retirerAgent(Agent agent) {
+        ReentrantLock verrou = carte.verrouCase(id);
+        verrou.lock();
+        try {
+            Maillon m = agent.getMaillonCase();
+            if (m != null && m.caseOccupee == this && !m.retire) {
+                m.retire = true;
+                if (m.precedent != null) {
+                    m.precedent.suivant = m.suivant;
+                } else {
+                    tete = m.suivant;
+                }
+                if (m.suivant != null) {
+                    m.suivant.precedent = m.precedent;
+                }
+                // m.suivant n'est pas effacé : un parcours arrêté sur m continue sur cette case
+                agent.setMaillonCase(null);
+                carte.decrementerOccupation(id);
+            }
+        } finally {
+            verrou.unlock();
+        }
     }
-    
-    public void setObjet(ObjetPassif objet) { 
-        this.objet = objet; 
+
+    public void setObjet(ObjetPassif objet) {
+        carte.placerObjet(id, objet);
     }
-    
-    public void retirerObjet() { 
-        this.objet = null; 
+
+    public void retirerObjet() {
+        carte.retirerObjet(id);
     }
 
     public boolean isAccessible() {
-        if (objet == null) {
-            return true;
-        }
-        return !(objet instanceof Obstacle);
+        return carte.estAccessible(id);
     }
 
     @Override
     public String toString() {
         return String.format("Case[Zone%d, (%d,%d)]", zone != null ? zone.getId() : -1, x, y);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package sma.environnement;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ensemble de cases d'une zone sous forme de bitset indexé par l'index local
+ * de la case (x * taille + y). Ajouts et retraits sans verrou, parcours en
+ * O(nombre de mots + nombre de cases présentes).
+ */
+public class EnsembleCases {
+
+    private final AtomicLongArray mots;
+    private final int capacite;
+
+    public EnsembleCases(int capacite) {
+        this.capacite = capacite;
+        this.mots = new AtomicLongArray((capacite + 63) >>> 6);
+    }
+
+    /**
+     * @return true si la case n'était pas déjà présente
+     */
+    public boolean ajouter(int index) {
+        long masque = 1L << index;
+        int i = index >>> 6;
+        long ancien;
+        do {
+            ancien = mots.get(i);
+            if ((ancien & masque) != 0) {
+                return false;
+            }
+        } while (!mots.compareAndSet(i, ancien, ancien | masque));
+        return true;
+    }
+
+    /**
+     * @return true si la case était présente
+     */
+    public boolean retirer(int index) {
+        long masque = 1L << index;
+        int i = index >>> 6;
+        long ancien;
+        do {
+            ancien = mots.get(i);
+            if ((ancien & masque) == 0) {
+                return false;
+            }
+        } while (!mots.compareAndSet(i, ancien, ancien & ~masque));
+        return true;
+    }
+
+    public boolean contient(int index) {
+        return (mots.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Premier index présent à partir de "depuis" (inclus), -1 s'il n'y en a
+     * plus. Parcours : for (i = e.suivant(0); i >= 0; i = e.suivant(i + 1)).
+     */
+    public int suivant(int depuis) {
+        if (depuis >= capacite) {
+            return -1;
+        }
+        int i = depuis >>> 6;
+        long mot = mots.get(i) & (-1L << depuis);
+        while (true) {
+            if (mot != 0) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(mot);
+                return index < capacite ? index : -1;
+            }
+            if (++i == mots.length()) {
+                return -1;
+            }
+            mot = mots.get(i);
+        }
+    }
+
+    public int taille() {
+        int n = 0;
+        for (int i = 0; i < mots.length(); i++) {
+            n += Long.bitCount(mots.get(i));
+        }
+        return n;
+    }
+
+    /**
+     * Garde dans bits (même indexation, un bit par case) les seules cases
+     * présentes dans l'ensemble, mot par mot.
+     */
+    public void intersecter(long[] bits) {
+        int nb = Math.min(bits.length, mots.length());
+        for (int i = 0; i < nb; i++) {
+            if (bits[i] != 0) {
+                bits[i] &= mots.get(i);
+            }
+        }
+        for (int i = nb; i < bits.length; i++) {
+            bits[i] = 0;
+        }
+    }
+
+    long mot(int i) {
+        return mots.get(i);
+    }
+
+    int nbMots() {
+        return mots.length();
+    }
+
+    public int getCapacite() {
+        return capacite;
+    }
+}
@@ -0,0 +1,176 @@
+package sma.environnement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import sma.agents.Agent;
+import sma.agents.TypologieAgent;
+
+/**
+ * Index spatial des agents : pour chaque zone, les agents vivants rangés par
+ * type et les agents morts. Tenu à jour par Agent (déplacements entre zones,
+ * mort, retour au QG), il répond aux requêtes de proximité sans parcourir
+ * les cases.
+ */
+public class IndexSpatial {
+
+    private static final int NB_TYPES = TypologieAgent.values().length;
+
+    private final Carte carte;
+    private final List<Set<Agent>> vivants;   // [zone * NB_TYPES + type]
+    private final List<Set<Agent>> morts;     // [zone]
+
+    public IndexSpatial(Carte carte) {
+        this.carte = carte;
+        this.vivants = ensembles(carte.getNbZones() * NB_TYPES);
+        this.morts = ensembles(carte.getNbZones());
+    }
+
+    private static List<Set<Agent>> ensembles(int nb) {
+        List<Set<Agent>> liste = new ArrayList<>(nb);
+        for (int i = 0; i < nb; i++) {
+            liste.add(ConcurrentHashMap.newKeySet());
+        }
+        return liste;
+    }
+
+    // ========== MISE À JOUR (appelée par Agent) ==========
+    public void ajouter(Agent agent, int idZone) {
+        ensemble(agent, idZone).add(agent);
+    }
+
+    public void retirer(Agent agent, int idZone) {
+        ensemble(agent, idZone).remove(agent);
+    }
+
+    public void deplacer(Agent agent, int ancienneZone, int nouvelleZone) {
+        if (ancienneZone == nouvelleZone) {
+            return;
+        }
+        if (ancienneZone >= 0) {
+            retirer(agent, ancienneZone);
+        }
+        if (nouvelleZone >= 0) {
+            ajouter(agent, nouvelleZone);
+        }
+    }
+
+    /**
+     * L'agent vient de mourir dans la zone : il passe de l'ensemble des
+     * vivants de son type à celui des morts.
+     */
+    public void signalerMort(Agent agent, int idZone) {
+        vivants.get(idZone * NB_TYPES + agent.getType().ordinal()).remove(agent);
+        morts.get(idZone).add(agent);
+    }
+
+    /**
+     * L'agent mort dans ancienneZone revit dans nouvelleZone (secours, QG).
+     */
+    public void signalerVie(Agent agent, int ancienneZone, int nouvelleZone) {
+        if (ancienneZone >= 0) {
+            morts.get(ancienneZone).remove(agent);
+        }
+        vivants.get(nouvelleZone * NB_TYPES + agent.getType().ordinal()).add(agent);
+    }
+
+    private Set<Agent> ensemble(Agent agent, int idZone) {
+        return agent.isAlive() ? vivants.get(idZone * NB_TYPES + agent.getType().ordinal()) : morts.get(idZone);
+    }
+
+    // ========== REQUÊTES ==========
+    /**
+     * Agents vivants d'un type dans une zone (vue en lecture, cohérente à
+     * faible coût : peut refléter un déplacement en cours).
+     */
+    public Collection<Agent> getAgents(int idZone, TypologieAgent type) {
+        return Collections.unmodifiableSet(vivants.get(idZone * NB_TYPES + type.ordinal()));
+    }
+
+    public Collection<Agent> getAgentsMorts(int idZone) {
+        return Collections.unmodifiableSet(morts.get(idZone));
+    }
+
+    /**
+     * Agent mort le plus proche de la case dans la même zone, ou null.
+     */
+    public Agent getMortLePlusProche(Case depuis) {
+        Agent plusProche = null;
+        int minDist = Integer.MAX_VALUE;
+        for (Agent agent : morts.get(depuis.getZone().getId())) {
+            Case c = agent.getCaseActuelle();
+            if (c == null) {
+                continue;
+            }
+            int dist = distance(depuis, c);
+            if (dist < minDist) {
+                minDist = dist;
+                plusProche = agent;
+            }
+        }
+        return plusProche;
+    }
+
+    /**
+     * Les k agents vivants de type donné les plus proches de la case (distance
+     * de Manhattan), du plus proche au plus lointain. Les zones sont visitées
+     * par anneaux autour de la zone de départ et la recherche s'arrête dès que
+     * l'anneau suivant ne peut plus rien apporter.
+     */
+    public List<Agent> getKPlusProches(Case depuis, TypologieAgent type, int k, Agent exclu) {
+        List<Agent> resultat = new ArrayList<>(k);
+        List<Integer> distances = new ArrayList<>(k);
+        if (k <= 0) {
+            return resultat;
+        }
+
+        Zone zone = depuis.getZone();
+        int taille = carte.getTailleZone();
+        int nbZonesCote = carte.getNbZonesCote();
+        for (int anneau = 0; anneau < nbZonesCote; anneau++) {
+            // toute case d'un anneau >= 1 est à au moins (anneau - 1) * taille + 1 cases
+            if (resultat.size() == k && anneau > 0 && distances.get(k - 1) <= (anneau - 1) * taille) {
+                break;
+            }
+            for (int zx = zone.getZoneX() - anneau; zx <= zone.getZoneX() + anneau; zx++) {
+                for (int zy = zone.getZoneY() - anneau; zy <= zone.getZoneY() + anneau; zy++) {
+                    boolean surAnneau = Math.abs(zx - zone.getZoneX()) == anneau || Math.abs(zy - zone.getZoneY()) == anneau;
+                    if (!surAnneau || !carte.estZoneDansLimites(zx, zy)) {
+                        continue;
+                    }
+                    for (Agent agent : vivants.get(carte.getZone(zx, zy).getId() * NB_TYPES + type.ordinal())) {
+                        Case c = agent.getCaseActuelle();
+                        if (agent != exclu && c != null) {
+                            insererTrie(resultat, distances, agent, distance(depuis, c), k);
+                        }
+                    }
+                }
+            }
+        }
+        return resultat;
+    }
+
+    private static void insererTrie(List<Agent> agents, List<Integer> distances, Agent agent, int dist, int k) {
+        int i = distances.size();
+        while (i > 0 && distances.get(i - 1) > dist) {
+            i--;
+        }
+        if (i >= k) {
+            return;
+        }
+        agents.add(i, agent);
+        distances.add(i, dist);
+        if (agents.size() > k) {
+            agents.remove(k);
+            distances.remove(k);
+        }
+    }
+
+    private static int distance(Case a, Case b) {
+        return Math.abs(a.getXGlobal() - b.getXGlobal()) + Math.abs(a.getYGlobal() - b.getYGlobal());
+    }
+}
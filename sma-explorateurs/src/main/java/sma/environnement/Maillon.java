@@ -0,0 +1,29 @@
+package sma.environnement;
+
+import sma.agents.Agent;
+
+/**
+ * Maillon de la liste des agents d'une case. Un nouveau maillon est créé à
+ * chaque arrivée sur une case et l'agent garde une référence vers le sien,
+ * ce qui rend l'ajout et le retrait en O(1).
+ *
+ * Un maillon retiré garde son suivant : un parcours qui s'y trouve continue
+ * sur la même case (parcours faiblement cohérent, sans copie ni verrou).
+ */
+public final class Maillon {
+
+    final Agent agent;
+    final Case caseOccupee;
+    volatile Maillon suivant;
+    Maillon precedent;          // protégé par le verrou de la case
+    volatile boolean retire;
+
+    Maillon(Agent agent, Case caseOccupee) {
+        this.agent = agent;
+        this.caseOccupee = caseOccupee;
+    }
+
+    public Case getCase() {
+        return caseOccupee;
+    }
+}
@@ -0,0 +1,90 @@
+package sma.environnement;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registre des objets d'une zone : trésors non collectés, animaux et
+ * obstacles, chacun sous forme d'EnsembleCases (index locaux à la zone).
+ * Tenu à jour par la Carte à la pose, au retrait et à la collecte des
+ * trésors, il évite de parcourir toutes les cases pour trouver les objets.
+ */
+public class RegistreObjets {
+
+    private final EnsembleCases tresors;
+    private final EnsembleCases animaux;
+    private final EnsembleCases obstacles;
+    private final AtomicInteger version = new AtomicInteger();   // change à chaque modification du registre
+
+    public RegistreObjets(int nbCases) {
+        this.tresors = new EnsembleCases(nbCases);
+        this.animaux = new EnsembleCases(nbCases);
+        this.obstacles = new EnsembleCases(nbCases);
+    }
+
+    public EnsembleCases getTresors() {
+        return tresors;
+    }
+
+    public EnsembleCases getAnimaux() {
+        return animaux;
+    }
+
+    public EnsembleCases getObstacles() {
+        return obstacles;
+    }
+
+    public int getVersion() {
+        return version.get();
+    }
+
+    void ajouter(byte nature, int indexLocal) {
+        EnsembleCases ensemble = ensemble(nature);
+        if (ensemble != null && ensemble.ajouter(indexLocal)) {
+            version.incrementAndGet();
+        }
+    }
+
+    void retirer(byte nature, int indexLocal) {
+        EnsembleCases ensemble = ensemble(nature);
+        if (ensemble != null && ensemble.retirer(indexLocal)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Premier index local sans aucun objet à partir de "depuis", -1 si la
+     * zone est pleine. Travaille mot par mot sur l'union des trois ensembles.
+     */
+    public int premiereCaseLibre(int depuis) {
+        int capacite = tresors.getCapacite();
+        for (int i = depuis >>> 6; i < tresors.nbMots(); i++) {
+            long libres = ~(tresors.mot(i) | animaux.mot(i) | obstacles.mot(i));
+            if (i == depuis >>> 6) {
+                libres &= -1L << depuis;
+            }
+            if (libres != 0) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(libres);
+                return index < capacite ? index : -1;
+            }
+        }
+        return -1;
+    }
+
+    private EnsembleCases ensemble(byte nature) {
+        switch (nature) {
+            case Carte.NATURE_TRESOR:
+                return tresors;
+            case Carte.NATURE_ANIMAL:
+                return animaux;
+            case Carte.NATURE_OBSTACLE:
+                return obstacles;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegistreObjets[trésors=%d, animaux=%d, obstacles=%d]", tresors.taille(), animaux.taille(), obstacles.taille());
+    }
+}
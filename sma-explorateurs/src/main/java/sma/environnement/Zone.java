@@ -1,30 +1,26 @@
 package sma.environnement;
 
 /**
- * Une Zone = une région de la carte, composée de 100 cases (10x10). La carte
- * contient 9 zones (3x3).
+ * Une Zone = une région carrée de la carte (10x10 cases par défaut). Ce n'est
+ * qu'une vue : les cases sont stockées dans la Carte. La zone garde seulement
+ * le registre de ses objets.
  */
 public class Zone {
 
-    public static final int TAILLE = 10;
+    public static final int TAILLE_DEFAUT = 10;
 
+    private final Carte carte;
     private final int id;
     private final int zoneX;
     private final int zoneY;
-    private final Case[][] cases;
+    private final RegistreObjets registre;
 
-    public Zone(int id, int zoneX, int zoneY) {
+    Zone(Carte carte, int id, int zoneX, int zoneY) {
+        this.carte = carte;
         this.id = id;
         this.zoneX = zoneX;
         this.zoneY = zoneY;
-        this.cases = new Case[TAILLE][TAILLE];
-
-        for (int x = 0; x < TAILLE; x++) {
-            for (int y = 0; y < TAILLE; y++) {
-                cases[x][y] = new Case(x, y);
-                cases[x][y].setZone(this); //lier chaque case à la zone parente ( 0,0) mais zone 0,0
-            }
-        }
+        this.registre = new RegistreObjets(carte.getTailleZone() * carte.getTailleZone());
     }
 
     // ========== GETTERS ==========
@@ -40,15 +36,55 @@ public class Zone {
         return zoneY;
     }
 
+    public int getTaille() {
+        return carte.getTailleZone();
+    }
+
+    public Carte getCarte() {
+        return carte;
+    }
+
+    /**
+     * Trésors non collectés, animaux et obstacles de la zone.
+     */
+    public RegistreObjets getRegistre() {
+        return registre;
+    }
+
     public Case getCase(int x, int y) {
         if (estDansLimites(x, y)) {
-            return cases[x][y];
+            return carte.getCase(idCase(x, y));
         }
         return null;
     }
 
+    /**
+     * Identifiant global de la case (x, y) locale à la zone.
+     */
+    public int idCase(int x, int y) {
+        int taille = carte.getTailleZone();
+        return carte.idCase(zoneX * taille + x, zoneY * taille + y);
+    }
+
+    /**
+     * Index local (x * taille + y) d'une case de la zone à partir de son id global.
+     */
+    public int indexLocal(int idCase) {
+        int taille = carte.getTailleZone();
+        return (carte.xGlobal(idCase) - zoneX * taille) * taille + carte.yGlobal(idCase) - zoneY * taille;
+    }
+
+    /**
+     * Id global de la case d'index local donné (inverse de indexLocal).
+     */
+    public int idCaseLocale(int indexLocal) {
+        int taille = carte.getTailleZone();
+        return idCase(indexLocal / taille, indexLocal % taille);
+    }
+
     public boolean estDansLimites(int x, int y) {
-        return x >= 0 && x < TAILLE && y >= 0 && y < TAILLE;
+        int taille = carte.getTailleZone();
+        return x >= 0 && x < taille && y >= 0 && y < taille;
     }
 
     @Override
@@ -0,0 +1,86 @@
+package sma.experience;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Résultats agrégés des runs d'un point de la grille. Le temps jusqu'à la
+ * collecte complète n'est mesuré que sur les runs terminés ; les autres ont
+ * épuisé leur budget de ticks et sont seulement comptés.
+ */
+public class AgregatPoint {
+
+    private final Map<String, String> parametres;
+    private long nbRuns = 0;
+    private long nbTermines = 0;
+    private long nbEchecs = 0;
+    private final StatistiquesFlux ticksCompletion = new StatistiquesFlux();
+    private final StatistiquesFlux dureeCompletionMs = new StatistiquesFlux();
+    private final StatistiquesFlux morts = new StatistiquesFlux();
+    private final StatistiquesFlux secours = new StatistiquesFlux();
+    private final StatistiquesFlux tresorsCollectes = new StatistiquesFlux();
+
+    public AgregatPoint(Map<String, String> parametres) {
+        this.parametres = parametres;
+    }
+
+    public synchronized void ajouter(Properties mesures) {
+        nbRuns++;
+        if (Boolean.parseBoolean(mesures.getProperty("termine"))) {
+            nbTermines++;
+            ticksCompletion.ajouter(Double.parseDouble(mesures.getProperty("ticks")));
+            dureeCompletionMs.ajouter(Double.parseDouble(mesures.getProperty("duree_ms")));
+        }
+        morts.ajouter(Double.parseDouble(mesures.getProperty("morts", "0")));
+        secours.ajouter(Double.parseDouble(mesures.getProperty("secours", "0")));
+        tresorsCollectes.ajouter(Double.parseDouble(mesures.getProperty("tresors_collectes", "0")));
+    }
+
+    public synchronized void ajouterEchec() {
+        nbEchecs++;
+    }
+
+    public Map<String, String> getParametres() {
+        return parametres;
+    }
+
+    public synchronized long getNbRuns() {
+        return nbRuns;
+    }
+
+    public synchronized long getNbTermines() {
+        return nbTermines;
+    }
+
+    public synchronized long getNbEchecs() {
+        return nbEchecs;
+    }
+
+    public StatistiquesFlux getTicksCompletion() {
+        return ticksCompletion;
+    }
+
+    public StatistiquesFlux getDureeCompletionMs() {
+        return dureeCompletionMs;
+    }
+
+    public StatistiquesFlux getMorts() {
+        return morts;
+    }
+
+    public StatistiquesFlux getSecours() {
+        return secours;
+    }
+
+    public StatistiquesFlux getTresorsCollectes() {
+        return tresorsCollectes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%s%n  runs=%d terminés=%d échecs=%d%n  ticks jusqu'à complétion : %s%n"
+                + "  durée (ms) : %s%n  morts : %s%n  secours : %s%n  trésors : %s",
+                parametres, nbRuns, nbTermines, nbEchecs, ticksCompletion, dureeCompletionMs, morts, secours, tresorsCollectes);
+    }
+}
@@ -0,0 +1,119 @@
+package sma.experience;
+
+import java.util.Arrays;
+
+/**
+ * Estimation d'un quantile en flux par l'algorithme P² (Jain et Chlamtac) :
+ * cinq marqueurs dont les hauteurs sont ajustées par interpolation
+ * parabolique à chaque observation, mémoire constante quel que soit le
+ * nombre d'observations.
+ */
+public class EstimateurQuantile {
+
+    private final double p;
+    private final double[] hauteurs = new double[5];
+    private final int[] positions = new int[5];
+    private final double[] positionsVoulues = new double[5];
+    private final double[] increments;
+    private long compte = 0;
+
+    /**
+     * @param p quantile visé, dans ]0, 1[ (0.5 pour la médiane)
+     */
+    public EstimateurQuantile(double p) {
+        if (p <= 0 || p >= 1) {
+            throw new IllegalArgumentException("Quantile invalide : " + p);
+        }
+        this.p = p;
+        this.increments = new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+    }
+
+    public double getP() {
+        return p;
+    }
+
+    public void ajouter(double x) {
+        if (compte < 5) {
+            hauteurs[(int) compte++] = x;
+            if (compte == 5) {
+                Arrays.sort(hauteurs);
+                for (int i = 0; i < 5; i++) {
+                    positions[i] = i;
+                }
+                positionsVoulues[0] = 0;
+                positionsVoulues[1] = 2 * p;
+                positionsVoulues[2] = 4 * p;
+                positionsVoulues[3] = 2 + 2 * p;
+                positionsVoulues[4] = 4;
+            }
+            return;
+        }
+
+        // cellule k telle que hauteurs[k] <= x < hauteurs[k + 1]
+        int k;
+        if (x < hauteurs[0]) {
+            hauteurs[0] = x;
+            k = 0;
+        } else if (x >= hauteurs[4]) {
+            hauteurs[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= hauteurs[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            positionsVoulues[i] += increments[i];
+        }
+
+        // ajuste les trois marqueurs intérieurs
+        for (int i = 1; i <= 3; i++) {
+            double ecart = positionsVoulues[i] - positions[i];
+            if ((ecart >= 1 && positions[i + 1] - positions[i] > 1)
+                    || (ecart <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int s = ecart >= 0 ? 1 : -1;
+                double candidat = parabolique(i, s);
+                if (hauteurs[i - 1] < candidat && candidat < hauteurs[i + 1]) {
+                    hauteurs[i] = candidat;
+                } else {
+                    hauteurs[i] = hauteurs[i] + s * (hauteurs[i + s] - hauteurs[i]) / (positions[i + s] - positions[i]);
+                }
+                positions[i] += s;
+            }
+        }
+        compte++;
+    }
+
+    private double parabolique(int i, int s) {
+        double n0 = positions[i - 1];
+        double n1 = positions[i];
+        double n2 = positions[i + 1];
+        return hauteurs[i] + s / (n2 - n0)
+                * ((n1 - n0 + s) * (hauteurs[i + 1] - hauteurs[i]) / (n2 - n1)
+                + (n2 - n1 - s) * (hauteurs[i] - hauteurs[i - 1]) / (n1 - n0));
+    }
+
+    /**
+     * Estimation courante ; exacte (rang le plus proche) tant qu'il y a moins
+     * de cinq observations, NaN s'il n'y en a aucune.
+     */
+    public double valeur() {
+        if (compte == 0) {
+            return Double.NaN;
+        }
+        if (compte < 5) {
+            double[] tri = Arrays.copyOf(hauteurs, (int) compte);
+            Arrays.sort(tri);
+            return tri[(int) Math.round(p * (compte - 1))];
+        }
+        return hauteurs[2];
+    }
+
+    public long getCompte() {
+        return compte;
+    }
+}
@@ -0,0 +1,63 @@
+package sma.experience;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grille de paramètres (produit cartésien des valeurs de chaque axe). Les
+ * points sont calculés à la demande à partir de leur indice, la grille
+ * n'est jamais dépliée en mémoire.
+ */
+public class GrilleParametres {
+
+    private final Map<String, List<String>> axes = new LinkedHashMap<>();
+
+    /**
+     * Ajoute (ou remplace) un axe ; un seul élément fixe le paramètre.
+     */
+    public GrilleParametres axe(String cle, String... valeurs) {
+        if (valeurs.length == 0) {
+            throw new IllegalArgumentException("Axe sans valeur : " + cle);
+        }
+        axes.put(cle, Collections.unmodifiableList(new ArrayList<>(Arrays.asList(valeurs))));
+        return this;
+    }
+
+    public Map<String, List<String>> getAxes() {
+        return Collections.unmodifiableMap(axes);
+    }
+
+    public long getNbPoints() {
+        long nb = 1;
+        for (List<String> valeurs : axes.values()) {
+            nb = Math.multiplyExact(nb, valeurs.size());
+        }
+        return nb;
+    }
+
+    /**
+     * Point d'indice donné (numération en base mixte, le dernier axe varie le
+     * plus vite).
+     */
+    public Map<String, String> point(long indice) {
+        if (indice < 0 || indice >= getNbPoints()) {
+            throw new IndexOutOfBoundsException("Point " + indice + " hors de la grille");
+        }
+        List<String> cles = new ArrayList<>(axes.keySet());
+        String[] choisies = new String[cles.size()];
+        for (int a = cles.size() - 1; a >= 0; a--) {
+            List<String> valeurs = axes.get(cles.get(a));
+            choisies[a] = valeurs.get((int) (indice % valeurs.size()));
+            indice /= valeurs.size();
+        }
+        Map<String, String> point = new LinkedHashMap<>();
+        for (int a = 0; a < cles.size(); a++) {
+            point.put(cles.get(a), choisies[a]);
+        }
+        return point;
+    }
+}
@@ -0,0 +1,45 @@
+package sma.experience;
+
+import java.util.Map;
+import java.util.Properties;
+
+import sma.simulation.LanceurSansInterface;
+import sma.simulation.SimulationConfig;
+
+/**
+ * Runs dans le processus courant : chaque Simulation a sa propre
+ * configuration et son propre contexte, plusieurs runs peuvent donc tourner
+ * en même temps sans redémarrer de JVM. Le moteur à ticks de chaque run est
+ * sur un seul thread par défaut, le parallélisme venant des runs.
+ * Les traces des agents sont coupées par la configuration de base
+ * (traces=true les rétablit pour un point de la grille) : System.out n'est
+ * pas touché.
+ */
+public class LanceurInterne implements LanceurRun {
+
+    private final SimulationConfig base;
+    private final long ticksMax;
+
+    public LanceurInterne() {
+        this(LanceurSansInterface.CONFIG_DEFAUT.avecExecution(
+                LanceurSansInterface.CONFIG_DEFAUT.getModeExecution(), 1, 0), LanceurSansInterface.TICKS_MAX_DEFAUT);
+    }
+
+    public LanceurInterne(SimulationConfig base, long ticksMax) {
+        this.base = base;
+        this.ticksMax = ticksMax;
+    }
+
+    @Override
+    public Properties executer(Map<String, String> parametres, long graine) throws InterruptedException {
+        SimulationConfig config = base;
+        long budget = ticksMax;
+        for (Map.Entry<String, String> parametre : parametres.entrySet()) {
+            switch (parametre.getKey()) {
+                case "ticksMax": budget = Long.parseLong(parametre.getValue()); break;
+                default: config = config.avecParametre(parametre.getKey(), parametre.getValue());
+            }
+        }
+        return LanceurSansInterface.executer(config.avecGraine(graine), budget);
+    }
+}
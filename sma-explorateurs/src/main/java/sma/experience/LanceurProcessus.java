@@ -0,0 +1,67 @@
+package sma.experience;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import sma.simulation.LanceurSansInterface;
+
+/**
+ * Chaque run dans sa propre JVM (LanceurSansInterface) : isolement complet
+ * (tas, JIT, ramasse-miettes) au prix du démarrage d'une JVM par run.
+ * LanceurInterne évite ce coût.
+ */
+public class LanceurProcessus implements LanceurRun {
+
+    private final String java;
+    private final String classpath;
+
+    public LanceurProcessus() {
+        this(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                System.getProperty("java.class.path"));
+    }
+
+    public LanceurProcessus(String java, String classpath) {
+        this.java = java;
+        this.classpath = classpath;
+    }
+
+    @Override
+    public Properties executer(Map<String, String> parametres, long graine) throws IOException, InterruptedException {
+        List<String> commande = new ArrayList<>();
+        commande.add(java);
+        commande.add("-cp");
+        commande.add(classpath);
+        commande.add(LanceurSansInterface.class.getName());
+        for (Map.Entry<String, String> parametre : parametres.entrySet()) {
+            commande.add(parametre.getKey() + "=" + parametre.getValue());
+        }
+        commande.add("graine=" + graine);
+
+        Process processus = new ProcessBuilder(commande)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        Properties mesures = new Properties();
+        try (BufferedReader lecteur = new BufferedReader(
+                new InputStreamReader(processus.getInputStream(), Charset.defaultCharset()))) {
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                int egal = ligne.indexOf('=');
+                if (egal > 0) {
+                    mesures.setProperty(ligne.substring(0, egal), ligne.substring(egal + 1));
+                }
+            }
+        }
+        int code = processus.waitFor();
+        if (code != 0) {
+            throw new IOException("Le run (graine " + graine + ", " + parametres + ") s'est terminé avec le code " + code);
+        }
+        return mesures;
+    }
+}
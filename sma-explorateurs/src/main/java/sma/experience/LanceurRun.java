@@ -0,0 +1,14 @@
+package sma.experience;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Exécute une simulation pour un point de la grille et une graine, et
+ * renvoie ses mesures au format de LanceurSansInterface (cle -> valeur).
+ * Doit pouvoir être appelé depuis plusieurs threads à la fois.
+ */
+public interface LanceurRun {
+
+    Properties executer(Map<String, String> parametres, long graine) throws Exception;
+}
@@ -0,0 +1,178 @@
+package sma.experience;
+
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plan d'expériences : chaque point de la grille de paramètres est simulé
+ * avec les mêmes N graines (tirées d'une graine maîtresse), les runs
+ * tournant en parallèle. Chaque résultat est versé dans l'agrégat de son
+ * point dès qu'il arrive puis oublié ; les runs en vol sont limités par un
+ * sémaphore, la mémoire ne dépend donc pas du nombre de runs. Une ligne par
+ * run peut en plus être écrite dans un fichier CSV.
+ *
+ * Usage : MoteurExperiences [fichier.properties] [cle=v1,v2,...]...
+ * Les clés de la simulation sont celles de LanceurSansInterface (plusieurs
+ * valeurs séparées par des virgules = un axe de la grille) ; en plus :
+ * graines (N), graineMaitre, paralleles (runs simultanés), sortie (CSV),
+ * isolement (interne par défaut, processus pour une JVM par run).
+ */
+public class MoteurExperiences {
+
+    private final GrilleParametres grille;
+    private final int nbGraines;
+    private final long graineMaitre;
+    private final int paralleles;
+    private final LanceurRun lanceur;
+    private PrintWriter sortieRuns;
+
+    public MoteurExperiences(GrilleParametres grille, int nbGraines, long graineMaitre, int paralleles, LanceurRun lanceur) {
+        this.grille = grille;
+        this.nbGraines = nbGraines;
+        this.graineMaitre = graineMaitre;
+        this.paralleles = Math.max(1, paralleles);
+        this.lanceur = lanceur;
+    }
+
+    /**
+     * Écrit une ligne CSV par run terminé (optionnel).
+     */
+    public void setSortieRuns(PrintWriter sortieRuns) {
+        this.sortieRuns = sortieRuns;
+    }
+
+    /**
+     * Mêmes graines pour tous les points : les écarts entre points ne
+     * viennent pas du placement des objets.
+     */
+    public long[] graines() {
+        Random random = new Random(graineMaitre);
+        long[] graines = new long[nbGraines];
+        for (int i = 0; i < nbGraines; i++) {
+            graines[i] = random.nextLong();
+        }
+        return graines;
+    }
+
+    public List<AgregatPoint> executer() throws InterruptedException {
+        long nbPoints = grille.getNbPoints();
+        List<AgregatPoint> agregats = new ArrayList<>();
+        for (long p = 0; p < nbPoints; p++) {
+            agregats.add(new AgregatPoint(grille.point(p)));
+        }
+        long[] graines = graines();
+        if (sortieRuns != null) {
+            sortieRuns.println("point,graine,parametres,ticks,duree_ms,termine,tresors_collectes,morts,secours");
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(paralleles);
+        Semaphore enVol = new Semaphore(paralleles * 2);
+        try {
+            for (int g = 0; g < graines.length; g++) {
+                for (int p = 0; p < agregats.size(); p++) {
+                    enVol.acquire();
+                    final AgregatPoint agregat = agregats.get(p);
+                    final int indicePoint = p;
+                    final long graine = graines[g];
+                    pool.execute(() -> {
+                        try {
+                            Properties mesures = lanceur.executer(agregat.getParametres(), graine);
+                            agregat.ajouter(mesures);
+                            ecrireRun(indicePoint, graine, agregat.getParametres(), mesures);
+                        } catch (Exception e) {
+                            agregat.ajouterEchec();
+                            System.err.println("Échec du run " + agregat.getParametres() + " graine " + graine + " : " + e);
+                        } finally {
+                            enVol.release();
+                        }
+                    });
+                }
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        if (sortieRuns != null) {
+            sortieRuns.flush();
+        }
+        return Collections.unmodifiableList(agregats);
+    }
+
+    private void ecrireRun(int indicePoint, long graine, Map<String, String> parametres, Properties mesures) {
+        if (sortieRuns == null) {
+            return;
+        }
+        String ligne = indicePoint + "," + graine + ",\"" + parametres.toString().replace("\"", "'") + "\","
+                + mesures.getProperty("ticks") + "," + mesures.getProperty("duree_ms") + ","
+                + mesures.getProperty("termine") + "," + mesures.getProperty("tresors_collectes") + ","
+                + mesures.getProperty("morts") + "," + mesures.getProperty("secours");
+        synchronized (sortieRuns) {
+            sortieRuns.println(ligne);
+        }
+    }
+
+    // ========== LIGNE DE COMMANDE ==========
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Properties proprietes = new Properties();
+        for (String arg : args) {
+            int egal = arg.indexOf('=');
+            if (egal < 0) {
+                try (InputStream entree = new FileInputStream(arg)) {
+                    proprietes.load(entree);
+                }
+            } else {
+                proprietes.setProperty(arg.substring(0, egal).trim(), arg.substring(egal + 1).trim());
+            }
+        }
+
+        int nbGraines = Integer.parseInt(retirer(proprietes, "graines", "10"));
+        long graineMaitre = Long.parseLong(retirer(proprietes, "graineMaitre", "42"));
+        int paralleles = Integer.parseInt(retirer(proprietes, "paralleles",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        String sortie = retirer(proprietes, "sortie", null);
+        boolean parProcessus = "processus".equals(retirer(proprietes, "isolement", "interne"));
+
+        GrilleParametres grille = new GrilleParametres();
+        for (String cle : new TreeSet<>(proprietes.stringPropertyNames())) {
+            grille.axe(cle, proprietes.getProperty(cle).split("\\s*,\\s*"));
+        }
+        LanceurRun lanceur = parProcessus ? new LanceurProcessus() : new LanceurInterne();
+        MoteurExperiences moteur = new MoteurExperiences(grille, nbGraines, graineMaitre, paralleles, lanceur);
+        System.out.printf("%d points x %d graines, %d runs simultanés (%s)%n", grille.getNbPoints(), nbGraines, paralleles,
+                parProcessus ? "une JVM par run" : "même JVM");
+
+        PrintWriter csv = sortie != null ? new PrintWriter(new FileWriter(sortie)) : null;
+        try { // les runs internes n'écrivent rien : leur configuration coupe les traces
+            moteur.setSortieRuns(csv);
+            long debut = System.nanoTime();
+            List<AgregatPoint> agregats = moteur.executer();
+            for (AgregatPoint agregat : agregats) {
+                System.out.println(agregat);
+            }
+            System.out.printf("durée totale : %.1f s%n", (System.nanoTime() - debut) / 1e9);
+        } finally {
+            if (csv != null) {
+                csv.close();
+            }
+        }
+    }
+
+    private static String retirer(Properties proprietes, String cle, String defaut) {
+        Object valeur = proprietes.remove(cle);
+        return valeur != null ? (String) valeur : defaut;
+    }
+}
@@ -0,0 +1,97 @@
+package sma.experience;
+
+import java.util.Locale;
+
+/**
+ * Statistiques d'une mesure calculées au fil de l'eau, sans garder les
+ * observations : moyenne et variance (Welford), min, max, médiane, p90 et
+ * p99 (P²), intervalle de confiance à 95 % de la moyenne.
+ */
+public class StatistiquesFlux {
+
+    // quantiles de Student à 97,5 % pour 1..30 degrés de liberté, 1,96 au-delà
+    private static final double[] STUDENT_975 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private long compte = 0;
+    private double moyenne = 0;
+    private double m2 = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final EstimateurQuantile mediane = new EstimateurQuantile(0.5);
+    private final EstimateurQuantile p90 = new EstimateurQuantile(0.9);
+    private final EstimateurQuantile p99 = new EstimateurQuantile(0.99);
+
+    public void ajouter(double x) {
+        compte++;
+        double ecart = x - moyenne;
+        moyenne += ecart / compte;
+        m2 += ecart * (x - moyenne);
+        min = Math.min(min, x);
+        max = Math.max(max, x);
+        mediane.ajouter(x);
+        p90.ajouter(x);
+        p99.ajouter(x);
+    }
+
+    public long getCompte() {
+        return compte;
+    }
+
+    public double getMoyenne() {
+        return compte > 0 ? moyenne : Double.NaN;
+    }
+
+    /**
+     * Variance corrigée (n - 1).
+     */
+    public double getVariance() {
+        return compte > 1 ? m2 / (compte - 1) : Double.NaN;
+    }
+
+    public double getEcartType() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return compte > 0 ? min : Double.NaN;
+    }
+
+    public double getMax() {
+        return compte > 0 ? max : Double.NaN;
+    }
+
+    public double getMediane() {
+        return mediane.valeur();
+    }
+
+    public double getP90() {
+        return p90.valeur();
+    }
+
+    public double getP99() {
+        return p99.valeur();
+    }
+
+    /**
+     * Demi-largeur de l'intervalle de confiance à 95 % de la moyenne
+     * (loi de Student), NaN avec moins de deux observations.
+     */
+    public double getDemiLargeurIC95() {
+        if (compte < 2) {
+            return Double.NaN;
+        }
+        long ddl = compte - 1;
+        double t = ddl <= STUDENT_975.length ? STUDENT_975[(int) ddl - 1] : 1.96;
+        return t * Math.sqrt(getVariance() / compte);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d moyenne=%.1f ±%.1f médiane=%.1f p90=%.1f p99=%.1f min=%.1f max=%.1f",
+                compte, getMoyenne(), getDemiLargeurIC95(), getMediane(), getP90(), getP99(), getMin(), getMax());
+    }
+}
@@ -13,9 +13,6 @@ import sma.agents.Agent;
 import sma.environnement.Carte;
 import sma.environnement.Case;
 import sma.environnement.Zone;
-import sma.objets.Animal;
-import sma.objets.ObjetPassif;
-import sma.objets.Obstacle;
 import sma.objets.Tresor;
 import sma.simulation.Simulation;
 
@@ -50,71 +47,91 @@ public class Dashboard extends JPanel {
         dessinerLegende(g2);
     }
 
+    /**
+     * Taille en pixels d'une case : SimuPara.CASE_SIZE tant que la carte tient
+     * dans la fenêtre, réduite sinon (grandes cartes).
+     */
+    private int tailleCase() {
+        int cote = simulation.getCarte().getCote();
+        return Math.max(1, Math.min(SimuPara.CASE_SIZE, (SimuPara.WINDOW_HEIGHT - 150) / cote));
+    }
+
+    private int pixelZone(int zoneCoord, int tailleCase) {
+        int tailleZone = simulation.getCarte().getTailleZone();
+        return zoneCoord * (tailleZone * tailleCase + SimuPara.ZONE_MARGIN);
+    }
+
     private void dessinerCarte(Graphics2D g2) {
         Carte carte = simulation.getCarte();
         int startX = 50;
         int startY = 50;
+        int tailleCase = tailleCase();
+        int tailleZone = carte.getTailleZone();
+        int idQG = carte.getCaseQG().getId();
 
-        for (int zx = 0; zx < Carte.NB_ZONES_COTE; zx++) {
-            for (int zy = 0; zy < Carte.NB_ZONES_COTE; zy++) {
+        for (int zx = 0; zx < carte.getNbZonesCote(); zx++) {
+            for (int zy = 0; zy < carte.getNbZonesCote(); zy++) {
                 Zone zone = carte.getZone(zx, zy);
-                int zonePixelX = startX + zx * (Zone.TAILLE * SimuPara.CASE_SIZE + SimuPara.ZONE_MARGIN);
-                int zonePixelY = startY + zy * (Zone.TAILLE * SimuPara.CASE_SIZE + SimuPara.ZONE_MARGIN);
+                int zonePixelX = startX + pixelZone(zx, tailleCase);
+                int zonePixelY = startY + pixelZone(zy, tailleCase);
 
-                // Dessiner chaque case de la zone
-                for (int cx = 0; cx < Zone.TAILLE; cx++) {
-                    for (int cy = 0; cy < Zone.TAILLE; cy++) {
-                        Case c = zone.getCase(cx, cy);
-                        int casePixelX = zonePixelX + cx * SimuPara.CASE_SIZE;
-                        int casePixelY = zonePixelY + cy * SimuPara.CASE_SIZE;
+                // Dessiner chaque case de la zone (lecture directe des tableaux de la carte)
+                for (int cx = 0; cx < tailleZone; cx++) {
+                    for (int cy = 0; cy < tailleZone; cy++) {
+                        int idCase = zone.idCase(cx, cy);
+                        int casePixelX = zonePixelX + cx * tailleCase;
+                        int casePixelY = zonePixelY + cy * tailleCase;
 
                         // Couleur de la case
-                        Color couleur = getCouleurCase(c, zx == 0 && zy == 0 && cx == 0 && cy == 0);
+                        Color couleur = getCouleurCase(carte, idCase, idCase == idQG);
                         g2.setColor(couleur);
-                        g2.fillRect(casePixelX, casePixelY, SimuPara.CASE_SIZE - 1, SimuPara.CASE_SIZE - 1);
+                        g2.fillRect(casePixelX, casePixelY, Math.max(1, tailleCase - 1), Math.max(1, tailleCase - 1));
 
-                        // Bordure
-                        g2.setColor(Color.LIGHT_GRAY);
-                        g2.drawRect(casePixelX, casePixelY, SimuPara.CASE_SIZE - 1, SimuPara.CASE_SIZE - 1);
+                        // Bordure (inutile quand les cases font quelques pixels)
+                        if (tailleCase >= 4) {
+                            g2.setColor(Color.LIGHT_GRAY);
+                            g2.drawRect(casePixelX, casePixelY, tailleCase - 1, tailleCase - 1);
+                        }
                     }
                 }
 
                 // Bordure de la zone
                 g2.setColor(Color.BLACK);
-                g2.setStroke(new BasicStroke(2));
+                g2.setStroke(new BasicStroke(tailleCase >= 4 ? 2 : 1));
                 g2.drawRect(zonePixelX - 1, zonePixelY - 1,
-                        Zone.TAILLE * SimuPara.CASE_SIZE + 1, Zone.TAILLE * SimuPara.CASE_SIZE + 1);
+                        tailleZone * tailleCase + 1, tailleZone * tailleCase + 1);
 
                 // Numéro de zone
-                g2.setFont(new Font("Arial", Font.BOLD, 10));
-                g2.drawString("Z" + zone.getId(), zonePixelX + 2, zonePixelY - 3);
+                if (tailleZone * tailleCase >= 20) {
+                    g2.setFont(new Font("Arial", Font.BOLD, 10));
+                    g2.drawString("Z" + zone.getId(), zonePixelX + 2, zonePixelY - 3);
+                }
             }
         }
     }
 
-    private Color getCouleurCase(Case c, boolean isQG) {
+    private Color getCouleurCase(Carte carte, int idCase, boolean isQG) {
         if (isQG) {
             return COLOR_QG;
         }
 
-        if (c.hasObjet()) {
-            ObjetPassif obj = c.getObjet();
-            if (obj instanceof Tresor) {
-                Tresor t = (Tresor) obj;
+        switch (carte.getNature(idCase)) {
+            case Carte.NATURE_TRESOR:
+                Tresor t = (Tresor) carte.getObjet(idCase);
                 return t.isCollecte() ? COLOR_EMPTY : COLOR_TRESOR;
-            } else if (obj instanceof Animal) {
+            case Carte.NATURE_ANIMAL:
                 return COLOR_ANIMAL;
-            } else if (obj instanceof Obstacle) {
+            case Carte.NATURE_OBSTACLE:
                 return COLOR_OBSTACLE;
-            }
+            default:
+                return COLOR_EMPTY;
         }
-
-        return COLOR_EMPTY;
     }
 
     private void dessinerAgents(Graphics2D g2) {
         int startX = 50;
         int startY = 50;
+        int tailleCase = tailleCase();
 
         for (Agent agent : simulation.getAgents()) {
             Case c = agent.getCaseActuelle();
@@ -123,26 +140,27 @@ public class Dashboard extends JPanel {
             }
 
             Zone zone = c.getZone();
-            int zonePixelX = startX + zone.getZoneX() * (Zone.TAILLE * SimuPara.CASE_SIZE + SimuPara.ZONE_MARGIN);
-            int zonePixelY = startY + zone.getZoneY() * (Zone.TAILLE * SimuPara.CASE_SIZE + SimuPara.ZONE_MARGIN);
+            int zonePixelX = startX + pixelZone(zone.getZoneX(), tailleCase);
+            int zonePixelY = startY + pixelZone(zone.getZoneY(), tailleCase);
 
-            int agentX = zonePixelX + c.getX() * SimuPara.CASE_SIZE + SimuPara.CASE_SIZE / 2;
-            int agentY = zonePixelY + c.getY() * SimuPara.CASE_SIZE + SimuPara.CASE_SIZE / 2;
+            int agentX = zonePixelX + c.getX() * tailleCase + tailleCase / 2;
+            int agentY = zonePixelY + c.getY() * tailleCase + tailleCase / 2;
 
             // Couleur selon le type
             Color couleur = getCouleurAgent(agent);
             g2.setColor(couleur);
 
-            int size = SimuPara.CASE_SIZE - 2;
+            int size = Math.max(2, tailleCase - 2);
             g2.fillOval(agentX - size / 2, agentY - size / 2, size, size);
 
-            // Contour
-            g2.setColor(Color.BLACK);
-            g2.drawOval(agentX - size / 2, agentY - size / 2, size, size);
+            // Contour et ID de l'agent seulement si la case est assez grande
+            if (tailleCase >= 10) {
+                g2.setColor(Color.BLACK);
+                g2.drawOval(agentX - size / 2, agentY - size / 2, size, size);
 
-            // ID de l'agent
-            g2.setFont(new Font("Arial", Font.PLAIN, 8));
-            g2.drawString(String.valueOf(agent.getId()), agentX - 2, agentY + 3);
+                g2.setFont(new Font("Arial", Font.PLAIN, 8));
+                g2.drawString(String.valueOf(agent.getId()), agentX - 2, agentY + 3);
+            }
         }
     }
 
@@ -161,7 +179,7 @@ public class Dashboard extends JPanel {
 
     private void dessinerLegende(Graphics2D g2) {
         // Calculer la position en bas à droite
-        int carteWidth = Carte.NB_ZONES_COTE * (Zone.TAILLE * SimuPara.CASE_SIZE + SimuPara.ZONE_MARGIN);
+        int carteWidth = pixelZone(simulation.getCarte().getNbZonesCote(), tailleCase());
         int carteHeight = carteWidth;
         int startX = 50; // même que dessinerCarte
         int startY = 50;
@@ -48,6 +48,8 @@ public class MainGui extends JFrame implements Runnable {
     private JSpinner spnAnimaux;
     private JSpinner spnObstacles;
     private JSpinner spnDegatsMax;
+    private JSpinner spnZonesCote;
+    private JSpinner spnTailleZone;
     private JSpinner spnDelayMs;
     private JSpinner spnDuration;
 
@@ -103,6 +105,10 @@ public class MainGui extends JFrame implements Runnable {
         mainPanel.add(createAgentsSection());
         mainPanel.add(Box.createVerticalStrut(10));
 
+        // Section Carte
+        mainPanel.add(createCarteSection());
+        mainPanel.add(Box.createVerticalStrut(10));
+
         // Section Objets
         mainPanel.add(createObjetsSection());
         mainPanel.add(Box.createVerticalStrut(10));
@@ -125,6 +131,15 @@ public class MainGui extends JFrame implements Runnable {
         return panel;
     }
 
+    private JPanel createCarteSection() {
+        JPanel panel = createSection("Carte");
+
+        spnZonesCote = addSpinnerRow(panel, "Zones/côté:", SimuPara.NB_ZONES_COTE, 1, 100);
+        spnTailleZone = addSpinnerRow(panel, "Taille zone:", SimuPara.TAILLE_ZONE, 2, 1000);
+
+        return panel;
+    }
+
     private JPanel createObjetsSection() {
         JPanel panel = createSection("Objets/Zone");
         
@@ -222,6 +237,8 @@ public class MainGui extends JFrame implements Runnable {
         SimuPara.NB_AGENTS_REACTIFS = (Integer) spnReactifs.getValue();
         SimuPara.NB_AGENTS_COGNITIFS = (Integer) spnCognitifs.getValue();
         SimuPara.NB_AGENTS_COMMUNICANTS = (Integer) spnCommunicants.getValue();
+        SimuPara.NB_ZONES_COTE = (Integer) spnZonesCote.getValue();
+        SimuPara.TAILLE_ZONE = (Integer) spnTailleZone.getValue();
         SimuPara.NB_TRESORS_PAR_ZONE = (Integer) spnTresors.getValue();
         SimuPara.NB_ANIMAUX_PAR_ZONE = (Integer) spnAnimaux.getValue();
         SimuPara.NB_OBSTACLES_PAR_ZONE = (Integer) spnObstacles.getValue();
@@ -234,6 +251,8 @@ public class MainGui extends JFrame implements Runnable {
         spnReactifs.setEnabled(enabled);
         spnCognitifs.setEnabled(enabled);
         spnCommunicants.setEnabled(enabled);
+        spnZonesCote.setEnabled(enabled);
+        spnTailleZone.setEnabled(enabled);
         spnTresors.setEnabled(enabled);
         spnAnimaux.setEnabled(enabled);
         spnObstacles.setEnabled(enabled);
@@ -248,7 +267,7 @@ public class MainGui extends JFrame implements Runnable {
         // Désactiver les spinners pendant la simulation
         setSpinnersEnabled(false);
 
-        simulation = new Simulation();
+        simulation = new Simulation(SimuPara.versConfig());
         dashboard = new Dashboard(simulation);
         infoPanel = new InfoPanel(simulation);
 
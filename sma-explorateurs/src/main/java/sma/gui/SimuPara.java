@@ -1,5 +1,15 @@
 package sma.gui;
 
+import sma.agents.ModeDiffusion;
+import sma.concurrent.BoiteAuxLettres.PolitiqueDebordement;
+import sma.navigation.ModeNavigation;
+import sma.simulation.ModeExecution;
+import sma.simulation.SimulationConfig;
+
+/**
+ * Valeurs saisies dans l'interface graphique. Seule MainGui les modifie ; la
+ * simulation ne lit que la SimulationConfig construite par versConfig().
+ */
 public class SimuPara {
 
     // Fenêtre
@@ -10,9 +20,15 @@ public class SimuPara {
     public static int CASE_SIZE = 16;
     public static int ZONE_MARGIN = 0;
 
+    // Dimensions de la carte (nombre de zones par côté x taille d'une zone)
+    public static int NB_ZONES_COTE = 3;
+    public static int TAILLE_ZONE = 10;
+
     // Simulation
     public static long DELAY_MS = 100;
     public static int SIMULATION_DURATION = 60000;
+    public static ModeExecution MODE_EXECUTION = ModeExecution.THREAD_PAR_AGENT;
+    public static int NB_THREADS_TICKS = Runtime.getRuntime().availableProcessors();
 
     // Agents (maintenant modifiables)
     public static int NB_AGENTS_REACTIFS = 5;
@@ -25,4 +41,32 @@ public class SimuPara {
     public static int NB_OBSTACLES_PAR_ZONE = 5;
 
     public static int MAX_DEGATS_ANIMAUX = 20;
-}
\ No newline at end of file
+
+    // Navigation des cognitifs vers les trésors
+    public static ModeNavigation MODE_NAVIGATION = ModeNavigation.ASTAR;
+
+    // Boîte aux lettres des cognitifs
+    public static int CAPACITE_BOITE_AUX_LETTRES = 64;
+    public static PolitiqueDebordement POLITIQUE_BOITE_AUX_LETTRES = PolitiqueDebordement.FUSIONNER;
+
+    // Diffusion des communicants
+    public static ModeDiffusion MODE_DIFFUSION = ModeDiffusion.DELTA;
+    public static boolean MESSAGES_PAR_LOTS = true;
+    public static int CAPACITE_BOITE_AUX_LOTS = 16;
+    public static PolitiqueDebordement POLITIQUE_BOITE_AUX_LOTS = PolitiqueDebordement.BLOQUER;
+
+    /**
+     * Instantané des valeurs courantes pour une nouvelle simulation.
+     */
+    public static SimulationConfig versConfig() {
+        return SimulationConfig.DEFAUT
+                .avecCarte(NB_ZONES_COTE, TAILLE_ZONE)
+                .avecAgents(NB_AGENTS_REACTIFS, NB_AGENTS_COGNITIFS, NB_AGENTS_COMMUNICANTS)
+                .avecObjets(NB_TRESORS_PAR_ZONE, NB_ANIMAUX_PAR_ZONE, NB_OBSTACLES_PAR_ZONE, MAX_DEGATS_ANIMAUX)
+                .avecExecution(MODE_EXECUTION, NB_THREADS_TICKS, DELAY_MS)
+                .avecNavigation(MODE_NAVIGATION)
+                .avecBoiteAuxLettres(CAPACITE_BOITE_AUX_LETTRES, POLITIQUE_BOITE_AUX_LETTRES)
+                .avecDiffusion(MODE_DIFFUSION, MESSAGES_PAR_LOTS)
+                .avecBoiteAuxLots(CAPACITE_BOITE_AUX_LOTS, POLITIQUE_BOITE_AUX_LOTS);
+    }
+}
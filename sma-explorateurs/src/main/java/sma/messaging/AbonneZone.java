@@ -0,0 +1,15 @@
+package sma.messaging;
+
+import sma.agents.Message;
+
+/**
+ * Destinataire des messages publiés sur la zone à laquelle il est abonné.
+ * Les deux méthodes sont appelées sur le thread de l'expéditeur : elles
+ * doivent seulement déposer le message ou le lot, sans le traiter.
+ */
+public interface AbonneZone {
+
+    void recevoir(Message message);
+
+    void recevoirLot(LotMessages lot);
+}
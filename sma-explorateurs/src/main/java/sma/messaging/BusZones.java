@@ -0,0 +1,176 @@
+package sma.messaging;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import sma.agents.Message;
+
+/**
+ * Bus de messages par zone (publication / abonnement). Chaque zone a son
+ * ensemble d'abonnés, tenu à jour par les agents quand ils changent de zone,
+ * meurent ou réapparaissent : publier sur une zone coûte O(abonnés), sans
+ * parcourir ses cases.
+ *
+ * Un message seul ou un lot (LotMessages, toutes les informations d'un pas)
+ * se publient de la même façon ; un lot est livré une fois par abonné.
+ *
+ * Mesures : publications, livraisons (une publication livrée à n abonnés
+ * compte n fois), entrées publiées (1 par message, la taille d'un lot) et
+ * latence de diffusion (du début de la publication au dépôt chez le dernier
+ * abonné). Un envoi direct (envoyer) compte comme une publication livrée
+ * une fois.
+ */
+public class BusZones {
+
+    public static final long AUCUN_ABONNEMENT = 0L;
+
+    private final List<Map<AbonneZone, Long>> abonnes; // [zone] abonné -> jeton de son abonnement
+    private final AtomicIntegerArray versionsArrivees; // [zone] change à chaque nouvel abonné
+    private final AtomicLong prochainJeton = new AtomicLong(AUCUN_ABONNEMENT);
+
+    private final LongAdder nbPublications = new LongAdder();
+    private final LongAdder nbLivraisons = new LongAdder();
+    private final LongAdder nbEntrees = new LongAdder();
+    private final LongAdder latenceTotaleNanos = new LongAdder();
+    private final AtomicLong latenceMaxNanos = new AtomicLong();
+
+    public BusZones(int nbZones) {
+        this.abonnes = new ArrayList<>(nbZones);
+        for (int i = 0; i < nbZones; i++) {
+            abonnes.add(new ConcurrentHashMap<>());
+        }
+        this.versionsArrivees = new AtomicIntegerArray(nbZones);
+    }
+
+    // ========== ABONNEMENTS ==========
+    /**
+     * Chaque abonnement reçoit un jeton neuf : un abonné qui quitte la zone
+     * puis y revient n'a plus le même jeton, même si personne ne l'a vu
+     * partir.
+     */
+    public void abonner(AbonneZone abonne, int idZone) {
+        if (abonnes.get(idZone).putIfAbsent(abonne, prochainJeton.incrementAndGet()) == null) {
+            versionsArrivees.incrementAndGet(idZone);
+        }
+    }
+
+    public void desabonner(AbonneZone abonne, int idZone) {
+        abonnes.get(idZone).remove(abonne);
+    }
+
+    /**
+     * Déplace l'abonnement ; -1 désigne l'absence de zone (abonné créé,
+     * mort ou ressuscité).
+     */
+    public void deplacer(AbonneZone abonne, int ancienneZone, int nouvelleZone) {
+        if (ancienneZone == nouvelleZone) {
+            return;
+        }
+        if (ancienneZone >= 0) {
+            desabonner(abonne, ancienneZone);
+        }
+        if (nouvelleZone >= 0) {
+            abonner(abonne, nouvelleZone);
+        }
+    }
+
+    public Collection<AbonneZone> getAbonnes(int idZone) {
+        return Collections.unmodifiableSet(abonnes.get(idZone).keySet());
+    }
+
+    /**
+     * Jeton de l'abonnement courant à la zone, AUCUN_ABONNEMENT si l'abonné
+     * n'y est pas.
+     */
+    public long getJeton(AbonneZone abonne, int idZone) {
+        return abonnes.get(idZone).getOrDefault(abonne, AUCUN_ABONNEMENT);
+    }
+
+    /**
+     * Change à chaque arrivée d'un abonné dans la zone : inchangée, il est
+     * inutile de chercher des arrivants parmi les abonnés.
+     */
+    public int getVersionArrivees(int idZone) {
+        return versionsArrivees.get(idZone);
+    }
+
+    // ========== PUBLICATION ==========
+    /**
+     * Livre le message à chaque abonné de la zone ; renvoie le nombre de
+     * livraisons.
+     */
+    public int publier(int idZone, Message message) {
+        long debut = System.nanoTime();
+        int livres = 0;
+        for (AbonneZone abonne : abonnes.get(idZone).keySet()) {
+            abonne.recevoir(message);
+            livres++;
+        }
+        compter(debut, livres, 1);
+        return livres;
+    }
+
+    public int publierLot(int idZone, LotMessages lot) {
+        long debut = System.nanoTime();
+        int livres = 0;
+        for (AbonneZone abonne : abonnes.get(idZone).keySet()) {
+            abonne.recevoirLot(lot);
+            livres++;
+        }
+        compter(debut, livres, lot.getNbEntrees());
+        return livres;
+    }
+
+    /**
+     * Livraison à un seul abonné (mise à niveau d'un arrivant).
+     */
+    public void envoyer(AbonneZone abonne, Message message) {
+        long debut = System.nanoTime();
+        abonne.recevoir(message);
+        compter(debut, 1, 1);
+    }
+
+    public void envoyerLot(AbonneZone abonne, LotMessages lot) {
+        long debut = System.nanoTime();
+        abonne.recevoirLot(lot);
+        compter(debut, 1, lot.getNbEntrees());
+    }
+
+    private void compter(long debut, int livres, int entrees) {
+        long latence = System.nanoTime() - debut;
+        nbPublications.increment();
+        nbLivraisons.add(livres);
+        nbEntrees.add(entrees);
+        latenceTotaleNanos.add(latence);
+        latenceMaxNanos.accumulateAndGet(latence, Math::max);
+    }
+
+    // ========== MESURES ==========
+    public long getNbPublications() {
+        return nbPublications.sum();
+    }
+
+    public long getNbLivraisons() {
+        return nbLivraisons.sum();
+    }
+
+    public long getNbEntrees() {
+        return nbEntrees.sum();
+    }
+
+    public double getLatenceMoyenneNanos() {
+        long publications = nbPublications.sum();
+        return publications == 0 ? 0 : latenceTotaleNanos.sum() / (double) publications;
+    }
+
+    public long getLatenceMaxNanos() {
+        return latenceMaxNanos.get();
+    }
+}
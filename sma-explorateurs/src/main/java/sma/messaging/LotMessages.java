@@ -0,0 +1,160 @@
+package sma.messaging;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import sma.agents.Message;
+
+/**
+ * Lot de messages d'un expéditeur pour un pas, en encodage compact : une
+ * entrée par information dans un long[], sans objet Message ni référence
+ * de Case. Une entrée vaut (type << 32) | lieu, le lieu étant l'id global
+ * d'une case ou, pour une information sur toute une zone, BIT_ZONE | id de
+ * la zone (même encodage que Message.getCleFusion()).
+ *
+ * L'horodatage est un numéro de pas (tick), pas une heure. Un lot est
+ * immuable une fois construit : le même objet est livré à tous les abonnés
+ * d'une zone. versOctets() / depuisOctets() donnent une forme binaire
+ * indépendante de la JVM, pour un transport entre processus.
+ */
+public final class LotMessages {
+
+    public static final int AUCUNE_CASE = -1;
+    static final long BIT_ZONE = 1L << 31;
+    private static final Message.TypeMessage[] TYPES = Message.TypeMessage.values();
+    private static final int ENTETE_OCTETS = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final int expediteurId;
+    private final long tick;
+    private final long[] entrees;
+
+    private LotMessages(int expediteurId, long tick, long[] entrees) {
+        this.expediteurId = expediteurId;
+        this.tick = tick;
+        this.entrees = entrees;
+    }
+
+    // ========== ENCODAGE D'UNE ENTRÉE ==========
+    public static long encoder(Message.TypeMessage type, int idCase) {
+        return ((long) type.ordinal() << 32) | idCase;
+    }
+
+    public static long encoderZone(Message.TypeMessage type, int idZone) {
+        return ((long) type.ordinal() << 32) | BIT_ZONE | idZone;
+    }
+
+    // ========== LECTURE ==========
+    public int getExpediteurId() {
+        return expediteurId;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getNbEntrees() {
+        return entrees.length;
+    }
+
+    public Message.TypeMessage getType(int i) {
+        return TYPES[(int) (entrees[i] >>> 32)];
+    }
+
+    /**
+     * Case de l'entrée, AUCUNE_CASE pour une entrée de zone.
+     */
+    public int getIdCase(int i) {
+        return (entrees[i] & BIT_ZONE) != 0 ? AUCUNE_CASE : (int) entrees[i];
+    }
+
+    /**
+     * Zone d'une entrée de zone, -1 pour une entrée de case (la zone est
+     * celle de la case).
+     */
+    public int getIdZone(int i) {
+        return (entrees[i] & BIT_ZONE) != 0 ? (int) (entrees[i] & (BIT_ZONE - 1)) : -1;
+    }
+
+    // ========== FORME BINAIRE ==========
+    /**
+     * Expéditeur (int), tick (long), nombre d'entrées (int), entrées (long),
+     * gros-boutiste.
+     */
+    public byte[] versOctets() {
+        ByteBuffer tampon = ByteBuffer.allocate(ENTETE_OCTETS + entrees.length * Long.BYTES);
+        tampon.putInt(expediteurId).putLong(tick).putInt(entrees.length);
+        tampon.asLongBuffer().put(entrees);
+        return tampon.array();
+    }
+
+    public static LotMessages depuisOctets(byte[] octets) {
+        ByteBuffer tampon = ByteBuffer.wrap(octets);
+        try {
+            int expediteur = tampon.getInt();
+            long tick = tampon.getLong();
+            int nb = tampon.getInt();
+            if (nb < 0 || nb != tampon.remaining() / Long.BYTES) {
+                throw new IllegalArgumentException("Lot de messages tronqué ou invalide : " + nb + " entrées annoncées");
+            }
+            long[] entrees = new long[nb];
+            tampon.asLongBuffer().get(entrees);
+            for (long entree : entrees) {
+                if ((entree >>> 32) >= TYPES.length) {
+                    throw new IllegalArgumentException("Type de message inconnu : " + (entree >>> 32));
+                }
+            }
+            return new LotMessages(expediteur, tick, entrees);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Lot de messages tronqué", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LotMessages[de=%d, tick=%d, entrées=%d]", expediteurId, tick, entrees.length);
+    }
+
+    // ========== CONSTRUCTION ==========
+    /**
+     * Tampon réutilisable d'un expéditeur : il accumule les entrées d'un pas,
+     * construire() les fige dans un lot, vider() prépare le pas suivant.
+     * Non partagé entre threads.
+     */
+    public static final class Tampon {
+
+        private long[] entrees = new long[16];
+        private int taille = 0;
+
+        public void ajouter(Message.TypeMessage type, int idCase) {
+            ajouterEntree(encoder(type, idCase));
+        }
+
+        public void ajouterZone(Message.TypeMessage type, int idZone) {
+            ajouterEntree(encoderZone(type, idZone));
+        }
+
+        private void ajouterEntree(long entree) {
+            if (taille == entrees.length) {
+                entrees = Arrays.copyOf(entrees, taille * 2);
+            }
+            entrees[taille++] = entree;
+        }
+
+        public boolean estVide() {
+            return taille == 0;
+        }
+
+        public int getTaille() {
+            return taille;
+        }
+
+        public LotMessages construire(int expediteurId, long tick) {
+            return new LotMessages(expediteurId, tick, Arrays.copyOf(entrees, taille));
+        }
+
+        public void vider() {
+            taille = 0;
+        }
+    }
+}
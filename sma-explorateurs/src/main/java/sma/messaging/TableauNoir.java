@@ -0,0 +1,317 @@
+package sma.messaging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tableau noir de l'équipe, au QG : trésors connus et cases dangereuses
+ * (bitsets par id global de case) et affectation des zones aux
+ * communicants. Alternative aux messages point à point (mode de diffusion
+ * TABLEAU_NOIR) : les communicants y écrivent, les cognitifs le lisent.
+ *
+ * Copie sur écriture : l'état courant est un Instantane immuable derrière
+ * une AtomicReference. Lire ne prend aucun verrou et rend un instantané
+ * cohérent et versionné ; un lecteur qui a déjà traité cette version n'a
+ * rien à refaire. Un écrivain regroupe les changements d'un pas dans des
+ * Modifications et les publie en une seule fois (copie des seuls tableaux
+ * touchés, puis CAS, recommencé si un autre écrivain est passé entre-temps).
+ */
+public class TableauNoir {
+
+    public static final int AUCUN_AGENT = 0; // les ids d'agents commencent à 1
+
+    private final AtomicReference<Instantane> courant;
+
+    private final LongAdder nbPublications = new LongAdder();
+    private final LongAdder nbModifications = new LongAdder();
+    private final LongAdder nbConflits = new LongAdder();
+    private final LongAdder tempsEcritureNanos = new LongAdder();
+    private final LongAdder nbLectures = new LongAdder();
+
+    public TableauNoir(int nbCases, int nbZones) {
+        int nbMots = (nbCases + 63) >>> 6;
+        this.courant = new AtomicReference<>(new Instantane(0, new long[nbMots], new long[nbMots], new int[nbZones]));
+    }
+
+    // ========== LECTURE ==========
+    /**
+     * Instantané courant, sans verrou.
+     */
+    public Instantane lire() {
+        nbLectures.increment();
+        return courant.get();
+    }
+
+    public long getVersion() {
+        return courant.get().version;
+    }
+
+    // ========== ÉCRITURE ==========
+    /**
+     * Applique d'un bloc les modifications (qui restent à vider par
+     * l'appelant) ; renvoie la version publiée.
+     */
+    public long publier(Modifications modifications) {
+        if (modifications.estVide()) {
+            return getVersion();
+        }
+        long debut = System.nanoTime();
+        Instantane ancien;
+        Instantane nouveau;
+        while (true) {
+            ancien = courant.get();
+            nouveau = ancien.appliquer(modifications);
+            if (courant.compareAndSet(ancien, nouveau)) {
+                break;
+            }
+            nbConflits.increment();
+        }
+        nbPublications.increment();
+        nbModifications.add(modifications.getTaille());
+        tempsEcritureNanos.add(System.nanoTime() - debut);
+        return nouveau.version;
+    }
+
+    /**
+     * Réserve la zone pour l'agent si elle est libre (ou déjà à lui) et
+     * libère du même coup son ancienne zone (-1 : aucune), sans verrou :
+     * même copie puis CAS que publier(). Renvoie faux, sans rien écrire, si
+     * un autre agent tient la zone ; deux agents ne peuvent donc pas
+     * obtenir la même.
+     */
+    public boolean reserverZone(int idZone, int ancienneZone, int idAgent) {
+        Modifications modifications = new Modifications();
+        if (ancienneZone >= 0 && ancienneZone != idZone) {
+            modifications.libererZone(ancienneZone, idAgent);
+        }
+        modifications.reserverZone(idZone, idAgent);
+        long debut = System.nanoTime();
+        Instantane ancien;
+        while (true) {
+            ancien = courant.get();
+            int titulaire = ancien.affectations[idZone];
+            if (titulaire != AUCUN_AGENT && titulaire != idAgent) {
+                return false;
+            }
+            if (courant.compareAndSet(ancien, ancien.appliquer(modifications))) {
+                break;
+            }
+            nbConflits.increment();
+        }
+        nbPublications.increment();
+        nbModifications.add(modifications.getTaille());
+        tempsEcritureNanos.add(System.nanoTime() - debut);
+        return true;
+    }
+
+    // ========== MESURES ==========
+    public long getNbPublications() {
+        return nbPublications.sum();
+    }
+
+    public long getNbModifications() {
+        return nbModifications.sum();
+    }
+
+    /**
+     * Publications recommencées parce qu'un autre écrivain a publié pendant
+     * la copie.
+     */
+    public long getNbConflits() {
+        return nbConflits.sum();
+    }
+
+    public long getTempsEcritureNanos() {
+        return tempsEcritureNanos.sum();
+    }
+
+    public long getNbLectures() {
+        return nbLectures.sum();
+    }
+
+    // ========== INSTANTANÉ ==========
+    /**
+     * État du tableau à une version donnée, jamais modifié.
+     */
+    public static final class Instantane {
+
+        private final long version;
+        private final long[] tresors;
+        private final long[] dangers;
+        private final int[] affectations;   // [zone] id du communicant, AUCUN_AGENT sinon
+
+        private Instantane(long version, long[] tresors, long[] dangers, int[] affectations) {
+            this.version = version;
+            this.tresors = tresors;
+            this.dangers = dangers;
+            this.affectations = affectations;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean contientTresor(int idCase) {
+            return contient(tresors, idCase);
+        }
+
+        /**
+         * Premier trésor à partir de idCase (inclus), -1 s'il n'y en a plus.
+         */
+        public int tresorSuivant(int idCase) {
+            return suivant(tresors, idCase);
+        }
+
+        public boolean contientDanger(int idCase) {
+            return contient(dangers, idCase);
+        }
+
+        public int dangerSuivant(int idCase) {
+            return suivant(dangers, idCase);
+        }
+
+        public int getAffectation(int idZone) {
+            return affectations[idZone];
+        }
+
+        private Instantane appliquer(Modifications m) {
+            long[] t = tresors;
+            long[] d = dangers;
+            int[] a = affectations;
+            for (int i = 0; i < m.taille; i++) {
+                int valeur = m.valeurs[i];
+                switch (m.operations[i]) {
+                    case Modifications.AJOUTER_TRESOR:
+                        t = t == tresors ? tresors.clone() : t;
+                        t[valeur >>> 6] |= 1L << valeur;
+                        break;
+                    case Modifications.RETIRER_TRESOR:
+                        t = t == tresors ? tresors.clone() : t;
+                        t[valeur >>> 6] &= ~(1L << valeur);
+                        break;
+                    case Modifications.AJOUTER_DANGER:
+                        d = d == dangers ? dangers.clone() : d;
+                        d[valeur >>> 6] |= 1L << valeur;
+                        break;
+                    case Modifications.AFFECTER_ZONE:
+                        a = a == affectations ? affectations.clone() : a;
+                        a[valeur] = m.agents[i];
+                        break;
+                    case Modifications.RESERVER_ZONE:
+                        if (a[valeur] == AUCUN_AGENT) {
+                            a = a == affectations ? affectations.clone() : a;
+                            a[valeur] = m.agents[i];
+                        }
+                        break;
+                    case Modifications.LIBERER_ZONE:
+                        if (a[valeur] == m.agents[i]) {
+                            a = a == affectations ? affectations.clone() : a;
+                            a[valeur] = AUCUN_AGENT;
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException("Opération inconnue : " + m.operations[i]);
+                }
+            }
+            return new Instantane(version + 1, t, d, a);
+        }
+
+        private static boolean contient(long[] bits, int idCase) {
+            return (bits[idCase >>> 6] & (1L << idCase)) != 0;
+        }
+
+        private static int suivant(long[] bits, int depuis) {
+            int i = depuis >>> 6;
+            if (i >= bits.length) {
+                return -1;
+            }
+            long mot = bits[i] & (-1L << depuis);
+            while (true) {
+                if (mot != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(mot);
+                }
+                if (++i == bits.length) {
+                    return -1;
+                }
+                mot = bits[i];
+            }
+        }
+    }
+
+    // ========== MODIFICATIONS ==========
+    /**
+     * Changements accumulés par un écrivain pendant un pas, appliqués dans
+     * l'ordre par publier(). Réutilisable après vider() ; non partagé entre
+     * threads.
+     */
+    public static final class Modifications {
+
+        private static final byte AJOUTER_TRESOR = 0;
+        private static final byte RETIRER_TRESOR = 1;
+        private static final byte AJOUTER_DANGER = 2;
+        private static final byte AFFECTER_ZONE = 3;
+        private static final byte LIBERER_ZONE = 4;
+        private static final byte RESERVER_ZONE = 5;
+
+        private byte[] operations = new byte[16];
+        private int[] valeurs = new int[16];    // case ou zone
+        private int[] agents = new int[16];     // pour les affectations
+        private int taille = 0;
+
+        public void ajouterTresor(int idCase) {
+            ajouter(AJOUTER_TRESOR, idCase, AUCUN_AGENT);
+        }
+
+        public void retirerTresor(int idCase) {
+            ajouter(RETIRER_TRESOR, idCase, AUCUN_AGENT);
+        }
+
+        public void ajouterDanger(int idCase) {
+            ajouter(AJOUTER_DANGER, idCase, AUCUN_AGENT);
+        }
+
+        public void affecterZone(int idZone, int idAgent) {
+            ajouter(AFFECTER_ZONE, idZone, idAgent);
+        }
+
+        /**
+         * Affecte la zone à l'agent si, à la publication, elle n'est tenue
+         * par personne ; sans effet sinon.
+         */
+        public void reserverZone(int idZone, int idAgent) {
+            ajouter(RESERVER_ZONE, idZone, idAgent);
+        }
+
+        /**
+         * Libère la zone si elle est encore affectée à cet agent.
+         */
+        public void libererZone(int idZone, int idAgent) {
+            ajouter(LIBERER_ZONE, idZone, idAgent);
+        }
+
+        private void ajouter(byte operation, int valeur, int agent) {
+            if (taille == operations.length) {
+                operations = Arrays.copyOf(operations, taille * 2);
+                valeurs = Arrays.copyOf(valeurs, taille * 2);
+                agents = Arrays.copyOf(agents, taille * 2);
+            }
+            operations[taille] = operation;
+            valeurs[taille] = valeur;
+            agents[taille] = agent;
+            taille++;
+        }
+
+        public boolean estVide() {
+            return taille == 0;
+        }
+
+        public int getTaille() {
+            return taille;
+        }
+
+        public void vider() {
+            taille = 0;
+        }
+    }
+}
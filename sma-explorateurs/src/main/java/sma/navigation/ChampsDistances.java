@@ -0,0 +1,283 @@
+package sma.navigation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import sma.environnement.Carte;
+
+/**
+ * Cache partagé de champs de distances (flow fields) : pour une case cible
+ * (un trésor signalé), un BFS inverse donne la distance de chaque case à la
+ * cible. Tous les agents qui visent la même cible réutilisent le même champ
+ * et avancent en O(1) en descendant le gradient.
+ *
+ * Les champs sont construits à la première demande, une seule fois même si
+ * plusieurs agents la font en même temps (les autres attendent la
+ * construction en cours), reconstruits quand l'accessibilité de la carte a
+ * changé ou quand une case signalée dangereuse est atteinte par le champ,
+ * oubliés quand le trésor est collecté, et le cache est borné en LRU.
+ */
+public class ChampsDistances {
+
+    public static final int CAPACITE_DEFAUT = 16;
+    public static final int INATTEIGNABLE = Integer.MAX_VALUE;
+
+    private final Carte carte;
+    private final Map<Integer, CompletableFuture<Champ>> champs;   // construit ou en construction
+    private final AtomicLongArray casesEvitees;   // bitset partagé des cases signalées dangereuses
+    private final AtomicInteger versionEvitement = new AtomicInteger();
+    private final ReentrantLock verrou = new ReentrantLock();   // garde la table des champs
+
+    private final AtomicLong succes = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong reconstructions = new AtomicLong();
+    private final AtomicLong attentes = new AtomicLong();       // demandes servies par une construction en cours
+    private final AtomicLong invalidations = new AtomicLong();  // champs périmés par une case à éviter
+    private final AtomicLong evictions = new AtomicLong();   // sorties LRU seulement
+    private final AtomicLong oublis = new AtomicLong();      // oublis explicites (trésor collecté)
+
+    public ChampsDistances(Carte carte) {
+        this(carte, CAPACITE_DEFAUT);
+    }
+
+    public ChampsDistances(Carte carte, int capacite) {
+        this.carte = carte;
+        this.casesEvitees = new AtomicLongArray((carte.getNbCases() + 63) >>> 6);
+        this.champs = new LinkedHashMap<Integer, CompletableFuture<Champ>>(capacite * 2, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<Champ>> eldest) {
+                if (size() > capacite) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Prochaine case à prendre depuis "depuis" pour se rapprocher de "cible"
+     * en descendant le champ, en ignorant les cases interdites propres à
+     * l'agent. Renvoie Carte.AUCUN_VOISIN si la cible est inatteignable ou si
+     * toutes les descentes possibles sont interdites (l'agent doit alors
+     * planifier lui-même).
+     */
+    public int prochainPas(int depuis, int cible, FiltreCases interdites) {
+        if (depuis == cible) {
+            return Carte.AUCUN_VOISIN;
+        }
+        int[] distances = champ(cible).distances;
+        int distance = distances[depuis];
+        if (distance == INATTEIGNABLE) {
+            return Carte.AUCUN_VOISIN;
+        }
+        for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+            int voisin = carte.getVoisin(depuis, d);
+            if (voisin != Carte.AUCUN_VOISIN && distances[voisin] == distance - 1 && !interdites.estInterdite(voisin)) {
+                return voisin;
+            }
+        }
+        return Carte.AUCUN_VOISIN;
+    }
+
+    /**
+     * Distance de la case à la cible selon le champ (INATTEIGNABLE si aucun
+     * chemin).
+     */
+    public int distance(int depuis, int cible) {
+        return champ(cible).distances[depuis];
+    }
+
+    /**
+     * Ajoute une case à l'ensemble partagé des cases à éviter. Seuls les
+     * champs qui atteignent cette case sont périmés (reconstruits à leur
+     * prochaine utilisation) : pour les autres, aucun chemin n'y passait.
+     */
+    public void signalerCaseAEviter(int idCase) {
+        long masque = 1L << idCase;
+        int mot = idCase >>> 6;
+        long ancien;
+        do {
+            ancien = casesEvitees.get(mot);
+            if ((ancien & masque) != 0) {
+                return;
+            }
+        } while (!casesEvitees.compareAndSet(mot, ancien, ancien | masque));
+        versionEvitement.incrementAndGet(); // pour les constructions en cours, qui n'ont peut-être pas vu la case
+        verrou.lock();
+        try {
+            for (CompletableFuture<Champ> f : champs.values()) {
+                Champ champ = f.getNow(null);
+                if (champ != null && !champ.perime && champ.distances[idCase] != INATTEIGNABLE) {
+                    champ.perime = true;
+                    invalidations.incrementAndGet();
+                }
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public boolean estEvitee(int idCase) {
+        return (casesEvitees.get(idCase >>> 6) & (1L << idCase)) != 0;
+    }
+
+    /**
+     * Oublie le champ d'une cible (trésor collecté).
+     */
+    public void oublier(int cible) {
+        verrou.lock();
+        try {
+            if (champs.remove(cible) != null) {
+                oublis.incrementAndGet();
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private Champ champ(int cible) {
+        int versionCarte = carte.getVersionAccessibilite();
+        CompletableFuture<Champ> aConstruire;
+        CompletableFuture<Champ> existant;
+        verrou.lock();
+        try {
+            existant = champs.get(cible);
+            Champ pret = existant != null ? existant.getNow(null) : null;
+            if (existant != null && (pret == null || estValide(pret, versionCarte))) {
+                aConstruire = null;     // prêt, ou en construction par un autre agent
+            } else {
+                aConstruire = new CompletableFuture<>();
+                champs.put(cible, aConstruire); // les suivants attendront celle-ci
+            }
+        } finally {
+            verrou.unlock();
+        }
+
+        if (aConstruire == null) {
+            if (existant.isDone()) {
+                succes.incrementAndGet();
+            } else {
+                attentes.incrementAndGet();
+            }
+            return existant.join();
+        }
+
+        if (existant == null) {
+            echecs.incrementAndGet();
+        } else {
+            reconstructions.incrementAndGet();
+        }
+        try {
+            Champ nouveau = construire(cible, versionCarte);
+            aConstruire.complete(nouveau);
+            return nouveau;
+        } catch (RuntimeException | Error e) {
+            aConstruire.completeExceptionally(e);
+            verrou.lock();
+            try {
+                champs.remove(cible, aConstruire);
+            } finally {
+                verrou.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean estValide(Champ champ, int versionCarte) {
+        return !champ.perime && champ.versionAccessibilite == versionCarte;
+    }
+
+    private Champ construire(int cible, int versionCarte) {
+        int versionEvit = versionEvitement.get();
+        int[] distances = new int[carte.getNbCases()];
+        Arrays.fill(distances, INATTEIGNABLE);
+        int[] file = new int[carte.getNbCases()];
+        int tete = 0;
+        int queue = 0;
+
+        distances[cible] = 0;
+        file[queue++] = cible;
+        while (tete < queue) {
+            int courante = file[tete++];
+            int suivante = distances[courante] + 1;
+            // voisinage symétrique (4-connexité) : BFS depuis la cible = distances vers la cible
+            for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+                int voisin = carte.getVoisin(courante, d);
+                if (voisin != Carte.AUCUN_VOISIN && distances[voisin] == INATTEIGNABLE && !estEvitee(voisin)) {
+                    distances[voisin] = suivante;
+                    file[queue++] = voisin;
+                }
+            }
+        }
+        Champ champ = new Champ(distances, versionCarte);
+        // une case signalée pendant le parcours a pu lui échapper : à refaire à la prochaine demande
+        champ.perime = versionEvitement.get() != versionEvit;
+        return champ;
+    }
+
+    // ========== COMPTEURS ==========
+    public long getNbSucces() {
+        return succes.get();
+    }
+
+    public long getNbEchecs() {
+        return echecs.get();
+    }
+
+    public long getNbReconstructions() {
+        return reconstructions.get();
+    }
+
+    public long getNbAttentes() {
+        return attentes.get();
+    }
+
+    public long getNbInvalidations() {
+        return invalidations.get();
+    }
+
+    public long getNbEvictions() {
+        return evictions.get();
+    }
+
+    public long getNbOublis() {
+        return oublis.get();
+    }
+
+    public int getNbChamps() {
+        verrou.lock();
+        try {
+            return champs.size();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ChampsDistances[champs=%d, succès=%d, attentes=%d, échecs=%d, reconstructions=%d, "
+                + "invalidations=%d, évictions=%d, oublis=%d]", getNbChamps(), getNbSucces(), getNbAttentes(), getNbEchecs(),
+                getNbReconstructions(), getNbInvalidations(), getNbEvictions(), getNbOublis());
+    }
+
+    private static final class Champ {
+
+        final int[] distances;
+        final int versionAccessibilite;
+        volatile boolean perime = false;   // une case atteinte par le champ est désormais à éviter
+
+        Champ(int[] distances, int versionAccessibilite) {
+            this.distances = distances;
+            this.versionAccessibilite = versionAccessibilite;
+        }
+    }
+}
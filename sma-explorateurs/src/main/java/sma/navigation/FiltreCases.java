@@ -0,0 +1,13 @@
+package sma.navigation;
+
+/**
+ * Cases qu'un planificateur doit considérer comme interdites en plus des
+ * obstacles (par exemple les cases à éviter d'un agent cognitif).
+ */
+@FunctionalInterface
+public interface FiltreCases {
+
+    FiltreCases AUCUN = idCase -> false;
+
+    boolean estInterdite(int idCase);
+}
@@ -0,0 +1,11 @@
+package sma.navigation;
+
+/**
+ * Façon dont un agent cognitif se rend vers un trésor connu.
+ */
+public enum ModeNavigation {
+    ASTAR,              // chaque agent planifie son propre chemin (A*)
+    CHAMP_DISTANCES,    // descente d'un champ de distances partagé par tous les agents visant le même trésor
+    HIERARCHIQUE,       // HPA* : chemin abstrait entre portes de zones, raffiné zone par zone
+    INCREMENTAL         // D* Lite par agent : réparation locale quand des cases à éviter sont signalées
+}
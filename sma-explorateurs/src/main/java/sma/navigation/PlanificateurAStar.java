@@ -0,0 +1,154 @@
+package sma.navigation;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import sma.environnement.Carte;
+
+/**
+ * A* sur les identifiants globaux de case, heuristique de Manhattan (celle
+ * de AgentCognitif.calculerDistance). Les tableaux de travail sont pris dans
+ * un réservoir partagé et réutilisés d'un appel à l'autre : au lieu de les
+ * vider, on change de génération et une case n'est considérée comme vue que
+ * si son tampon correspond à la génération courante. Un réservoir plutôt
+ * qu'un ThreadLocal : avec un thread virtuel par agent, il y aurait autant
+ * de jeux de tableaux que d'agents.
+ */
+public final class PlanificateurAStar {
+
+    public static final int[] AUCUN_CHEMIN = new int[0];
+
+    private static final ConcurrentLinkedQueue<Brouillon> BROUILLONS = new ConcurrentLinkedQueue<>();
+
+    private PlanificateurAStar() {
+    }
+
+    /**
+     * Calcule le plus court chemin de depart à arrivee. Le chemin renvoyé ne
+     * contient pas la case de départ et se termine par l'arrivée ; il est vide
+     * si l'arrivée est inaccessible (ou égale au départ).
+     */
+    public static int[] chercher(Carte carte, int depart, int arrivee, FiltreCases interdites) {
+        if (depart == arrivee || !carte.estAccessible(arrivee) || interdites.estInterdite(arrivee)) {
+            return AUCUN_CHEMIN;
+        }
+
+        Brouillon b = prendreBrouillon(carte.getNbCases());
+        int decouvert = b.nouvelleGeneration();
+        int ferme = decouvert + 1;
+        int cote = carte.getCote();
+        int arriveeX = carte.xGlobal(arrivee);
+        int arriveeY = carte.yGlobal(arrivee);
+        TasBinaireIndexe ouverts = b.ouverts;
+
+        b.g[depart] = 0;
+        b.parents[depart] = -1;
+        b.etats[depart] = decouvert;
+        ouverts.inserer(depart, cle(0, heuristique(depart, cote, arriveeX, arriveeY)));
+
+        try {
+            while (!ouverts.estVide()) {
+                int courante = ouverts.extraireMin();
+                if (courante == arrivee) {
+                    return reconstruire(b.parents, b.g[arrivee], arrivee);
+                }
+                b.etats[courante] = ferme;
+
+                int gVoisin = b.g[courante] + 1;
+                // table de voisinage de la carte : passages entre zones et obstacles déjà pris en compte
+                for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+                    int voisin = carte.getVoisin(courante, d);
+                    if (voisin != Carte.AUCUN_VOISIN) {
+                        relacher(b, courante, voisin, gVoisin, decouvert, ferme, interdites, cote, arriveeX, arriveeY);
+                    }
+                }
+            }
+            return AUCUN_CHEMIN;
+        } finally {
+            ouverts.vider();
+            BROUILLONS.offer(b);
+        }
+    }
+
+    private static void relacher(Brouillon b, int courante, int voisin, int gVoisin, int decouvert, int ferme,
+            FiltreCases interdites, int cote, int arriveeX, int arriveeY) {
+        int etat = b.etats[voisin];
+        if (etat == ferme) {
+            return;
+        }
+        if (etat == decouvert) {
+            if (gVoisin >= b.g[voisin]) {
+                return;
+            }
+        } else {
+            if (interdites.estInterdite(voisin)) {
+                b.etats[voisin] = ferme;
+                return;
+            }
+            b.etats[voisin] = decouvert;
+        }
+        b.g[voisin] = gVoisin;
+        b.parents[voisin] = courante;
+        b.ouverts.insererOuDiminuer(voisin, cle(gVoisin, heuristique(voisin, cote, arriveeX, arriveeY)));
+    }
+
+    private static int heuristique(int id, int cote, int arriveeX, int arriveeY) {
+        return Math.abs(id / cote - arriveeX) + Math.abs(id % cote - arriveeY);
+    }
+
+    /**
+     * Clé de priorité : f = g + h sur les 32 bits de poids fort, h en cas
+     * d'égalité (on préfère la case la plus proche de l'arrivée).
+     */
+    private static long cle(int g, int h) {
+        return ((long) (g + h) << 32) | h;
+    }
+
+    private static int[] reconstruire(int[] parents, int longueur, int arrivee) {
+        int[] chemin = new int[longueur];
+        int courant = arrivee;
+        for (int i = longueur - 1; i >= 0; i--) {
+            chemin[i] = courant;
+            courant = parents[courant];
+        }
+        return chemin;
+    }
+
+    private static Brouillon prendreBrouillon(int nbCases) {
+        Brouillon b = BROUILLONS.poll();
+        if (b == null || b.g.length < nbCases) {
+            b = new Brouillon(nbCases); // un brouillon trop petit (autre carte) est abandonné
+        }
+        return b;
+    }
+
+    /**
+     * Tableaux de travail d'une recherche. etats[id] vaut 2*génération si la case
+     * est découverte et 2*génération+1 si elle est fermée ; toute autre valeur
+     * signifie "jamais vue dans cette recherche".
+     */
+    private static final class Brouillon {
+
+        final int[] g;
+        final int[] parents;
+        final int[] etats;
+        final TasBinaireIndexe ouverts;
+        private int generation = 0;
+
+        Brouillon(int nbCases) {
+            this.g = new int[nbCases];
+            this.parents = new int[nbCases];
+            this.etats = new int[nbCases];
+            this.ouverts = new TasBinaireIndexe(nbCases);
+        }
+
+        int nouvelleGeneration() {
+            generation++;
+            if (generation >= Integer.MAX_VALUE / 2) {
+                Arrays.fill(etats, 0);
+                generation = 1;
+            }
+            return generation * 2;
+        }
+    }
+}
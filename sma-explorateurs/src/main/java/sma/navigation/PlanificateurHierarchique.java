@@ -0,0 +1,539 @@
+package sma.navigation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import sma.environnement.Carte;
+import sma.environnement.Zone;
+
+/**
+ * Planificateur hiérarchique (HPA*) : les zones de la carte servent de
+ * clusters. Sur chaque frontière entre deux zones, chaque passage (suite de
+ * cases accessibles des deux côtés) donne une ou deux portes ; les cases
+ * portes forment un graphe abstrait dont les arêtes sont la traversée de la
+ * frontière (coût 1) et les distances intra-zone entre portes d'une même
+ * zone.
+ *
+ * Un trajet lointain est d'abord planifié sur ce graphe, puis seul le
+ * segment jusqu'à la sortie de la zone courante est raffiné en cases (A*).
+ * L'agent replanifie en arrivant dans la zone suivante. Les arêtes d'une zone
+ * ne sont recalculées que si ses obstacles ont changé.
+ */
+public class PlanificateurHierarchique {
+
+    private static final int LONGUEUR_PORTE_DOUBLE = 6; // passage assez long : une porte à chaque extrémité
+    private static final int FRONTIERE_DROITE = 0;
+    private static final int FRONTIERE_BAS = 1;
+
+    private final Carte carte;
+    private final int taille;
+    private final int nbZonesCote;
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    // portes[zone * 2 + frontière] = {a0, b0, a1, b1, ...} : a dans la zone, b dans la zone voisine (droite ou bas)
+    private final int[][] portes;
+    private final Noeud[][] portailsParZone;
+    private final Map<Integer, Noeud> noeuds = new HashMap<>();
+    private Noeud[] parIndex = new Noeud[64];
+    private int prochainIndex = 0;
+    private final ArrayDeque<Integer> indexLibres = new ArrayDeque<>();
+
+    private final int[] versionsConnues;
+    private volatile int versionGlobaleConnue = -1;
+
+    private final AtomicLong planifications = new AtomicLong();
+    private final AtomicLong zonesReconstruites = new AtomicLong();
+
+    private static final ConcurrentLinkedQueue<Brouillon> BROUILLONS = new ConcurrentLinkedQueue<>();
+
+    public PlanificateurHierarchique(Carte carte) {
+        this.carte = carte;
+        this.taille = carte.getTailleZone();
+        this.nbZonesCote = carte.getNbZonesCote();
+        this.portes = new int[carte.getNbZones() * 2][];
+        this.portailsParZone = new Noeud[carte.getNbZones()][];
+        this.versionsConnues = new int[carte.getNbZones()];
+        for (int z = 0; z < portailsParZone.length; z++) {
+            portailsParZone[z] = new Noeud[0];
+        }
+        mettreAJourSiNecessaire();
+    }
+
+    // ========== PLANIFICATION ==========
+    /**
+     * Chemin de depart vers arrivee, limité au segment qui sort de la zone de
+     * départ (la dernière case est l'entrée dans la zone suivante). Pour une
+     * arrivée dans la même zone ou une zone voisine, c'est directement le
+     * chemin A* complet.
+     */
+    public int[] planifier(int depart, int arrivee, FiltreCases interdites) {
+        int zoneDepart = carte.idZoneDe(depart);
+        int zoneArrivee = carte.idZoneDe(arrivee);
+        if (zonesProches(zoneDepart, zoneArrivee)) {
+            return PlanificateurAStar.chercher(carte, depart, arrivee, interdites);
+        }
+        planifications.incrementAndGet();
+        mettreAJourSiNecessaire();
+
+        long porte;
+        verrou.readLock().lock();
+        try {
+            porte = chercherPorteDeSortie(depart, zoneDepart, arrivee, zoneArrivee);
+        } finally {
+            verrou.readLock().unlock();
+        }
+        if (porte < 0) {
+            return PlanificateurAStar.AUCUN_CHEMIN;
+        }
+
+        int sortie = (int) (porte >>> 32);
+        int entree = (int) porte;
+        int[] segment = PlanificateurAStar.chercher(carte, depart, sortie, interdites);
+        if ((segment.length == 0 && sortie != depart) || interdites.estInterdite(entree)) {
+            // le graphe abstrait ignore les cases à éviter de l'agent : repli sur le chemin complet
+            return PlanificateurAStar.chercher(carte, depart, arrivee, interdites);
+        }
+        int[] chemin = Arrays.copyOf(segment, segment.length + 1);
+        chemin[segment.length] = entree;
+        return chemin;
+    }
+
+    private boolean zonesProches(int zoneA, int zoneB) {
+        return Math.abs(zoneA / nbZonesCote - zoneB / nbZonesCote) <= 1
+                && Math.abs(zoneA % nbZonesCote - zoneB % nbZonesCote) <= 1;
+    }
+
+    /**
+     * A* sur le graphe abstrait. Le départ est relié à toutes les portes de sa
+     * zone et l'arrivée à celles de la sienne par un BFS limité à la zone.
+     * Renvoie (sortie << 32 | entrée) pour la première traversée de frontière,
+     * ou -1 si l'arrivée est inatteignable.
+     */
+    private long chercherPorteDeSortie(int depart, int zoneDepart, int arrivee, int zoneArrivee) {
+        int[] distDepart = bfsDansZone(depart, zoneDepart);
+        int[] distArrivee = bfsDansZone(arrivee, zoneArrivee);
+        Zone zD = carte.getZoneById(zoneDepart);
+        Zone zA = carte.getZoneById(zoneArrivee);
+        int arriveeX = carte.xGlobal(arrivee);
+        int arriveeY = carte.yGlobal(arrivee);
+
+        Brouillon b = prendreBrouillon(prochainIndex);
+        int decouvert = b.nouvelleGeneration();
+        int ferme = decouvert + 1;
+        TasBinaireIndexe ouverts = b.ouverts;
+
+        for (Noeud p : portailsParZone[zoneDepart]) {
+            int d = distDepart[zD.indexLocal(p.idCase)];
+            if (d >= 0) {
+                b.g[p.index] = d;
+                b.parents[p.index] = -1;
+                b.etats[p.index] = decouvert;
+                ouverts.insererOuDiminuer(p.index, cle(d, heuristique(p.idCase, arriveeX, arriveeY)));
+            }
+        }
+
+        int meilleur = Integer.MAX_VALUE;
+        int meilleurIndex = -1;
+        try {
+            while (!ouverts.estVide() && (ouverts.cleMin() >>> 32) < meilleur) {
+                int i = ouverts.extraireMin();
+                b.etats[i] = ferme;
+                Noeud n = parIndex[i];
+                int g = b.g[i];
+                if (n.idZone == zoneArrivee) {
+                    int dA = distArrivee[zA.indexLocal(n.idCase)];
+                    if (dA >= 0 && g + dA < meilleur) {
+                        meilleur = g + dA;
+                        meilleurIndex = i;
+                    }
+                }
+                for (int k = 0; k < n.voisins.length; k++) {
+                    Noeud v = n.voisins[k];
+                    int gv = g + n.couts[k];
+                    int etat = b.etats[v.index];
+                    if (etat == ferme || (etat == decouvert && gv >= b.g[v.index])) {
+                        continue;
+                    }
+                    b.etats[v.index] = decouvert;
+                    b.g[v.index] = gv;
+                    b.parents[v.index] = i;
+                    ouverts.insererOuDiminuer(v.index, cle(gv, heuristique(v.idCase, arriveeX, arriveeY)));
+                }
+            }
+        } finally {
+            ouverts.vider();
+        }
+        if (meilleurIndex < 0) {
+            BROUILLONS.offer(b);
+            return -1;
+        }
+
+        // première traversée de frontière depuis la zone de départ le long de la chaîne de portes
+        long porte = -1;
+        int courant = meilleurIndex;
+        while (b.parents[courant] != -1) {
+            int precedent = b.parents[courant];
+            if (parIndex[precedent].idZone == zoneDepart && parIndex[courant].idZone != zoneDepart) {
+                porte = ((long) parIndex[precedent].idCase << 32) | parIndex[courant].idCase;
+            }
+            courant = precedent;
+        }
+        BROUILLONS.offer(b);
+        return porte;
+    }
+
+    private int heuristique(int idCase, int arriveeX, int arriveeY) {
+        return Math.abs(carte.xGlobal(idCase) - arriveeX) + Math.abs(carte.yGlobal(idCase) - arriveeY);
+    }
+
+    private static long cle(int g, int h) {
+        return ((long) (g + h) << 32) | h;
+    }
+
+    /**
+     * Distances (index locaux de la zone) depuis une case, sans sortir de la
+     * zone. -1 pour les cases inatteignables.
+     */
+    private int[] bfsDansZone(int source, int idZone) {
+        Zone zone = carte.getZoneById(idZone);
+        int[] distances = new int[taille * taille];
+        Arrays.fill(distances, -1);
+        int[] file = new int[taille * taille];
+        int tete = 0;
+        int queue = 0;
+        int origineX = zone.getZoneX() * taille;
+        int origineY = zone.getZoneY() * taille;
+
+        distances[zone.indexLocal(source)] = 0;
+        file[queue++] = source;
+        while (tete < queue) {
+            int courante = file[tete++];
+            int dSuivante = distances[zone.indexLocal(courante)] + 1;
+            for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+                int voisin = carte.getVoisin(courante, d);
+                if (voisin == Carte.AUCUN_VOISIN) {
+                    continue;
+                }
+                int lx = carte.xGlobal(voisin) - origineX;
+                int ly = carte.yGlobal(voisin) - origineY;
+                if (lx < 0 || lx >= taille || ly < 0 || ly >= taille) {
+                    continue;
+                }
+                int local = lx * taille + ly;
+                if (distances[local] < 0) {
+                    distances[local] = dSuivante;
+                    file[queue++] = voisin;
+                }
+            }
+        }
+        return distances;
+    }
+
+    // ========== GRAPHE ABSTRAIT ==========
+    private void mettreAJourSiNecessaire() {
+        int versionGlobale = carte.getVersionAccessibilite();
+        if (versionGlobale == versionGlobaleConnue) {
+            return;
+        }
+        verrou.writeLock().lock();
+        try {
+            if (versionGlobale == versionGlobaleConnue) {
+                return;
+            }
+            boolean premiereConstruction = versionGlobaleConnue == -1;
+            boolean[] sales = new boolean[portailsParZone.length];
+            for (int z = 0; z < sales.length; z++) {
+                int version = carte.getVersionAccessibilite(z);
+                if (premiereConstruction || version != versionsConnues[z]) {
+                    sales[z] = true;
+                    versionsConnues[z] = version;
+                }
+            }
+            reconstruire(sales);
+            versionGlobaleConnue = versionGlobale;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private void reconstruire(boolean[] sales) {
+        // 1. portes des frontières qui touchent une zone modifiée
+        boolean[] aRefaire = new boolean[sales.length];
+        for (int z = 0; z < sales.length; z++) {
+            if (!sales[z]) {
+                continue;
+            }
+            int zx = z / nbZonesCote;
+            int zy = z % nbZonesCote;
+            aRefaire[z] = true;
+            calculerPortes(z, FRONTIERE_DROITE);
+            calculerPortes(z, FRONTIERE_BAS);
+            if (zx > 0) {
+                calculerPortes(z - nbZonesCote, FRONTIERE_DROITE);
+                aRefaire[z - nbZonesCote] = true;
+            }
+            if (zy > 0) {
+                calculerPortes(z - 1, FRONTIERE_BAS);
+                aRefaire[z - 1] = true;
+            }
+            if (zx < nbZonesCote - 1) {
+                aRefaire[z + nbZonesCote] = true;
+            }
+            if (zy < nbZonesCote - 1) {
+                aRefaire[z + 1] = true;
+            }
+        }
+
+        // 2. portails (nœuds) des zones concernées
+        for (int z = 0; z < aRefaire.length; z++) {
+            if (aRefaire[z]) {
+                recalculerPortails(z);
+            }
+        }
+
+        // 3. arêtes intra-zone et traversées de frontière
+        for (int z = 0; z < aRefaire.length; z++) {
+            if (aRefaire[z]) {
+                recalculerAretes(z);
+                zonesReconstruites.incrementAndGet();
+            }
+        }
+    }
+
+    private void calculerPortes(int z, int frontiere) {
+        int zx = z / nbZonesCote;
+        int zy = z % nbZonesCote;
+        boolean versDroite = frontiere == FRONTIERE_DROITE;
+        if ((versDroite && zx == nbZonesCote - 1) || (!versDroite && zy == nbZonesCote - 1)) {
+            portes[z * 2 + frontiere] = new int[0];
+            return;
+        }
+
+        List<Integer> paires = new ArrayList<>();
+        int debutPassage = -1;
+        for (int k = 0; k <= taille; k++) {
+            boolean ouvert = false;
+            int a = -1;
+            int b = -1;
+            if (k < taille) {
+                a = versDroite ? carte.idCase(zx * taille + taille - 1, zy * taille + k)
+                        : carte.idCase(zx * taille + k, zy * taille + taille - 1);
+                b = carte.getVoisin(a, versDroite ? Carte.DROITE : Carte.BAS);
+                ouvert = carte.estAccessible(a) && b != Carte.AUCUN_VOISIN;
+            }
+            if (ouvert && debutPassage < 0) {
+                debutPassage = k;
+            } else if (!ouvert && debutPassage >= 0) {
+                int fin = k - 1;
+                if (fin - debutPassage + 1 >= LONGUEUR_PORTE_DOUBLE) {
+                    ajouterPaire(paires, zx, zy, debutPassage, versDroite);
+                    ajouterPaire(paires, zx, zy, fin, versDroite);
+                } else {
+                    ajouterPaire(paires, zx, zy, (debutPassage + fin) / 2, versDroite);
+                }
+                debutPassage = -1;
+            }
+        }
+        int[] tableau = new int[paires.size()];
+        for (int i = 0; i < tableau.length; i++) {
+            tableau[i] = paires.get(i);
+        }
+        portes[z * 2 + frontiere] = tableau;
+    }
+
+    private void ajouterPaire(List<Integer> paires, int zx, int zy, int k, boolean versDroite) {
+        int a = versDroite ? carte.idCase(zx * taille + taille - 1, zy * taille + k)
+                : carte.idCase(zx * taille + k, zy * taille + taille - 1);
+        paires.add(a);
+        paires.add(carte.getVoisin(a, versDroite ? Carte.DROITE : Carte.BAS));
+    }
+
+    /**
+     * Appelle action(caseDansLaZone, caseDeLAutreCote) pour chaque porte des
+     * quatre frontières de la zone.
+     */
+    private void pourChaquePorte(int z, ActionPorte action) {
+        int zx = z / nbZonesCote;
+        int zy = z % nbZonesCote;
+        for (int frontiere = 0; frontiere < 2; frontiere++) {
+            int[] p = portes[z * 2 + frontiere];
+            for (int i = 0; p != null && i < p.length; i += 2) {
+                action.accepter(p[i], p[i + 1]);
+            }
+        }
+        if (zx > 0) {
+            int[] p = portes[(z - nbZonesCote) * 2 + FRONTIERE_DROITE];
+            for (int i = 0; p != null && i < p.length; i += 2) {
+                action.accepter(p[i + 1], p[i]);
+            }
+        }
+        if (zy > 0) {
+            int[] p = portes[(z - 1) * 2 + FRONTIERE_BAS];
+            for (int i = 0; p != null && i < p.length; i += 2) {
+                action.accepter(p[i + 1], p[i]);
+            }
+        }
+    }
+
+    private void recalculerPortails(int z) {
+        Set<Integer> cases = new LinkedHashSet<>();
+        pourChaquePorte(z, (dedans, dehors) -> cases.add(dedans));
+
+        for (Noeud ancien : portailsParZone[z]) {
+            if (!cases.contains(ancien.idCase)) {
+                noeuds.remove(ancien.idCase);
+                parIndex[ancien.index] = null;
+                indexLibres.push(ancien.index);
+            }
+        }
+        Noeud[] portails = new Noeud[cases.size()];
+        int i = 0;
+        for (int idCase : cases) {
+            Noeud n = noeuds.get(idCase);
+            if (n == null) {
+                n = new Noeud(idCase, z, nouvelIndex());
+                noeuds.put(idCase, n);
+                parIndex[n.index] = n;
+            }
+            portails[i++] = n;
+        }
+        portailsParZone[z] = portails;
+    }
+
+    private int nouvelIndex() {
+        if (!indexLibres.isEmpty()) {
+            return indexLibres.pop();
+        }
+        if (prochainIndex == parIndex.length) {
+            parIndex = Arrays.copyOf(parIndex, parIndex.length * 2);
+        }
+        return prochainIndex++;
+    }
+
+    private void recalculerAretes(int z) {
+        Noeud[] portails = portailsParZone[z];
+        Zone zone = carte.getZoneById(z);
+        for (Noeud n : portails) {
+            List<Noeud> voisins = new ArrayList<>();
+            List<Integer> couts = new ArrayList<>();
+
+            int[] distances = bfsDansZone(n.idCase, z);
+            for (Noeud autre : portails) {
+                int d = distances[zone.indexLocal(autre.idCase)];
+                if (autre != n && d > 0) {
+                    voisins.add(autre);
+                    couts.add(d);
+                }
+            }
+            pourChaquePorte(z, (dedans, dehors) -> {
+                if (dedans == n.idCase) {
+                    voisins.add(noeuds.get(dehors));
+                    couts.add(1);
+                }
+            });
+
+            Noeud[] tabVoisins = voisins.toArray(new Noeud[0]);
+            int[] tabCouts = new int[couts.size()];
+            for (int i = 0; i < tabCouts.length; i++) {
+                tabCouts[i] = couts.get(i);
+            }
+            n.modifierAretes(tabVoisins, tabCouts);
+        }
+    }
+
+    // ========== STATISTIQUES ==========
+    public int getNbPortails() {
+        verrou.readLock().lock();
+        try {
+            return noeuds.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public long getNbPlanifications() {
+        return planifications.get();
+    }
+
+    public long getNbZonesReconstruites() {
+        return zonesReconstruites.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PlanificateurHierarchique[portails=%d, planifications=%d, zones reconstruites=%d]",
+                getNbPortails(), getNbPlanifications(), getNbZonesReconstruites());
+    }
+
+    @FunctionalInterface
+    private interface ActionPorte {
+
+        void accepter(int caseDansLaZone, int caseVoisine);
+    }
+
+    private static final class Noeud {
+
+        final int idCase;
+        final int idZone;
+        final int index;
+        Noeud[] voisins = new Noeud[0];
+        int[] couts = new int[0];
+
+        Noeud(int idCase, int idZone, int index) {
+            this.idCase = idCase;
+            this.idZone = idZone;
+            this.index = index;
+        }
+
+        void modifierAretes(Noeud[] voisins, int[] couts) {
+            this.couts = couts;
+            this.voisins = voisins;
+        }
+    }
+
+    private static Brouillon prendreBrouillon(int capacite) {
+        Brouillon b = BROUILLONS.poll();
+        if (b == null || b.g.length < capacite) {
+            b = new Brouillon(Math.max(capacite, 64) * 2);
+        }
+        return b;
+    }
+
+    /**
+     * Tableaux de travail d'une recherche indexés par l'index des nœuds, avec
+     * tampons de génération et réservoir partagé comme dans PlanificateurAStar.
+     */
+    private static final class Brouillon {
+
+        final int[] g;
+        final int[] parents;
+        final int[] etats;
+        final TasBinaireIndexe ouverts;
+        private int generation = 0;
+
+        Brouillon(int capacite) {
+            this.g = new int[capacite];
+            this.parents = new int[capacite];
+            this.etats = new int[capacite];
+            this.ouverts = new TasBinaireIndexe(capacite);
+        }
+
+        int nouvelleGeneration() {
+            generation++;
+            if (generation >= Integer.MAX_VALUE / 2) {
+                Arrays.fill(etats, 0);
+                generation = 1;
+            }
+            return generation * 2;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package sma.navigation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sma.environnement.Carte;
+
+/**
+ * D* Lite : recherche incrémentale propre à un agent et à une destination.
+ * La recherche part de la destination vers l'agent ; quand l'agent avance ou
+ * qu'une case devient interdite (animal signalé), seuls les sommets dont la
+ * distance change sont réparés au lieu de refaire toute la recherche.
+ *
+ * Les états ne sont créés que pour les cases touchées par la recherche. Un
+ * changement d'obstacles sur la carte (rare) provoque une remise à zéro.
+ */
+public class ReplanificateurIncremental {
+
+    private static final int INFINI = Integer.MAX_VALUE / 4;
+    private static final long HORS_FILE = -1L;
+
+    private final Carte carte;
+    private final int arrivee;
+    private final FiltreCases interdites;
+
+    private final Map<Integer, Etat> etats = new HashMap<>();
+    private final FileCles ouverts = new FileCles();
+    private final List<Integer> casesAReparer = new ArrayList<>();
+
+    private int depart = -1;
+    private int dernierDepart = -1;
+    private int km = 0;
+    private int versionCarte;
+    private long expansions = 0;
+
+    public ReplanificateurIncremental(Carte carte, int arrivee, FiltreCases interdites) {
+        this.carte = carte;
+        this.arrivee = arrivee;
+        this.interdites = interdites;
+    }
+
+    public int getArrivee() {
+        return arrivee;
+    }
+
+    /**
+     * Nombre total de sommets sortis de la file depuis la création.
+     */
+    public long getNbExpansions() {
+        return expansions;
+    }
+
+    /**
+     * La case vient d'être ajoutée aux cases interdites : ses voisins seront
+     * réparés au prochain appel de chemin().
+     */
+    public void signalerCaseInterdite(int idCase) {
+        casesAReparer.add(idCase);
+    }
+
+    /**
+     * Plus court chemin de depart à la destination, même convention que
+     * PlanificateurAStar.chercher (sans la case de départ, vide si aucun).
+     */
+    public int[] chemin(int nouveauDepart) {
+        if (nouveauDepart == arrivee || !carte.estAccessible(arrivee) || interdites.estInterdite(arrivee)) {
+            return PlanificateurAStar.AUCUN_CHEMIN;
+        }
+        if (depart < 0 || carte.getVersionAccessibilite() != versionCarte) {
+            reinitialiser(nouveauDepart);
+        } else if (nouveauDepart != depart) {
+            // l'agent a bougé : les clés déjà en file restent valides à km près
+            depart = nouveauDepart;
+            km += heuristique(dernierDepart, depart);
+            dernierDepart = depart;
+        }
+
+        for (int idCase : casesAReparer) {
+            for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+                int voisin = carte.getVoisin(idCase, d);
+                if (voisin != Carte.AUCUN_VOISIN) {
+                    mettreAJourSommet(voisin);
+                }
+            }
+        }
+        casesAReparer.clear();
+
+        calculerPlusCourtChemin();
+        return extraireChemin();
+    }
+
+    private void reinitialiser(int nouveauDepart) {
+        etats.clear();
+        ouverts.vider();
+        casesAReparer.clear();
+        versionCarte = carte.getVersionAccessibilite();
+        depart = nouveauDepart;
+        dernierDepart = nouveauDepart;
+        km = 0;
+
+        Etat but = etat(arrivee);
+        but.rhs = 0;
+        but.cle = cle(arrivee, but);
+        ouverts.ajouter(but.cle, arrivee);
+    }
+
+    private void calculerPlusCourtChemin() {
+        Etat etatDepart = etat(depart);
+        while (true) {
+            int u = sommetValide();
+            if (u < 0) {
+                return;
+            }
+            long cleMin = ouverts.cleMin();
+            if (cleMin >= cle(depart, etatDepart) && etatDepart.rhs == etatDepart.g) {
+                return;
+            }
+            ouverts.retirerMin();
+            expansions++;
+
+            Etat e = etats.get(u);
+            long nouvelle = cle(u, e);
+            if (cleMin < nouvelle) {
+                e.cle = nouvelle;
+                ouverts.ajouter(nouvelle, u);
+            } else if (e.g > e.rhs) {
+                e.g = e.rhs;
+                e.cle = HORS_FILE;
+                mettreAJourPredecesseurs(u);
+            } else {
+                e.g = INFINI;
+                mettreAJourSommet(u);
+                mettreAJourPredecesseurs(u);
+            }
+        }
+    }
+
+    /**
+     * Retire les entrées périmées du sommet de la file et renvoie la case du
+     * minimum courant, ou -1 si la file est vide.
+     */
+    private int sommetValide() {
+        while (!ouverts.estVide()) {
+            int u = ouverts.idMin();
+            Etat e = etats.get(u);
+            if (e != null && e.cle == ouverts.cleMin()) {
+                return u;
+            }
+            ouverts.retirerMin();
+        }
+        return -1;
+    }
+
+    private void mettreAJourPredecesseurs(int u) {
+        // voisinage symétrique : les prédécesseurs de u sont ses voisins
+        for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+            int voisin = carte.getVoisin(u, d);
+            if (voisin != Carte.AUCUN_VOISIN) {
+                mettreAJourSommet(voisin);
+            }
+        }
+    }
+
+    private void mettreAJourSommet(int u) {
+        Etat e = etat(u);
+        if (u != arrivee) {
+            e.rhs = meilleurSuccesseur(u);
+        }
+        if (e.g != e.rhs) {
+            e.cle = cle(u, e);
+            ouverts.ajouter(e.cle, u);
+        } else {
+            e.cle = HORS_FILE;
+        }
+    }
+
+    /**
+     * min sur les voisins praticables de g(voisin) + 1 (rhs de D* Lite).
+     */
+    private int meilleurSuccesseur(int u) {
+        int meilleur = INFINI;
+        for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+            int voisin = carte.getVoisin(u, d);
+            if (voisin != Carte.AUCUN_VOISIN && !interdites.estInterdite(voisin)) {
+                Etat ev = etats.get(voisin);
+                if (ev != null && ev.g + 1 < meilleur) {
+                    meilleur = ev.g + 1;
+                }
+            }
+        }
+        return meilleur;
+    }
+
+    private int[] extraireChemin() {
+        Etat etatDepart = etats.get(depart);
+        if (etatDepart == null || etatDepart.g >= INFINI) {
+            return PlanificateurAStar.AUCUN_CHEMIN;
+        }
+        int[] chemin = new int[etatDepart.g];
+        int courant = depart;
+        for (int i = 0; i < chemin.length; i++) {
+            int suivant = Carte.AUCUN_VOISIN;
+            int gMin = INFINI;
+            for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+                int voisin = carte.getVoisin(courant, d);
+                if (voisin == Carte.AUCUN_VOISIN || interdites.estInterdite(voisin)) {
+                    continue;
+                }
+                Etat ev = etats.get(voisin);
+                if (ev != null && ev.g < gMin) {
+                    gMin = ev.g;
+                    suivant = voisin;
+                }
+            }
+            if (suivant == Carte.AUCUN_VOISIN) {
+                return PlanificateurAStar.AUCUN_CHEMIN;
+            }
+            chemin[i] = suivant;
+            courant = suivant;
+        }
+        return courant == arrivee ? chemin : PlanificateurAStar.AUCUN_CHEMIN;
+    }
+
+    /**
+     * Clé (min(g, rhs) + h + km, min(g, rhs)) rangée dans un long pour une
+     * comparaison lexicographique directe.
+     */
+    private long cle(int u, Etat e) {
+        int m = Math.min(e.g, e.rhs);
+        return ((long) (m + heuristique(depart, u) + km) << 32) | m;
+    }
+
+    private int heuristique(int a, int b) {
+        return Math.abs(carte.xGlobal(a) - carte.xGlobal(b)) + Math.abs(carte.yGlobal(a) - carte.yGlobal(b));
+    }
+
+    private Etat etat(int idCase) {
+        Etat e = etats.get(idCase);
+        if (e == null) {
+            e = new Etat();
+            etats.put(idCase, e);
+        }
+        return e;
+    }
+
+    private static final class Etat {
+
+        int g = INFINI;
+        int rhs = INFINI;
+        long cle = HORS_FILE;   // clé de l'entrée valide dans la file, HORS_FILE sinon
+    }
+
+    /**
+     * Tas binaire (clé, case) à suppression paresseuse : une case peut y
+     * figurer plusieurs fois, seule l'entrée dont la clé correspond à
+     * Etat.cle est valide.
+     */
+    private static final class FileCles {
+
+        private long[] cles = new long[64];
+        private int[] ids = new int[64];
+        private int taille = 0;
+
+        boolean estVide() {
+            return taille == 0;
+        }
+
+        long cleMin() {
+            return cles[0];
+        }
+
+        int idMin() {
+            return ids[0];
+        }
+
+        void vider() {
+            taille = 0;
+        }
+
+        void ajouter(long cle, int id) {
+            if (taille == cles.length) {
+                cles = Arrays.copyOf(cles, taille * 2);
+                ids = Arrays.copyOf(ids, taille * 2);
+            }
+            int i = taille++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (cles[parent] <= cle) {
+                    break;
+                }
+                cles[i] = cles[parent];
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            cles[i] = cle;
+            ids[i] = id;
+        }
+
+        void retirerMin() {
+            taille--;
+            if (taille == 0) {
+                return;
+            }
+            long cle = cles[taille];
+            int id = ids[taille];
+            int i = 0;
+            while (true) {
+                int enfant = 2 * i + 1;
+                if (enfant >= taille) {
+                    break;
+                }
+                if (enfant + 1 < taille && cles[enfant + 1] < cles[enfant]) {
+                    enfant++;
+                }
+                if (cle <= cles[enfant]) {
+                    break;
+                }
+                cles[i] = cles[enfant];
+                ids[i] = ids[enfant];
+                i = enfant;
+            }
+            cles[i] = cle;
+            ids[i] = id;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package sma.navigation;
+
+import java.util.Arrays;
+
+/**
+ * Tas binaire min indexé sur des identifiants entiers [0, capacite) : chaque
+ * id est présent au plus une fois et sa clé peut être diminuée en O(log n).
+ * Aucune allocation après la construction.
+ */
+public class TasBinaireIndexe {
+
+    private final int[] tas;        // ids rangés en tas
+    private final long[] cles;      // clé de chaque emplacement du tas
+    private final int[] positions;  // position de chaque id dans le tas, -1 si absent
+    private int taille = 0;
+
+    public TasBinaireIndexe(int capacite) {
+        this.tas = new int[capacite];
+        this.cles = new long[capacite];
+        this.positions = new int[capacite];
+        Arrays.fill(positions, -1);
+    }
+
+    public int getCapacite() {
+        return positions.length;
+    }
+
+    public boolean estVide() {
+        return taille == 0;
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    public boolean contient(int id) {
+        return positions[id] >= 0;
+    }
+
+    public void inserer(int id, long cle) {
+        int i = taille++;
+        tas[i] = id;
+        cles[i] = cle;
+        positions[id] = i;
+        remonter(i);
+    }
+
+    /**
+     * Insère l'id ou diminue sa clé s'il est déjà présent (sans effet si la
+     * nouvelle clé n'est pas plus petite).
+     */
+    public void insererOuDiminuer(int id, long cle) {
+        int i = positions[id];
+        if (i < 0) {
+            inserer(id, cle);
+        } else if (cle < cles[i]) {
+            cles[i] = cle;
+            remonter(i);
+        }
+    }
+
+    public long cleMin() {
+        return cles[0];
+    }
+
+    public int extraireMin() {
+        int min = tas[0];
+        positions[min] = -1;
+        taille--;
+        if (taille > 0) {
+            tas[0] = tas[taille];
+            cles[0] = cles[taille];
+            positions[tas[0]] = 0;
+            descendre(0);
+        }
+        return min;
+    }
+
+    /**
+     * Vide le tas en O(nombre d'éléments restants).
+     */
+    public void vider() {
+        for (int i = 0; i < taille; i++) {
+            positions[tas[i]] = -1;
+        }
+        taille = 0;
+    }
+
+    private void remonter(int i) {
+        int id = tas[i];
+        long cle = cles[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (cles[parent] <= cle) {
+                break;
+            }
+            placer(i, tas[parent], cles[parent]);
+            i = parent;
+        }
+        placer(i, id, cle);
+    }
+
+    private void descendre(int i) {
+        int id = tas[i];
+        long cle = cles[i];
+        int moitie = taille >>> 1;
+        while (i < moitie) {
+            int enfant = 2 * i + 1;
+            if (enfant + 1 < taille && cles[enfant + 1] < cles[enfant]) {
+                enfant++;
+            }
+            if (cle <= cles[enfant]) {
+                break;
+            }
+            placer(i, tas[enfant], cles[enfant]);
+            i = enfant;
+        }
+        placer(i, id, cle);
+    }
+
+    private void placer(int i, int id, long cle) {
+        tas[i] = id;
+        cles[i] = cle;
+        positions[id] = i;
+    }
+}
@@ -1,6 +1,10 @@
 package sma.objets;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import sma.agents.Agent;
+import sma.environnement.Carte;
 
 /**
  * Classe abstraite pour tous les objets passifs Par ailleurs remarque
@@ -9,18 +13,77 @@ import sma.agents.Agent;
  */
 public abstract class ObjetPassif {
 
-    private static int compteurId = 0;
-    protected final int id;
+    protected int id = 0;           // attribué par la simulation à la première pose
+    protected Carte carte;          // carte sur laquelle l'objet est posé (null tant qu'il n'est pas placé)
+    protected int idCase = -1;
+
+    // Réclamation : un seul agent peut prendre l'objet, même depuis des threads différents
+    private final AtomicReference<Agent> reclamant = new AtomicReference<>();
+    private final AtomicInteger reclamationsPerdues = new AtomicInteger();   // CAS perdu face à un autre agent
+    private final AtomicInteger reclamationsTardives = new AtomicInteger();  // objet déjà pris à l'arrivée
 
     public ObjetPassif() {
-        compteurId++;
-        this.id = compteurId;
     }
 
     public int getId() {
         return id;
     }
 
+    public int getIdCase() {
+        return idCase;
+    }
+
+    /**
+     * Appelé par la Carte quand l'objet est posé sur (ou retiré de) une case.
+     */
+    public void poser(Carte carte, int idCase) {
+        if (id == 0 && carte != null) {
+            id = carte.prochainIdObjet();
+        }
+        this.carte = carte;
+        this.idCase = idCase;
+    }
+
+    // ========== RÉCLAMATION ==========
+    /**
+     * Tente de prendre l'objet pour l'agent. Exactement un agent obtient true ;
+     * les autres sont comptés comme perdants (course) ou tardifs.
+     */
+    public boolean reclamer(Agent agent) {
+        if (reclamant.get() != null) {
+            reclamationsTardives.incrementAndGet();
+            return false;
+        }
+        if (reclamant.compareAndSet(null, agent)) {
+            return true;
+        }
+        reclamationsPerdues.incrementAndGet();
+        return false;
+    }
+
+    public boolean estReclame() {
+        return reclamant.get() != null;
+    }
+
+    /**
+     * Agent qui a gagné la réclamation, null si l'objet est libre.
+     */
+    public Agent getReclamant() {
+        return reclamant.get();
+    }
+
+    public int getNbReclamationsGagnees() {
+        return estReclame() ? 1 : 0;
+    }
+
+    public int getNbReclamationsPerdues() {
+        return reclamationsPerdues.get();
+    }
+
+    public int getNbReclamationsTardives() {
+        return reclamationsTardives.get();
+    }
+
     /**
      * Partie du cours R/A : définir relation ou interaction entre objet et
      * agent .. Action quand un agent entre sur la case. Chaque type d'objet
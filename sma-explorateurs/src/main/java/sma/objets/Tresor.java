@@ -9,12 +9,10 @@ import sma.agents.Agent;
 public class Tresor extends ObjetPassif {
     
     private final int valeur;
-    private boolean collecte;
 
     public Tresor(int valeur) {
         super();
         this.valeur = valeur;
-        this.collecte = false;
     }
 
     public int getValeur() {
@@ -22,19 +20,22 @@ public class Tresor extends ObjetPassif {
     }
 
     public boolean isCollecte() {
-        return collecte;
+        return estReclame();
     }
 
     @Override
     public void interagir(Agent agent) {
-        if (!collecte) {
-            collecte = true;
+        if (reclamer(agent)) { // un seul gagnant, même si deux threads entrent en même temps
+            if (carte != null) {
+                carte.signalerTresorCollecte(idCase); // tenir à jour les compteurs de trésors restants
+            }
             agent.collectTresor(this); // si agent collecte trésor , ajouter cette instance de trésor dans la liste des trésor de l'agent en question 
         }
     }
 
     @Override //pas obligatoire mais généré automatiquement 
     public String toString() {
-        return String.format("Tresor[id=%d, valeur=%d, collecté=%b]", id, valeur, collecte);
+        return String.format("Tresor[id=%d, valeur=%d, collecté=%b, courses perdues=%d]",
+                id, valeur, isCollecte(), getNbReclamationsPerdues());
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package sma.simulation;
+
+import sma.agents.Agent;
+import sma.concurrent.FabriqueThreads;
+import sma.concurrent.RapportVirtuels;
+import sma.navigation.ModeNavigation;
+
+/**
+ * Compare le débit (ticks par seconde) des deux modes d'exécution sur le
+ * même scénario (même graine de placement). En mode THREAD_PAR_AGENT, un
+ * tick = un pas moyen par agent. Le mode à threads virtuels est mesuré pour
+ * chaque mode de navigation (sauf si un mode est imposé), chaque mesure
+ * suivie d'un rapport d'épinglage et d'utilisation des threads porteurs :
+ * les verrous du cache de champs, du planificateur hiérarchique et des
+ * zones des communicants y passent tous.
+ *
+ * Usage : ComparaisonModes [durée s] [zones par côté] [taille zone] [agents par type] [graine] [navigation]
+ */
+public class ComparaisonModes {
+
+    public static void main(String[] args) throws InterruptedException {
+        int duree = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int nbZonesCote = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tailleZone = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int nbAgents = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        long graine = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        ModeNavigation navigationImposee = args.length > 5 ? ModeNavigation.valueOf(args[5]) : null;
+
+        SimulationConfig base = SimulationConfig.DEFAUT
+                .avecCarte(nbZonesCote, tailleZone)
+                .avecAgents(nbAgents, nbAgents, Math.min(nbAgents, nbZonesCote * nbZonesCote - 1))
+                .avecGraine(graine)
+                .avecTraces(false); // les traces des agents fausseraient la mesure
+        if (navigationImposee != null) {
+            base = base.avecNavigation(navigationImposee);
+        }
+
+        System.out.printf("scénario : %dx%d zones de %d, %d agents par type, graine %d, %d s%n",
+                nbZonesCote, nbZonesCote, tailleZone, nbAgents, graine, duree);
+        for (ModeExecution mode : ModeExecution.values()) {
+            SimulationConfig config = base.avecExecution(mode, base.getNbThreadsTicks(), 0);
+            if (mode != ModeExecution.THREAD_VIRTUEL_PAR_AGENT) {
+                System.out.printf("%-24s %10.1f ticks/s%n", mode, mesurer(config, duree));
+                continue;
+            }
+            if (!FabriqueThreads.threadsVirtuelsDisponibles()) {
+                System.out.printf("%-24s indisponible (JDK 21+ requis)%n", mode);
+                continue;
+            }
+            ModeNavigation[] navigations = navigationImposee != null
+                    ? new ModeNavigation[] { navigationImposee } : ModeNavigation.values();
+            for (ModeNavigation navigation : navigations) {
+                RapportVirtuels rapport = new RapportVirtuels();
+                rapport.demarrer();
+                double debit = mesurer(config.avecNavigation(navigation), duree);
+                System.out.printf("%-24s %10.1f ticks/s (navigation %s)%n", mode, debit, navigation);
+                System.out.print(rapport.arreter());
+            }
+        }
+    }
+
+    private static double mesurer(SimulationConfig config, int duree) throws InterruptedException {
+        Simulation simulation = new Simulation(config);
+        long debut = System.nanoTime();
+        simulation.demarrer();
+        long limite = debut + duree * 1_000_000_000L;
+        while (simulation.isRunning() && System.nanoTime() < limite) {
+            Thread.sleep(50);
+        }
+        if (simulation.getModeExecution().estParTicks()) {
+            double debit = simulation.getMoteurTicks().getTicksParSeconde();
+            simulation.arreter();
+            return debit;
+        }
+        simulation.arreter();
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        long pas = 0;
+        for (Agent agent : simulation.getAgents()) {
+            pas += agent.getStats().getIterations();
+        }
+        return pas / (double) simulation.getAgents().size() / secondes;
+    }
+}
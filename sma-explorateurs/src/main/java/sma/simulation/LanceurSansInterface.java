@@ -0,0 +1,200 @@
+package sma.simulation;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+import sma.agents.Agent;
+import sma.agents.AgentStats;
+import sma.messaging.BusZones;
+import sma.messaging.TableauNoir;
+
+/**
+ * Lance une simulation sans interface graphique (aucune classe AWT/Swing
+ * chargée), sans délai, jusqu'à la collecte de tous les trésors ou
+ * l'épuisement du budget de ticks. Sert aux bancs d'essai des stratégies
+ * d'agents et aux tests d'endurance.
+ *
+ * Les paramètres sont des couples cle=valeur sur la ligne de commande ; un
+ * argument sans '=' est un fichier .properties lu à cet endroit (les
+ * arguments suivants l'emportent). Le résultat est écrit en cle=valeur, une
+ * ligne par mesure. Les traces des agents sont coupées sauf traces=true,
+ * par la configuration de la simulation : System.out n'est jamais remplacé
+ * et plusieurs runs peuvent tourner en même temps.
+ * executer(config, ticksMax) fait un run dans le processus courant.
+ *
+ * En mode TICKS / TICKS_PAR_ZONE les ticks sont exécutés sur le thread
+ * appelant ; en mode thread par agent, un tick = un pas moyen par agent.
+ *
+ * Usage : LanceurSansInterface [fichier.properties] [cle=valeur]...
+ * Clés : celles de SimulationConfig.avecParametre, plus ticksMax
+ */
+public class LanceurSansInterface {
+
+    public static final long TICKS_MAX_DEFAUT = 100_000;
+
+    /**
+     * Sans délai, moteur à ticks, graine fixe, sans traces : le réglage des
+     * bancs d'essai.
+     */
+    public static final SimulationConfig CONFIG_DEFAUT = SimulationConfig.DEFAUT
+            .avecExecution(ModeExecution.TICKS, SimulationConfig.DEFAUT.getNbThreadsTicks(), 0)
+            .avecGraine(42L)
+            .avecTraces(false);
+
+    private SimulationConfig config = CONFIG_DEFAUT;
+    private long ticksMax = TICKS_MAX_DEFAUT;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+
+        LanceurSansInterface lanceur = new LanceurSansInterface();
+        for (String arg : args) {
+            int egal = arg.indexOf('=');
+            if (egal < 0) {
+                lanceur.appliquer(lireFichier(arg));
+            } else {
+                lanceur.appliquer(arg.substring(0, egal).trim(), arg.substring(egal + 1).trim());
+            }
+        }
+        Properties resultat = lanceur.executer();
+        for (String cle : resultat.stringPropertyNames().stream().sorted().toArray(String[]::new)) {
+            System.out.println(cle + "=" + resultat.getProperty(cle));
+        }
+    }
+
+    private static Properties lireFichier(String chemin) throws IOException {
+        Properties proprietes = new Properties();
+        try (InputStream entree = new FileInputStream(chemin)) {
+            proprietes.load(entree);
+        }
+        return proprietes;
+    }
+
+    // ========== CONFIGURATION ==========
+    public void appliquer(Properties proprietes) {
+        for (String cle : proprietes.stringPropertyNames()) {
+            appliquer(cle, proprietes.getProperty(cle).trim());
+        }
+    }
+
+    public void appliquer(String cle, String valeur) {
+        switch (cle) {
+            case "ticksMax": ticksMax = Long.parseLong(valeur); break;
+            default: config = config.avecParametre(cle, valeur);
+        }
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    // ========== EXÉCUTION ==========
+    /**
+     * Une simulation complète ; renvoie les mesures (cle -> valeur).
+     */
+    public Properties executer() throws InterruptedException {
+        return executer(config, ticksMax);
+    }
+
+    /**
+     * Un run dans le processus courant, indépendant des autres runs.
+     */
+    public static Properties executer(SimulationConfig config, long ticksMax) throws InterruptedException {
+        Simulation simulation = new Simulation(config);
+        int tresorsInitiaux = simulation.getCarte().compterTresorsRestants();
+        long debut = System.nanoTime();
+        long ticks = simulation.getModeExecution().estParTicks()
+                ? executerParTicks(simulation, ticksMax)
+                : executerParThreads(simulation, ticksMax);
+        long dureeNanos = System.nanoTime() - debut;
+        return mesures(simulation, tresorsInitiaux, ticks, dureeNanos);
+    }
+
+    private static long executerParTicks(Simulation simulation, long ticksMax) throws InterruptedException {
+        MoteurTicks moteur = new MoteurTicks(simulation, simulation.getAgents(), simulation.getConfig().getNbThreadsTicks(), 0,
+                simulation.getModeExecution() == ModeExecution.TICKS_PAR_ZONE);
+        moteur.setAvanceRapide(true); // personne ne regarde : on saute les ticks où tous attendent leur réapparition
+        try {
+            while (moteur.getNbTicks() < ticksMax && !simulation.getCarte().tousTresorsCollectes()) {
+                moteur.executerTick();
+            }
+            return moteur.getNbTicks();
+        } finally {
+            moteur.arreter();
+        }
+    }
+
+    private static long executerParThreads(Simulation simulation, long ticksMax) throws InterruptedException {
+        simulation.demarrer();
+        long ticks = 0;
+        while (simulation.isRunning() && ticks < ticksMax) {
+            Thread.sleep(10);
+            ticks = pasMoyens(simulation);
+        }
+        if (simulation.isRunning()) {
+            simulation.arreter();
+        }
+        return pasMoyens(simulation);
+    }
+
+    private static long pasMoyens(Simulation simulation) {
+        long pas = 0;
+        for (Agent agent : simulation.getAgents()) {
+            pas += agent.getStats().getIterations();
+        }
+        return simulation.getAgents().isEmpty() ? 0 : pas / simulation.getAgents().size();
+    }
+
+    private static Properties mesures(Simulation simulation, int tresorsInitiaux, long ticks, long dureeNanos) {
+        int tresors = 0;
+        long valeur = 0;
+        int morts = 0;
+        int secours = 0;
+        int respawns = 0;
+        for (Agent agent : simulation.getAgents()) {
+            AgentStats stats = agent.getStats();
+            tresors += stats.getTresorsCollectes();
+            valeur += stats.getValeurTotale();
+            morts += stats.getNbrMorts();
+            secours += stats.getNbrSecours();
+            respawns += stats.getNbrRespawn();
+        }
+        int restants = simulation.getCarte().compterTresorsRestants();
+        double secondes = dureeNanos / 1e9;
+
+        Properties resultat = new Properties();
+        resultat.setProperty("execution", simulation.getModeExecution().name());
+        resultat.setProperty("navigation", simulation.getConfig().getModeNavigation().name());
+        resultat.setProperty("graine", Long.toString(simulation.getGraineMaitre()));
+        resultat.setProperty("agents", Integer.toString(simulation.getAgents().size()));
+        resultat.setProperty("ticks", Long.toString(ticks));
+        resultat.setProperty("duree_ms", Long.toString(dureeNanos / 1_000_000));
+        resultat.setProperty("ticks_par_seconde", String.format(Locale.ROOT, "%.1f", secondes > 0 ? ticks / secondes : 0));
+        resultat.setProperty("tresors_initiaux", Integer.toString(tresorsInitiaux));
+        resultat.setProperty("tresors_collectes", Integer.toString(tresors));
+        resultat.setProperty("tresors_restants", Integer.toString(restants));
+        resultat.setProperty("valeur_collectee", Long.toString(valeur));
+        resultat.setProperty("morts", Integer.toString(morts));
+        resultat.setProperty("secours", Integer.toString(secours));
+        resultat.setProperty("respawns", Integer.toString(respawns));
+        BusZones bus = simulation.getCarte().getBus();
+        resultat.setProperty("bus_publications", Long.toString(bus.getNbPublications()));
+        resultat.setProperty("bus_livraisons", Long.toString(bus.getNbLivraisons()));
+        resultat.setProperty("bus_entrees", Long.toString(bus.getNbEntrees()));
+        resultat.setProperty("bus_latence_moyenne_ns", String.format(Locale.ROOT, "%.0f", bus.getLatenceMoyenneNanos()));
+        resultat.setProperty("bus_latence_max_ns", Long.toString(bus.getLatenceMaxNanos()));
+        TableauNoir tableau = simulation.getCarte().getTableauNoir();
+        resultat.setProperty("diffusion", simulation.getConfig().getModeDiffusion().name());
+        resultat.setProperty("tableau_version", Long.toString(tableau.getVersion()));
+        resultat.setProperty("tableau_publications", Long.toString(tableau.getNbPublications()));
+        resultat.setProperty("tableau_modifications", Long.toString(tableau.getNbModifications()));
+        resultat.setProperty("tableau_conflits", Long.toString(tableau.getNbConflits()));
+        resultat.setProperty("tableau_ecriture_ns", Long.toString(tableau.getTempsEcritureNanos()));
+        resultat.setProperty("tableau_lectures", Long.toString(tableau.getNbLectures()));
+        resultat.setProperty("termine", Boolean.toString(restants == 0));
+        return resultat;
+    }
+}
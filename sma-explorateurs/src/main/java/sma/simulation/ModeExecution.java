@@ -0,0 +1,15 @@
+package sma.simulation;
+
+/**
+ * Façon de faire avancer les agents.
+ */
+public enum ModeExecution {
+    THREAD_PAR_AGENT,   // un AgentManager (thread) par agent, chacun à son rythme
+    THREAD_VIRTUEL_PAR_AGENT, // idem sur des threads virtuels (JDK 21+), pour des dizaines de milliers d'agents
+    TICKS,              // MoteurTicks : tous les agents avancent d'un pas par tick, conflits résolus dans l'ordre des ids
+    TICKS_PAR_ZONE;     // MoteurTicks, une tâche fork/join par zone, passages de zone appliqués en série
+
+    public boolean estParTicks() {
+        return this == TICKS || this == TICKS_PAR_ZONE;
+    }
+}
@@ -0,0 +1,379 @@
+package sma.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+import sma.agents.Agent;
+import sma.agents.AgentCognitif;
+import sma.agents.ArbitreActions;
+import sma.agents.TypologieAgent;
+import sma.environnement.Case;
+
+/**
+ * Moteur à ticks : à chaque tick, tous les agents vivants font un pas.
+ *
+ * 1. les communicants, un par un dans l'ordre des ids (ils téléportent et
+ *    envoient des messages, effets immédiats) ;
+ * 2. les autres agents décident en parallèle sur un pool fixe de threads ;
+ *    leurs déplacements et secours sont seulement proposés ;
+ * 3. les déplacements puis les secours sont appliqués dans l'ordre des ids :
+ *    c'est cet ordre qui départage deux agents arrivant sur le même trésor ;
+ * 4. la roue temporelle avance jusqu'au tick courant (réapparitions au QG
+ *    TICKS_AVANT_RESPAWN ticks après la mort) ; les nouveaux morts y sont
+ *    planifiés.
+ *
+ * Variante par zone (parZone) : en phase 2 les agents sont regroupés par
+ * zone, chaque zone est une tâche d'un ForkJoinPool et ses agents y avancent
+ * un par un dans l'ordre des ids. Un déplacement qui reste dans la zone est
+ * appliqué tout de suite (aucune autre tâche ne touche aux cases de la zone) ;
+ * ceux qui changent de zone et les secours (retour au QG) vont dans la file
+ * de passage résolue en phase 3.
+ *
+ * Avance rapide (setAvanceRapide) : quand tous les agents non communicants
+ * sont morts, les ticks où rien ne peut arriver sont sautés jusqu'à la
+ * prochaine réapparition.
+ */
+public class MoteurTicks implements ArbitreActions {
+
+    public static final int TICKS_AVANT_RESPAWN = 100; // même pénalité que AgentManager (100 délais)
+
+    private final Simulation simulation;
+    private final Agent[] agents;                   // triés par id
+    private final Map<Agent, Integer> rangs = new IdentityHashMap<>();
+    private final Case[] deplacements;              // [rang] proposé pendant le tick
+    private final List<List<Agent>> secours;        // [rang] blessés à secourir
+    private final RoueTemporelle.Evenement[] reapparitions; // [rang] en attente dans la roue, null sinon
+    private final RoueTemporelle roue;
+    private boolean avanceRapide = false;
+    private final List<Callable<Void>> lots = new ArrayList<>();
+    private final ExecutorService pool;             // null : un seul thread, lots exécutés sur place
+    private final long delaiMs;
+
+    private final boolean parZone;
+    private final ForkJoinPool poolZones;
+    private final List<List<Agent>> agentsParZone;  // [zone] agents à faire avancer ce tick
+    private final int[] zonesActives;
+    private int nbZonesActives;
+
+    private volatile boolean running = false;
+    private volatile long nbTicks = 0;
+    private Thread thread;
+    private long debutNanos;
+    private long finNanos;
+
+    public MoteurTicks(Simulation simulation, List<Agent> agents, int nbThreads, long delaiMs) {
+        this(simulation, agents, nbThreads, delaiMs, false);
+    }
+
+    public MoteurTicks(Simulation simulation, List<Agent> agents, int nbThreads, long delaiMs, boolean parZone) {
+        this.simulation = simulation;
+        this.agents = agents.toArray(new Agent[0]);
+        Arrays.sort(this.agents, Comparator.comparingInt(Agent::getId));
+        this.deplacements = new Case[this.agents.length];
+        this.secours = new ArrayList<>(this.agents.length);
+        this.reapparitions = new RoueTemporelle.Evenement[this.agents.length];
+        // la roue de la simulation si elle compte en ticks, sinon une roue propre au moteur
+        this.roue = simulation != null && simulation.getRoueTemporelle().getMode() == RoueTemporelle.Mode.TICKS
+                ? simulation.getRoueTemporelle()
+                : new RoueTemporelle(RoueTemporelle.Mode.TICKS, 0);
+        this.delaiMs = delaiMs;
+
+        int nbLots = parZone ? 1 : Math.max(1, nbThreads);
+        this.pool = nbLots == 1 ? null : Executors.newFixedThreadPool(nbLots, r -> {
+            Thread t = new Thread(r, "moteur-ticks");
+            t.setDaemon(true);
+            return t;
+        });
+        this.parZone = parZone;
+        this.poolZones = parZone ? new ForkJoinPool(Math.max(1, nbThreads)) : null;
+        int nbZones = this.agents.length > 0 && this.agents[0].getCaseActuelle() != null
+                ? this.agents[0].getCaseActuelle().getZone().getCarte().getNbZones() : 0;
+        this.agentsParZone = new ArrayList<>(nbZones);
+        for (int z = 0; z < nbZones; z++) {
+            agentsParZone.add(new ArrayList<>());
+        }
+        this.zonesActives = new int[nbZones];
+        for (int i = 0; i < this.agents.length; i++) {
+            rangs.put(this.agents[i], i);
+            secours.add(new ArrayList<>());
+            if (this.agents[i].getType() != TypologieAgent.COMMUNICANT) {
+                this.agents[i].setArbitre(this);
+            }
+        }
+        // lots entrelacés : les cognitifs (plus coûteux, ids consécutifs) sont répartis entre les threads
+        for (int k = 0; k < nbLots; k++) {
+            final int debut = k;
+            lots.add(() -> {
+                faireAvancer(debut, nbLots);
+                return null;
+            });
+        }
+    }
+
+    private void faireAvancer(int debut, int pas) {
+        for (int i = debut; i < agents.length; i += pas) {
+            Agent agent = agents[i];
+            if (agent.getType() != TypologieAgent.COMMUNICANT && agent.isAlive()) {
+                agent.step();
+                agent.getStats().incrementerIterations();
+            }
+        }
+    }
+
+    // ========== CYCLE DE VIE ==========
+    public void demarrer() {
+        if (running) {
+            return;
+        }
+        running = true;
+        debutNanos = System.nanoTime();
+        thread = new Thread(this::boucler, "moteur-ticks-principal");
+        thread.start();
+    }
+
+    public void arreter() {
+        if (!running) {
+            fermerPools();
+            return;
+        }
+        running = false;
+        finNanos = System.nanoTime();
+        if (thread != null && thread != Thread.currentThread()) {
+            // on laisse finir le tick en cours (au plus un délai d'attente) pour ne pas le couper en deux
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        fermerPools();
+    }
+
+    private void fermerPools() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (poolZones != null) {
+            poolZones.shutdown();
+        }
+    }
+
+    private void boucler() {
+        while (running) {
+            if (simulation.getCarte().tousTresorsCollectes()) {
+                simulation.arreter();
+                break;
+            }
+            try {
+                executerTick();
+                if (delaiMs > 0) {
+                    Thread.sleep(delaiMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Un tick complet (les quatre phases). Public pour pouvoir faire avancer
+     * la simulation pas à pas sans démarrer le thread du moteur.
+     */
+    public void executerTick() throws InterruptedException {
+        if (avanceRapide && !resteUnAgentActif()) {
+            // seuls les communicants vivent, sans personne à renseigner : sauter à la prochaine réapparition
+            long prochaine = roue.prochaineEcheance();
+            if (prochaine != Long.MAX_VALUE && prochaine > nbTicks) {
+                nbTicks = prochaine;
+            }
+        }
+
+        // 1. communicants
+        for (Agent agent : agents) {
+            if (agent.getType() == TypologieAgent.COMMUNICANT && agent.isAlive()) {
+                agent.step();
+                agent.getStats().incrementerIterations();
+            }
+        }
+
+        // 2. décisions en parallèle
+        if (parZone) {
+            repartirParZone();
+            poolZones.invoke(new PasZones(0, nbZonesActives));
+        } else if (pool == null) {
+            faireAvancer(0, 1);
+        } else {
+            for (Future<Void> resultat : pool.invokeAll(lots)) {
+                try {
+                    resultat.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Erreur pendant le pas d'un agent au tick " + nbTicks, e.getCause());
+                }
+            }
+        }
+
+        // 3. résolution dans l'ordre des ids
+        for (int i = 0; i < agents.length; i++) {
+            Case destination = deplacements[i];
+            if (destination != null) {
+                deplacements[i] = null;
+                if (agents[i].isAlive() && destination.isAccessible()) {
+                    agents[i].appliquerDeplacement(destination);
+                }
+            }
+        }
+        for (int i = 0; i < agents.length; i++) {
+            List<Agent> blesses = secours.get(i);
+            if (!blesses.isEmpty()) {
+                for (Agent blesse : blesses) {
+                    ((AgentCognitif) agents[i]).secourir(blesse);
+                }
+                blesses.clear();
+            }
+        }
+
+        // 4. réapparitions : annulées pour les secourus, déclenchées si échues,
+        //    planifiées pour les nouveaux morts (le tick de la mort compte)
+        for (int i = 0; i < agents.length; i++) {
+            if (reapparitions[i] != null && agents[i].isAlive()) {
+                reapparitions[i].annuler();
+                reapparitions[i] = null;
+            }
+        }
+        roue.avancerJusqua(nbTicks);
+        for (int i = 0; i < agents.length; i++) {
+            if (reapparitions[i] == null && !agents[i].isAlive()) {
+                final int rang = i;
+                reapparitions[i] = roue.planifier(TICKS_AVANT_RESPAWN - 1, () -> {
+                    reapparitions[rang] = null;
+                    agents[rang].resetToQG();
+                });
+            }
+        }
+        nbTicks++;
+    }
+
+    /**
+     * Vrai si un agent non communicant est en vie (ou s'il n'y en a aucun).
+     */
+    private boolean resteUnAgentActif() {
+        boolean aucun = true;
+        for (Agent agent : agents) {
+            if (agent.getType() != TypologieAgent.COMMUNICANT) {
+                aucun = false;
+                if (agent.isAlive()) {
+                    return true;
+                }
+            }
+        }
+        return aucun;
+    }
+
+    // ========== PAR ZONE ==========
+    /**
+     * Range les agents à faire avancer dans le compartiment de leur zone
+     * actuelle, dans l'ordre des ids.
+     */
+    private void repartirParZone() {
+        for (int k = 0; k < nbZonesActives; k++) {
+            agentsParZone.get(zonesActives[k]).clear();
+        }
+        nbZonesActives = 0;
+        for (Agent agent : agents) {
+            if (agent.getType() == TypologieAgent.COMMUNICANT || !agent.isAlive()) {
+                continue;
+            }
+            int zone = agent.getZoneActuelle().getId();
+            List<Agent> compartiment = agentsParZone.get(zone);
+            if (compartiment.isEmpty()) {
+                zonesActives[nbZonesActives++] = zone;
+            }
+            compartiment.add(agent);
+        }
+    }
+
+    /**
+     * Fait avancer les zones actives [debut, fin) en coupant en deux jusqu'à
+     * une zone par tâche.
+     */
+    private final class PasZones extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int debut;
+        private final int fin;
+
+        PasZones(int debut, int fin) {
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut > 1) {
+                int milieu = (debut + fin) >>> 1;
+                invokeAll(new PasZones(debut, milieu), new PasZones(milieu, fin));
+                return;
+            }
+            for (int k = debut; k < fin; k++) {
+                for (Agent agent : agentsParZone.get(zonesActives[k])) {
+                    agent.step();
+                    agent.getStats().incrementerIterations();
+                }
+            }
+        }
+    }
+
+    // ========== ARBITRAGE ==========
+    @Override
+    public void proposerDeplacement(Agent agent, Case destination) {
+        if (parZone && destination.getZone() == agent.getZoneActuelle()) {
+            agent.appliquerDeplacement(destination); // seule la tâche de cette zone touche à ses cases
+            return;
+        }
+        deplacements[rangs.get(agent)] = destination; // chaque agent n'écrit que dans son rang
+    }
+
+    @Override
+    public void proposerSecours(AgentCognitif sauveteur, Agent blesse) {
+        secours.get(rangs.get(sauveteur)).add(blesse);
+    }
+
+    /**
+     * Sauter les ticks où tous les agents non communicants sont morts
+     * (runs sans interface ; le compteur de ticks avance quand même).
+     */
+    public void setAvanceRapide(boolean avanceRapide) {
+        this.avanceRapide = avanceRapide;
+    }
+
+    public RoueTemporelle getRoueTemporelle() {
+        return roue;
+    }
+
+    // ========== MESURES ==========
+    public long getNbTicks() {
+        return nbTicks;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public double getTicksParSeconde() {
+        long fin = running ? System.nanoTime() : finNanos;
+        double secondes = (fin - debutNanos) / 1e9;
+        return secondes > 0 ? nbTicks / secondes : 0;
+    }
+}
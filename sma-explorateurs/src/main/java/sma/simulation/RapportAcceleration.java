@@ -0,0 +1,56 @@
+package sma.simulation;
+
+/**
+ * Accélération du moteur à ticks parallèle (TICKS, puis TICKS_PAR_ZONE) par
+ * rapport à la boucle à un seul thread, pour 1, 2, 4... threads jusqu'au
+ * nombre de cœurs. Chaque mesure repart du même scénario (même graine) et
+ * fait avancer le même nombre de ticks, sans délai ni traces.
+ *
+ * Usage : RapportAcceleration [ticks] [zones par côté] [taille zone] [agents par type] [graine]
+ */
+public class RapportAcceleration {
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbTicks = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int nbZonesCote = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int tailleZone = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int nbAgents = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        long graine = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        SimulationConfig config = SimulationConfig.DEFAUT
+                .avecCarte(nbZonesCote, tailleZone)
+                .avecAgents(nbAgents, nbAgents, Math.min(nbAgents, nbZonesCote * nbZonesCote - 1))
+                .avecExecution(ModeExecution.TICKS, 1, 0)
+                .avecGraine(graine)
+                .avecTraces(false);
+        int nbCoeurs = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("scénario : %dx%d zones de %d, %d agents par type, graine %d, %d ticks, %d cœurs%n",
+                nbZonesCote, nbZonesCote, tailleZone, nbAgents, graine, nbTicks, nbCoeurs);
+        mesurer(config, nbTicks / 5, 1, false); // chauffe du JIT
+        double reference = mesurer(config, nbTicks, 1, false);
+        System.out.printf("%-16s %8s %12s %14s%n", "mode", "threads", "ticks/s", "accélération");
+        System.out.printf("%-16s %8d %12.1f %14.2f%n", "1 thread", 1, reference, 1.0);
+        for (boolean parZone : new boolean[] { false, true }) {
+            for (int nbThreads = 1; nbThreads <= nbCoeurs; nbThreads *= 2) {
+                double debit = mesurer(config, nbTicks, nbThreads, parZone);
+                System.out.printf("%-16s %8d %12.1f %14.2f%n", parZone ? ModeExecution.TICKS_PAR_ZONE : ModeExecution.TICKS,
+                        nbThreads, debit, debit / reference);
+            }
+        }
+    }
+
+    private static double mesurer(SimulationConfig config, int nbTicks, int nbThreads, boolean parZone) throws InterruptedException {
+        Simulation simulation = new Simulation(config);
+        MoteurTicks moteur = new MoteurTicks(simulation, simulation.getAgents(), nbThreads, 0, parZone);
+        try {
+            long debut = System.nanoTime();
+            for (int t = 0; t < nbTicks && !simulation.getCarte().tousTresorsCollectes(); t++) {
+                moteur.executerTick();
+            }
+            return moteur.getNbTicks() / ((System.nanoTime() - debut) / 1e9);
+        } finally {
+            moteur.arreter();
+        }
+    }
+}
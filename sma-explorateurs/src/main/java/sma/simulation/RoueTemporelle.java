@@ -0,0 +1,264 @@
+package sma.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordonnanceur d'événements différés (réapparitions, effets temporisés) en
+ * roue hachée : un tableau circulaire de crans, chaque événement rangé dans
+ * le cran de son échéance (échéance modulo le nombre de crans). Planifier
+ * et avancer d'un cran coûtent O(1) hors événements déclenchés ; un agent
+ * qui attend ne coûte qu'une entrée dans la roue.
+ *
+ * Deux modes :
+ * - TICKS : le temps est celui du moteur à ticks, qui appelle
+ *   avancerJusqua(tick) ; prochaineEcheance() lui permet de sauter les
+ *   ticks sans événement (avance rapide des runs sans interface) ;
+ * - HORLOGE : un thread fait avancer la roue d'un cran toutes les
+ *   resolutionMs millisecondes.
+ *
+ * Les actions sont exécutées hors du verrou, sur le thread qui fait avancer
+ * la roue.
+ */
+public class RoueTemporelle {
+
+    public enum Mode {
+        TICKS,
+        HORLOGE
+    }
+
+    public static final int NB_CRANS_DEFAUT = 512;
+
+    private final Mode mode;
+    private final long resolutionMs;
+    private final Evenement[] crans;        // têtes de listes chaînées
+    private final int masque;
+    private final ReentrantLock verrou = new ReentrantLock(); // pas de synchronized : compatible threads virtuels
+
+    private long instant = 0;               // dernier cran traité
+    private int nbEnAttente = 0;
+    private long nbDeclenches = 0;
+
+    private volatile boolean enMarche = false;
+    private Thread thread;
+
+    /**
+     * Événement planifié ; annuler() l'empêche de se déclencher.
+     */
+    public static final class Evenement {
+
+        private final long echeance;
+        private final Runnable action;
+        private volatile boolean annule = false;
+        private Evenement suivant;
+
+        private Evenement(long echeance, Runnable action) {
+            this.echeance = echeance;
+            this.action = action;
+        }
+
+        public long getEcheance() {
+            return echeance;
+        }
+
+        public void annuler() {
+            annule = true;
+        }
+
+        public boolean estAnnule() {
+            return annule;
+        }
+    }
+
+    public RoueTemporelle(Mode mode, long resolutionMs) {
+        this(NB_CRANS_DEFAUT, mode, resolutionMs);
+    }
+
+    /**
+     * @param nbCrans arrondi à la puissance de deux supérieure
+     * @param resolutionMs durée d'un cran en mode HORLOGE (ignorée en mode TICKS)
+     */
+    public RoueTemporelle(int nbCrans, Mode mode, long resolutionMs) {
+        int taille = Integer.highestOneBit(Math.max(2, nbCrans) * 2 - 1);
+        this.crans = new Evenement[taille];
+        this.masque = taille - 1;
+        this.mode = mode;
+        this.resolutionMs = Math.max(1, resolutionMs);
+    }
+
+    // ========== PLANIFICATION ==========
+    /**
+     * Déclenche l'action dans delai crans (ticks en mode TICKS) ; un délai
+     * nul ou négatif la déclenche au prochain cran.
+     */
+    public Evenement planifier(long delai, Runnable action) {
+        verrou.lock();
+        try {
+            Evenement e = new Evenement(instant + Math.max(1, delai), action);
+            int cran = (int) (e.echeance & masque);
+            e.suivant = crans[cran];
+            crans[cran] = e;
+            nbEnAttente++;
+            return e;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Délai en millisecondes (mode HORLOGE), arrondi au cran supérieur.
+     */
+    public Evenement planifierDansMs(long delaiMs, Runnable action) {
+        return planifier((delaiMs + resolutionMs - 1) / resolutionMs, action);
+    }
+
+    // ========== AVANCE ==========
+    /**
+     * Avance d'un cran et déclenche les événements arrivés à échéance ;
+     * renvoie leur nombre.
+     */
+    public int avancer() {
+        List<Runnable> echues = new ArrayList<>();
+        verrou.lock();
+        try {
+            instant++;
+            collecter(echues);
+        } finally {
+            verrou.unlock();
+        }
+        for (Runnable action : echues) {
+            action.run();
+        }
+        return echues.size();
+    }
+
+    /**
+     * Avance cran par cran jusqu'à l'instant donné (inclus).
+     */
+    public int avancerJusqua(long cible) {
+        int declenches = 0;
+        while (getInstant() < cible) {
+            declenches += avancer();
+        }
+        return declenches;
+    }
+
+    // appelé sous le verrou
+    private void collecter(List<Runnable> echues) {
+        int cran = (int) (instant & masque);
+        Evenement precedent = null;
+        Evenement e = crans[cran];
+        while (e != null) {
+            Evenement suivant = e.suivant;
+            if (e.echeance <= instant) {
+                if (precedent == null) {
+                    crans[cran] = suivant;
+                } else {
+                    precedent.suivant = suivant;
+                }
+                nbEnAttente--;
+                if (!e.annule) {
+                    echues.add(e.action);
+                    nbDeclenches++;
+                }
+            } else {
+                precedent = e; // un tour de roue plus tard
+            }
+            e = suivant;
+        }
+    }
+
+    /**
+     * Plus petite échéance en attente (Long.MAX_VALUE si aucune) ; parcourt
+     * toute la roue, réservé à l'avance rapide.
+     */
+    public long prochaineEcheance() {
+        verrou.lock();
+        try {
+            long min = Long.MAX_VALUE;
+            for (Evenement tete : crans) {
+                for (Evenement e = tete; e != null; e = e.suivant) {
+                    if (!e.annule && e.echeance < min) {
+                        min = e.echeance;
+                    }
+                }
+            }
+            return min;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    // ========== MODE HORLOGE ==========
+    public void demarrer() {
+        if (mode != Mode.HORLOGE || enMarche) {
+            return;
+        }
+        enMarche = true;
+        thread = new Thread(this::boucler, "roue-temporelle");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void arreter() {
+        enMarche = false;
+        Thread t = thread;
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+        }
+    }
+
+    private void boucler() {
+        long origine = System.nanoTime() - getInstant() * resolutionMs * 1_000_000L;
+        while (enMarche) {
+            long attenteNanos = origine + (getInstant() + 1) * resolutionMs * 1_000_000L - System.nanoTime();
+            if (attenteNanos > 0) {
+                try {
+                    Thread.sleep(attenteNanos / 1_000_000L, (int) (attenteNanos % 1_000_000L));
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            if (enMarche) {
+                avancer();
+            }
+        }
+    }
+
+    // ========== MESURES ==========
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    public long getInstant() {
+        verrou.lock();
+        try {
+            return instant;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public int getNbEnAttente() {
+        verrou.lock();
+        try {
+            return nbEnAttente;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public long getNbDeclenches() {
+        verrou.lock();
+        try {
+            return nbDeclenches;
+        } finally {
+            verrou.unlock();
+        }
+    }
+}
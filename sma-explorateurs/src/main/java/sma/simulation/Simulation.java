@@ -2,36 +2,76 @@ package sma.simulation;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import sma.agents.Agent;
 import sma.agents.AgentCognitif;
 import sma.agents.AgentCommunicant;
 import sma.agents.AgentReactif;
+import sma.agents.ContexteSimulation;
 import sma.concurrent.AgentManager;
+import sma.concurrent.BoiteAuxLettres;
+import sma.concurrent.FabriqueThreads;
 import sma.environnement.Carte;
 import sma.environnement.Case;
 import sma.environnement.Zone;
-import sma.gui.SimuPara;
 import sma.objets.Animal;
 import sma.objets.Obstacle;
 import sma.objets.Tresor;
 
 public class Simulation {
 
+    private final SimulationConfig config;
+    private final ContexteSimulation contexte;
     private final Carte carte;
     private final List<Agent> agents;
     private final List<AgentManager> agentManagers;
-    private final Random random;
-    private boolean running;
+    private final long graineMaitre;
+    // un flux par phase de génération : ajouter des animaux ne déplace pas les trésors
+    private final SplittableRandom aleaTresors;
+    private final SplittableRandom aleaAnimaux;
+    private final SplittableRandom aleaObstacles;
+    private final ModeExecution modeExecution;
+    private final RoueTemporelle roue;
+    private MoteurTicks moteurTicks;
+    private volatile boolean running;
     private long tempsDebut;
     private long tempsFin;
 
     public Simulation() {
-        this.carte = new Carte();
+        this(SimulationConfig.DEFAUT);
+    }
+
+    /**
+     * Simulation indépendante de toute autre : sa configuration, sa carte et
+     * son contexte (ids, zones occupées, fin) lui sont propres. Tout le
+     * hasard découle de la graine maîtresse (celle de la configuration, ou
+     * une tirée au hasard et lisible par getGraineMaitre()) : même graine,
+     * même carte, et mêmes décisions avec le moteur à ticks.
+     */
+    public Simulation(SimulationConfig config) {
+        this.config = config;
+        this.contexte = new ContexteSimulation();
+        this.carte = new Carte(config.getNbZonesCote(), config.getTailleZone(), contexte);
         this.agents = new ArrayList<>();
         this.agentManagers = new ArrayList<>();
-        this.random = new Random(); //aléatoire 
+        this.graineMaitre = config.aUneGraine() ? config.getGraine() : contexte.getGraineMaitre(); //aléatoire
+        contexte.fixerGraineMaitre(graineMaitre); // avant la création des agents
+        contexte.setTraces(config.isTraces());
+        SplittableRandom racine = new SplittableRandom(graineMaitre);
+        this.aleaTresors = racine.split();
+        this.aleaAnimaux = racine.split();
+        this.aleaObstacles = racine.split();
+        if (config.getModeExecution() == ModeExecution.THREAD_VIRTUEL_PAR_AGENT && !FabriqueThreads.threadsVirtuelsDisponibles()) {
+            System.err.println("Threads virtuels indisponibles (JDK < 21) : un thread classique par agent");
+            this.modeExecution = ModeExecution.THREAD_PAR_AGENT;
+        } else {
+            this.modeExecution = config.getModeExecution();
+        }
+        // réapparitions : en ticks pour le moteur à ticks, en millisecondes pour les threads
+        this.roue = modeExecution.estParTicks()
+                ? new RoueTemporelle(RoueTemporelle.Mode.TICKS, 0)
+                : new RoueTemporelle(RoueTemporelle.Mode.HORLOGE, Math.max(1, config.getDelaiMs()));
         this.running = false;
         //initialiser deux méthodes des objets 
         initialiserObjets();
@@ -39,23 +79,25 @@ public class Simulation {
     }
 
     private void initialiserObjets() {
-        for (int zx = 0; zx < Carte.NB_ZONES_COTE; zx++) {
-            for (int zy = 0; zy < Carte.NB_ZONES_COTE; zy++) {
+        for (int zx = 0; zx < carte.getNbZonesCote(); zx++) {
+            for (int zy = 0; zy < carte.getNbZonesCote(); zy++) {
 
                 //Partie zoneqg, dans les règles du rapport on a dit c'est sage
                 Zone zone = carte.getZone(zx, zy);
                 if (zx == 0 && zy == 0) {
-                    System.out.println("Zone qg skip prochaine itération ");
+                    if (contexte.isTraces()) {
+                        System.out.println("Zone qg skip prochaine itération ");
+                    }
                     continue;
                 }
                 //placer tresors valeurs aléatoires car pas très important ici 
-                placerTresors(zone, SimuPara.NB_TRESORS_PAR_ZONE);
+                placerTresors(zone, config.getNbTresorsParZone());
 
                 // Placer les animaux
-                placerAnimaux(zone, SimuPara.NB_ANIMAUX_PAR_ZONE);
+                placerAnimaux(zone, config.getNbAnimauxParZone());
 
                 // Placer les obstacles
-                placerObstacles(zone, SimuPara.NB_OBSTACLES_PAR_ZONE);
+                placerObstacles(zone, config.getNbObstaclesParZone());
             }
         }
     }
@@ -65,14 +107,13 @@ public class Simulation {
         int tentatives = 0;
 
         while (cpt < nombre && tentatives < 100) {
-            int x = random.nextInt(Zone.TAILLE);
-            int y = random.nextInt(Zone.TAILLE); //renvoie zone 1,2
-            Case caseAleatoire = zone.getCase(x, y); // case renvoie une case aléatoire .. 
-
-            //case non valide => null 
-            if (caseAleatoire != null && !caseAleatoire.hasObjet()) {
-                int valeurTresor = random.nextInt(100);
-                caseAleatoire.setObjet(new Tresor(valeurTresor));
+            int x = aleaTresors.nextInt(zone.getTaille());
+            int y = aleaTresors.nextInt(zone.getTaille()); //renvoie zone 1,2
+            int idCase = zone.idCase(x, y); // id global de la case aléatoire, pas besoin de créer la vue Case
+
+            if (!caseOccupeeParObjet(idCase)) {
+                int valeurTresor = aleaTresors.nextInt(100);
+                carte.placerObjet(idCase, new Tresor(valeurTresor));
                 cpt++;
             }
             tentatives++;
@@ -84,13 +125,13 @@ public class Simulation {
         int tentatives = 0;
 
         while (cpt < nombre && tentatives < 100) {
-            int x = random.nextInt(Zone.TAILLE);
-            int y = random.nextInt(Zone.TAILLE);
-            Case caseAleatoire = zone.getCase(x, y);
-            int valeurMaxDegats = SimuPara.MAX_DEGATS_ANIMAUX;
-            if (caseAleatoire != null && !caseAleatoire.hasObjet()) {
-                int valeursDegats = random.nextInt(valeurMaxDegats);
-                caseAleatoire.setObjet(new Animal("hérisson des ténébres", valeursDegats)); //faire une ressemblance avec une ortie (bouge pas masi pique)
+            int x = aleaAnimaux.nextInt(zone.getTaille());
+            int y = aleaAnimaux.nextInt(zone.getTaille());
+            int idCase = zone.idCase(x, y);
+            int valeurMaxDegats = config.getMaxDegatsAnimaux();
+            if (!caseOccupeeParObjet(idCase)) {
+                int valeursDegats = aleaAnimaux.nextInt(valeurMaxDegats);
+                carte.placerObjet(idCase, new Animal("hérisson des ténébres", valeursDegats)); //faire une ressemblance avec une ortie (bouge pas masi pique)
                 cpt++;
             }
             tentatives++;
@@ -102,40 +143,56 @@ public class Simulation {
         int tentatives = 0;
 
         while (cpt < nombre && tentatives < 100) {
-            int x = random.nextInt(Zone.TAILLE);
-            int y = random.nextInt(Zone.TAILLE);
-            Case caseAleatoire = zone.getCase(x, y);
+            int x = aleaObstacles.nextInt(zone.getTaille());
+            int y = aleaObstacles.nextInt(zone.getTaille());
+            int idCase = zone.idCase(x, y);
 
-            if (caseAleatoire != null && !caseAleatoire.hasObjet()) {
-                caseAleatoire.setObjet(new Obstacle("Grand Rocher de Cergy"));
+            if (!caseOccupeeParObjet(idCase)) {
+                carte.placerObjet(idCase, new Obstacle("Grand Rocher de Cergy"));
                 cpt++;
             }
             tentatives++;
         }
     }
 
+    private boolean caseOccupeeParObjet(int idCase) {
+        return carte.getIndexObjet(idCase) != Carte.AUCUN_OBJET;
+    }
+
     private void initialiserAgents() {
         Case qg = carte.getCaseQG();
 
         //cognitifs explorent et si sont dans zone communicants => recoivent messages
-        for (int i = 0; i < SimuPara.NB_AGENTS_COGNITIFS; i++) {
-            ajouterAgent(new AgentCognitif(qg, carte));
+        for (int i = 0; i < config.getNbAgentsCognitifs(); i++) {
+            AgentCognitif cognitif = new AgentCognitif(qg, carte, contexte);
+            cognitif.setModeNavigation(config.getModeNavigation());
+            cognitif.setModeDiffusion(config.getModeDiffusion());
+            cognitif.configurerBoiteAuxLettres(config.getCapaciteBoiteAuxLettres(), config.getPolitiqueBoiteAuxLettres());
+            // moteur à ticks : personne ne vide la boîte pendant qu'un expéditeur attendrait
+            cognitif.configurerBoiteAuxLots(config.getCapaciteBoiteAuxLots(), config.getPolitiqueBoiteAuxLots(),
+                    modeExecution.estParTicks() ? 0L : BoiteAuxLettres.ATTENTE_MAX_DEFAUT_NANOS);
+            ajouterAgent(cognitif);
         }
 
         //exploration simple réactifs pour 'linstant '
-        for (int i = 0; i < SimuPara.NB_AGENTS_REACTIFS; i++) {
-            ajouterAgent(new AgentReactif(qg, carte));
+        for (int i = 0; i < config.getNbAgentsReactifs(); i++) {
+            ajouterAgent(new AgentReactif(qg, carte, contexte));
         }
 
         // M<N , si tous trésors collectés alors dans ce cas ... on se teleporte 
         int zoneIndex = 1;
-        for (int i = 0; i < SimuPara.NB_AGENTS_COMMUNICANTS && zoneIndex < 9; i++) {
+        for (int i = 0; i < config.getNbAgentsCommunicants() && zoneIndex < carte.getNbZones(); i++) {
             Zone zone = carte.getZoneById(zoneIndex);
             if (zone != null) {
                 Case spawnCase = trouverCaseAccessibleDansZone(zone); //simplifier cette partie sinon agent cognitif mourra // ou on enleve logique take damage mais obfusquera animaux dans la map
                 if (spawnCase != null) {
-                    ajouterAgent(new AgentCommunicant(spawnCase, carte));
-                    System.out.println("Agent Communicant spawné dans Zone " + zoneIndex);
+                    AgentCommunicant communicant = new AgentCommunicant(spawnCase, carte, contexte);
+                    communicant.setModeDiffusion(config.getModeDiffusion());
+                    communicant.setMessagesParLots(config.isMessagesParLots());
+                    ajouterAgent(communicant);
+                    if (contexte.isTraces()) {
+                        System.out.println("Agent Communicant spawné dans Zone " + zoneIndex);
+                    }
                 }
             }
             zoneIndex++;
@@ -143,17 +200,13 @@ public class Simulation {
     }
 
     private Case trouverCaseAccessibleDansZone(Zone zone) {
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
-                Case c = zone.getCase(x, y);
-                if (c != null && c.isAccessible() && !c.hasObjet()) {
-                    return c;
-                }
-            }
+        int index = zone.getRegistre().premiereCaseLibre(0);
+        if (index >= 0) {
+            return zone.getCase(index / zone.getTaille(), index % zone.getTaille());
         }
         // Si pas de case vide, prendre une accessible
-        for (int x = 0; x < Zone.TAILLE; x++) {
-            for (int y = 0; y < Zone.TAILLE; y++) {
+        for (int x = 0; x < zone.getTaille(); x++) {
+            for (int y = 0; y < zone.getTaille(); y++) {
                 Case c = zone.getCase(x, y);
                 if (c != null && c.isAccessible()) {
                     return c;
@@ -165,8 +218,11 @@ public class Simulation {
 
     private void ajouterAgent(Agent agent) {
         agents.add(agent);
-        AgentManager manager = new AgentManager(agent, this , SimuPara.DELAY_MS);
-        agentManagers.add(manager);
+        if (!modeExecution.estParTicks()) {
+            boolean virtuel = modeExecution == ModeExecution.THREAD_VIRTUEL_PAR_AGENT;
+            AgentManager manager = new AgentManager(agent, this , config.getDelaiMs(), virtuel);
+            agentManagers.add(manager);
+        }
     }
 
     public void demarrer() {
@@ -176,6 +232,13 @@ public class Simulation {
         running = true;
         tempsDebut = System.currentTimeMillis(); //pour compter => mais mm probleme que python retourne datetime actuel  en milisecondes 
 
+        if (modeExecution.estParTicks()) {
+            moteurTicks = new MoteurTicks(this, agents, config.getNbThreadsTicks(), config.getDelaiMs(),
+                    modeExecution == ModeExecution.TICKS_PAR_ZONE);
+            moteurTicks.demarrer();
+        } else {
+            roue.demarrer();
+        }
         for (AgentManager manager : agentManagers) {
             manager.start();
         }
@@ -184,6 +247,10 @@ public class Simulation {
     public void arreter() {
         running = false;
         tempsFin = System.currentTimeMillis();
+        if (moteurTicks != null) {
+            moteurTicks.arreter();
+        }
+        roue.arreter();
         for (AgentManager manager : agentManagers) {
             manager.stopAgent();
         }
@@ -196,7 +263,9 @@ public class Simulation {
         long dureeSecondes = dureeSimulation / 1000;
         long minutes = dureeSecondes / 60;
         long secondesRestantes = dureeSecondes % 60; //sinon minutes avec virgules
-        System.out.println("La simulation est terminée , la durée totale était de : "+minutes+" minutes et de "+secondesRestantes+ "secondes! bien joué");
+        if (contexte.isTraces()) {
+            System.out.println("La simulation est terminée , la durée totale était de : "+minutes+" minutes et de "+secondesRestantes+ "secondes! bien joué");
+        }
     }
     
     public boolean isRunning() {
@@ -207,6 +276,40 @@ public class Simulation {
         return carte;
     }
 
+    /**
+     * Graine dont découle tout le hasard de cette simulation (pour la rejouer).
+     */
+    public long getGraineMaitre() {
+        return graineMaitre;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public ContexteSimulation getContexte() {
+        return contexte;
+    }
+
+    public ModeExecution getModeExecution() {
+        return modeExecution;
+    }
+
+    /**
+     * Moteur à ticks (null en mode THREAD_PAR_AGENT ou avant demarrer()).
+     */
+    public MoteurTicks getMoteurTicks() {
+        return moteurTicks;
+    }
+
+    /**
+     * Roue des événements différés (réapparitions) : cadencée par le moteur
+     * à ticks, ou par son propre thread en mode un thread par agent.
+     */
+    public RoueTemporelle getRoueTemporelle() {
+        return roue;
+    }
+
     public List<Agent> getAgents() {
         return agents;
     }
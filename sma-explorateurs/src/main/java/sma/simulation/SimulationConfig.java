@@ -0,0 +1,368 @@
+package sma.simulation;
+
+import sma.agents.ModeDiffusion;
+import sma.concurrent.BoiteAuxLettres.PolitiqueDebordement;
+import sma.navigation.ModeNavigation;
+
+/**
+ * Paramètres d'une simulation, immuables : chaque méthode avec... renvoie
+ * une copie modifiée. Une Simulation garde la configuration reçue à sa
+ * construction ; plusieurs simulations peuvent tourner en même temps avec
+ * des configurations différentes.
+ */
+public final class SimulationConfig {
+
+    public static final SimulationConfig DEFAUT = new Copie().construire();
+
+    // Carte
+    private final int nbZonesCote;
+    private final int tailleZone;
+    // Agents
+    private final int nbAgentsReactifs;
+    private final int nbAgentsCognitifs;
+    private final int nbAgentsCommunicants;
+    // Objets
+    private final int nbTresorsParZone;
+    private final int nbAnimauxParZone;
+    private final int nbObstaclesParZone;
+    private final int maxDegatsAnimaux;
+    // Exécution
+    private final ModeExecution modeExecution;
+    private final int nbThreadsTicks;
+    private final long delaiMs;
+    // Cognitifs
+    private final ModeNavigation modeNavigation;
+    private final int capaciteBoiteAuxLettres;
+    private final PolitiqueDebordement politiqueBoiteAuxLettres;
+    // Communicants
+    private final ModeDiffusion modeDiffusion;
+    private final boolean messagesParLots;
+    private final int capaciteBoiteAuxLots;
+    private final PolitiqueDebordement politiqueBoiteAuxLots;
+    private final Long graine;      // null : placement aléatoire
+    // Sortie
+    private final boolean traces;   // false : les agents et la simulation n'écrivent rien sur la console
+
+    private SimulationConfig(Copie c) {
+        if (c.nbZonesCote <= 0 || c.tailleZone <= 0) {
+            throw new IllegalArgumentException("Dimensions de carte invalides : " + c.nbZonesCote + " zones de " + c.tailleZone);
+        }
+        if (c.nbAgentsReactifs < 0 || c.nbAgentsCognitifs < 0 || c.nbAgentsCommunicants < 0) {
+            throw new IllegalArgumentException("Nombre d'agents négatif");
+        }
+        if (c.maxDegatsAnimaux <= 0) {
+            throw new IllegalArgumentException("Dégâts max invalides : " + c.maxDegatsAnimaux);
+        }
+        if (c.politiqueBoiteAuxLots == PolitiqueDebordement.FUSIONNER) {
+            throw new IllegalArgumentException("Politique FUSIONNER impossible pour les lots : ils n'ont pas de clé");
+        }
+        this.nbZonesCote = c.nbZonesCote;
+        this.tailleZone = c.tailleZone;
+        this.nbAgentsReactifs = c.nbAgentsReactifs;
+        this.nbAgentsCognitifs = c.nbAgentsCognitifs;
+        this.nbAgentsCommunicants = c.nbAgentsCommunicants;
+        this.nbTresorsParZone = c.nbTresorsParZone;
+        this.nbAnimauxParZone = c.nbAnimauxParZone;
+        this.nbObstaclesParZone = c.nbObstaclesParZone;
+        this.maxDegatsAnimaux = c.maxDegatsAnimaux;
+        this.modeExecution = c.modeExecution;
+        this.nbThreadsTicks = Math.max(1, c.nbThreadsTicks);
+        this.delaiMs = Math.max(0, c.delaiMs);
+        this.modeNavigation = c.modeNavigation;
+        this.capaciteBoiteAuxLettres = c.capaciteBoiteAuxLettres;
+        this.politiqueBoiteAuxLettres = c.politiqueBoiteAuxLettres;
+        this.modeDiffusion = c.modeDiffusion;
+        this.messagesParLots = c.messagesParLots;
+        this.capaciteBoiteAuxLots = c.capaciteBoiteAuxLots;
+        this.politiqueBoiteAuxLots = c.politiqueBoiteAuxLots;
+        this.graine = c.graine;
+        this.traces = c.traces;
+    }
+
+    // ========== COPIES MODIFIÉES ==========
+    public SimulationConfig avecCarte(int nbZonesCote, int tailleZone) {
+        Copie c = new Copie(this);
+        c.nbZonesCote = nbZonesCote;
+        c.tailleZone = tailleZone;
+        return c.construire();
+    }
+
+    public SimulationConfig avecAgents(int reactifs, int cognitifs, int communicants) {
+        Copie c = new Copie(this);
+        c.nbAgentsReactifs = reactifs;
+        c.nbAgentsCognitifs = cognitifs;
+        c.nbAgentsCommunicants = communicants;
+        return c.construire();
+    }
+
+    public SimulationConfig avecObjets(int tresorsParZone, int animauxParZone, int obstaclesParZone, int degatsMax) {
+        Copie c = new Copie(this);
+        c.nbTresorsParZone = tresorsParZone;
+        c.nbAnimauxParZone = animauxParZone;
+        c.nbObstaclesParZone = obstaclesParZone;
+        c.maxDegatsAnimaux = degatsMax;
+        return c.construire();
+    }
+
+    public SimulationConfig avecExecution(ModeExecution mode, int nbThreads, long delai) {
+        Copie c = new Copie(this);
+        c.modeExecution = mode;
+        c.nbThreadsTicks = nbThreads;
+        c.delaiMs = delai;
+        return c.construire();
+    }
+
+    public SimulationConfig avecNavigation(ModeNavigation mode) {
+        Copie c = new Copie(this);
+        c.modeNavigation = mode;
+        return c.construire();
+    }
+
+    public SimulationConfig avecBoiteAuxLettres(int capacite, PolitiqueDebordement politique) {
+        Copie c = new Copie(this);
+        c.capaciteBoiteAuxLettres = capacite;
+        c.politiqueBoiteAuxLettres = politique;
+        return c.construire();
+    }
+
+    /**
+     * Boîte des lots reçus par les cognitifs. Avec BLOQUER, l'expéditeur
+     * n'attend une place qu'avec les threads : avec le moteur à ticks, le
+     * destinataire ne vide sa boîte qu'à son propre pas.
+     */
+    public SimulationConfig avecBoiteAuxLots(int capacite, PolitiqueDebordement politique) {
+        Copie c = new Copie(this);
+        c.capaciteBoiteAuxLots = capacite;
+        c.politiqueBoiteAuxLots = politique;
+        return c.construire();
+    }
+
+    /**
+     * @param parLots true : les informations d'un pas partent en un seul
+     *                LotMessages par destinataire, false : un Message chacune
+     */
+    public SimulationConfig avecDiffusion(ModeDiffusion mode, boolean parLots) {
+        Copie c = new Copie(this);
+        c.modeDiffusion = mode;
+        c.messagesParLots = parLots;
+        return c.construire();
+    }
+
+    /**
+     * Même placement des objets pour une même graine.
+     */
+    public SimulationConfig avecGraine(long graine) {
+        Copie c = new Copie(this);
+        c.graine = graine;
+        return c.construire();
+    }
+
+    /**
+     * Traces console des agents et de la simulation. Propre à chaque
+     * simulation : les couper ne touche ni System.out ni les autres
+     * simulations de la JVM.
+     */
+    public SimulationConfig avecTraces(boolean traces) {
+        Copie c = new Copie(this);
+        c.traces = traces;
+        return c.construire();
+    }
+
+    /**
+     * Copie modifiée à partir d'un couple cle=valeur (ligne de commande,
+     * fichier .properties, grille d'expériences).
+     */
+    public SimulationConfig avecParametre(String cle, String valeur) {
+        switch (cle) {
+            case "zonesCote": return avecCarte(Integer.parseInt(valeur), tailleZone);
+            case "tailleZone": return avecCarte(nbZonesCote, Integer.parseInt(valeur));
+            case "reactifs": return avecAgents(Integer.parseInt(valeur), nbAgentsCognitifs, nbAgentsCommunicants);
+            case "cognitifs": return avecAgents(nbAgentsReactifs, Integer.parseInt(valeur), nbAgentsCommunicants);
+            case "communicants": return avecAgents(nbAgentsReactifs, nbAgentsCognitifs, Integer.parseInt(valeur));
+            case "tresorsParZone": return avecObjets(Integer.parseInt(valeur), nbAnimauxParZone, nbObstaclesParZone, maxDegatsAnimaux);
+            case "animauxParZone": return avecObjets(nbTresorsParZone, Integer.parseInt(valeur), nbObstaclesParZone, maxDegatsAnimaux);
+            case "obstaclesParZone": return avecObjets(nbTresorsParZone, nbAnimauxParZone, Integer.parseInt(valeur), maxDegatsAnimaux);
+            case "degatsMax": return avecObjets(nbTresorsParZone, nbAnimauxParZone, nbObstaclesParZone, Integer.parseInt(valeur));
+            case "execution": return avecExecution(ModeExecution.valueOf(valeur), nbThreadsTicks, delaiMs);
+            case "threads": return avecExecution(modeExecution, Integer.parseInt(valeur), delaiMs);
+            case "delaiMs": return avecExecution(modeExecution, nbThreadsTicks, Long.parseLong(valeur));
+            case "navigation": return avecNavigation(ModeNavigation.valueOf(valeur));
+            case "capaciteBoite": return avecBoiteAuxLettres(Integer.parseInt(valeur), politiqueBoiteAuxLettres);
+            case "politiqueBoite": return avecBoiteAuxLettres(capaciteBoiteAuxLettres, PolitiqueDebordement.valueOf(valeur));
+            case "diffusion": return avecDiffusion(ModeDiffusion.valueOf(valeur), messagesParLots);
+            case "lots": return avecDiffusion(modeDiffusion, Boolean.parseBoolean(valeur));
+            case "capaciteLots": return avecBoiteAuxLots(Integer.parseInt(valeur), politiqueBoiteAuxLots);
+            case "politiqueLots": return avecBoiteAuxLots(capaciteBoiteAuxLots, PolitiqueDebordement.valueOf(valeur));
+            case "graine": return avecGraine(Long.parseLong(valeur));
+            case "traces": return avecTraces(Boolean.parseBoolean(valeur));
+            default:
+                throw new IllegalArgumentException("Paramètre inconnu : " + cle);
+        }
+    }
+
+    // ========== LECTURE ==========
+    public int getNbZonesCote() {
+        return nbZonesCote;
+    }
+
+    public int getTailleZone() {
+        return tailleZone;
+    }
+
+    public int getNbAgentsReactifs() {
+        return nbAgentsReactifs;
+    }
+
+    public int getNbAgentsCognitifs() {
+        return nbAgentsCognitifs;
+    }
+
+    public int getNbAgentsCommunicants() {
+        return nbAgentsCommunicants;
+    }
+
+    public int getNbTresorsParZone() {
+        return nbTresorsParZone;
+    }
+
+    public int getNbAnimauxParZone() {
+        return nbAnimauxParZone;
+    }
+
+    public int getNbObstaclesParZone() {
+        return nbObstaclesParZone;
+    }
+
+    public int getMaxDegatsAnimaux() {
+        return maxDegatsAnimaux;
+    }
+
+    public ModeExecution getModeExecution() {
+        return modeExecution;
+    }
+
+    public int getNbThreadsTicks() {
+        return nbThreadsTicks;
+    }
+
+    public long getDelaiMs() {
+        return delaiMs;
+    }
+
+    public ModeNavigation getModeNavigation() {
+        return modeNavigation;
+    }
+
+    public int getCapaciteBoiteAuxLettres() {
+        return capaciteBoiteAuxLettres;
+    }
+
+    public PolitiqueDebordement getPolitiqueBoiteAuxLettres() {
+        return politiqueBoiteAuxLettres;
+    }
+
+    public ModeDiffusion getModeDiffusion() {
+        return modeDiffusion;
+    }
+
+    public boolean isMessagesParLots() {
+        return messagesParLots;
+    }
+
+    public int getCapaciteBoiteAuxLots() {
+        return capaciteBoiteAuxLots;
+    }
+
+    public PolitiqueDebordement getPolitiqueBoiteAuxLots() {
+        return politiqueBoiteAuxLots;
+    }
+
+    public boolean aUneGraine() {
+        return graine != null;
+    }
+
+    /**
+     * Graine de placement ; n'a de sens que si aUneGraine().
+     */
+    public long getGraine() {
+        return graine != null ? graine : 0L;
+    }
+
+    public boolean isTraces() {
+        return traces;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SimulationConfig[%dx%d zones de %d, agents R/C/M=%d/%d/%d, objets T/A/O=%d/%d/%d (dégâts %d), "
+                + "%s x%d délai %d ms, %s, boîte %d %s, diffusion %s%s (boîte %d %s), graine %s%s]",
+                nbZonesCote, nbZonesCote, tailleZone, nbAgentsReactifs, nbAgentsCognitifs, nbAgentsCommunicants,
+                nbTresorsParZone, nbAnimauxParZone, nbObstaclesParZone, maxDegatsAnimaux,
+                modeExecution, nbThreadsTicks, delaiMs, modeNavigation, capaciteBoiteAuxLettres, politiqueBoiteAuxLettres,
+                modeDiffusion, messagesParLots ? " par lots" : "", capaciteBoiteAuxLots, politiqueBoiteAuxLots,
+                graine != null ? graine : "aléatoire", traces ? "" : ", sans traces");
+    }
+
+    // ========== COPIE ==========
+    /**
+     * Champs modifiables d'une configuration en cours de copie : une méthode
+     * avec... ne touche que les siens, un nouveau paramètre ne s'ajoute
+     * qu'ici et dans le constructeur. Les valeurs initiales sont celles de
+     * DEFAUT.
+     */
+    private static final class Copie {
+
+        int nbZonesCote = 3;
+        int tailleZone = 10;
+        int nbAgentsReactifs = 5;
+        int nbAgentsCognitifs = 5;
+        int nbAgentsCommunicants = 3;
+        int nbTresorsParZone = 1;
+        int nbAnimauxParZone = 2;
+        int nbObstaclesParZone = 5;
+        int maxDegatsAnimaux = 20;
+        ModeExecution modeExecution = ModeExecution.THREAD_PAR_AGENT;
+        int nbThreadsTicks = Runtime.getRuntime().availableProcessors();
+        long delaiMs = 100;
+        ModeNavigation modeNavigation = ModeNavigation.ASTAR;
+        int capaciteBoiteAuxLettres = 64;
+        PolitiqueDebordement politiqueBoiteAuxLettres = PolitiqueDebordement.FUSIONNER;
+        ModeDiffusion modeDiffusion = ModeDiffusion.DELTA;
+        boolean messagesParLots = true;
+        int capaciteBoiteAuxLots = 16;  // au plus un lot par communicant de la zone et par pas
+        PolitiqueDebordement politiqueBoiteAuxLots = PolitiqueDebordement.BLOQUER;
+        Long graine = null;
+        boolean traces = true;
+
+        Copie() {
+        }
+
+        Copie(SimulationConfig config) {
+            this.nbZonesCote = config.nbZonesCote;
+            this.tailleZone = config.tailleZone;
+            this.nbAgentsReactifs = config.nbAgentsReactifs;
+            this.nbAgentsCognitifs = config.nbAgentsCognitifs;
+            this.nbAgentsCommunicants = config.nbAgentsCommunicants;
+            this.nbTresorsParZone = config.nbTresorsParZone;
+            this.nbAnimauxParZone = config.nbAnimauxParZone;
+            this.nbObstaclesParZone = config.nbObstaclesParZone;
+            this.maxDegatsAnimaux = config.maxDegatsAnimaux;
+            this.modeExecution = config.modeExecution;
+            this.nbThreadsTicks = config.nbThreadsTicks;
+            this.delaiMs = config.delaiMs;
+            this.modeNavigation = config.modeNavigation;
+            this.capaciteBoiteAuxLettres = config.capaciteBoiteAuxLettres;
+            this.politiqueBoiteAuxLettres = config.politiqueBoiteAuxLettres;
+            this.modeDiffusion = config.modeDiffusion;
+            this.messagesParLots = config.messagesParLots;
+            this.capaciteBoiteAuxLots = config.capaciteBoiteAuxLots;
+            this.politiqueBoiteAuxLots = config.politiqueBoiteAuxLots;
+            this.graine = config.graine;
+            this.traces = config.traces;
+        }
+
+        SimulationConfig construire() {
+            return new SimulationConfig(this);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package sma.agents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+import sma.environnement.Carte;
+import sma.environnement.Case;
+import sma.messaging.BusZones;
+import sma.messaging.LotMessages;
+import sma.messaging.TableauNoir;
+import sma.objets.Animal;
+import sma.objets.Tresor;
+
+/**
+ * Tests de la diffusion des communicants (complète ou par deltas).
+ */
+public class AgentCommunicantTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    private Carte carte;
+    private BusZones bus;
+    private AgentCommunicant communicant;
+
+    @Override
+    protected void setUp() {
+        carte = new Carte(2, 10);
+        bus = carte.getBus();
+        carte.placerObjet(carte.getCaseGlobale(2, 12).getId(), new Tresor(10));
+        carte.placerObjet(carte.getCaseGlobale(3, 13).getId(), new Tresor(20));
+        carte.placerObjet(carte.getCaseGlobale(5, 15).getId(), new Animal("ortie", 1));
+        communicant = new AgentCommunicant(carte.getCaseGlobale(9, 19), carte, contexte);
+    }
+
+    private static List<Message.TypeMessage> vider(AgentCognitif agent) {
+        List<Message.TypeMessage> types = new ArrayList<>();
+        Message msg;
+        while ((msg = agent.getBoiteAuxLettres().retirer()) != null) {
+            types.add(msg.getType());
+        }
+        return types;
+    }
+
+    public void testModeCompleteRenvoieToutAChaquePas() {
+        communicant.setModeDiffusion(ModeDiffusion.COMPLETE);
+        communicant.setMessagesParLots(false);
+        new AgentCognitif(carte.getCaseGlobale(0, 10), carte, contexte);
+        communicant.step();
+        communicant.step();
+        assertEquals(6, bus.getNbPublications());
+    }
+
+    public void testModeDeltaNEnvoieQueLesChangements() {
+        communicant.setMessagesParLots(false);
+        AgentCognitif present = new AgentCognitif(carte.getCaseGlobale(0, 10), carte, contexte);
+        communicant.step();
+        assertEquals(3, vider(present).size());
+        communicant.step();
+        assertEquals(3, bus.getNbPublications()); // rien n'a changé
+
+        // un arrivant reçoit l'état déjà annoncé, une seule fois
+        AgentCognitif arrivant = new AgentCognitif(carte.getCaseGlobale(1, 10), carte, contexte);
+        communicant.step();
+        communicant.step();
+        assertEquals(3, vider(arrivant).size());
+        assertTrue(vider(present).isEmpty());
+
+        // trésors ramassés : case périmée, puis zone vide
+        present.appliquerDeplacement(carte.getCaseGlobale(2, 12));
+        communicant.step();
+        assertEquals(List.of(Message.TypeMessage.TRESOR_COLLECTE), vider(arrivant));
+        present.appliquerDeplacement(carte.getCaseGlobale(3, 13));
+        communicant.step();
+        assertEquals(List.of(Message.TypeMessage.TRESOR_COLLECTE, Message.TypeMessage.AUCUN_TRESOR_ZONE), vider(arrivant));
+    }
+
+    public void testUnRevenantEstRemisANiveau() {
+        communicant.setMessagesParLots(false);
+        AgentCognitif agent = new AgentCognitif(carte.getCaseGlobale(0, 10), carte, contexte);
+        communicant.step();
+        assertEquals(3, vider(agent).size());
+
+        // parti pendant qu'un trésor apparaît : il ne reçoit pas le delta
+        agent.appliquerDeplacement(carte.getCaseGlobale(0, 9));
+        carte.placerObjet(carte.getCaseGlobale(4, 14).getId(), new Tresor(30));
+        communicant.step();
+        assertTrue(vider(agent).isEmpty());
+
+        // de retour : tout l'état de la zone, trésor manqué compris
+        agent.appliquerDeplacement(carte.getCaseGlobale(0, 10));
+        communicant.step();
+        communicant.step();
+        List<Message.TypeMessage> recus = vider(agent);
+        assertEquals(4, recus.size());
+        assertEquals(3, recus.stream().filter(t -> t == Message.TypeMessage.TRESOR_TROUVE).count());
+    }
+
+    public void testUnLotParDestinataireEtParPas() {
+        AgentCognitif present = new AgentCognitif(carte.getCaseGlobale(0, 10), carte, contexte);
+        communicant.step();
+        AgentCognitif arrivant = new AgentCognitif(carte.getCaseGlobale(1, 10), carte, contexte);
+        communicant.step();
+
+        LotMessages lot = present.getBoiteAuxLots().retirer();
+        assertEquals(3, lot.getNbEntrees());
+        assertEquals(0, lot.getTick()); // premier pas du communicant
+        assertNull(present.getBoiteAuxLots().retirer());
+        assertEquals(3, arrivant.getBoiteAuxLots().retirer().getNbEntrees()); // état de rattrapage
+        assertEquals(0, present.getBoiteAuxLettres().getNbDeposes());
+        assertEquals(2, bus.getNbPublications());
+        assertEquals(6, bus.getNbEntrees());
+    }
+
+    public void testTableauNoir() {
+        communicant.setModeDiffusion(ModeDiffusion.TABLEAU_NOIR);
+        AgentCognitif present = new AgentCognitif(carte.getCaseGlobale(0, 10), carte, contexte);
+        AgentCognitif lecteur = new AgentCognitif(carte.getCaseGlobale(1, 10), carte, contexte);
+        lecteur.setModeDiffusion(ModeDiffusion.TABLEAU_NOIR);
+        present.step(); // hors mode TABLEAU_NOIR : ne lit pas le tableau
+        assertEquals(0, carte.getTableauNoir().getNbLectures());
+        communicant.step();
+        communicant.step();
+        lecteur.step();
+        assertEquals(1, carte.getTableauNoir().getNbLectures());
+        assertTrue(lecteur.getConnaissances().connaitTresor(carte.getCaseGlobale(2, 12).getId()));
+
+        TableauNoir.Instantane etat = carte.getTableauNoir().lire();
+        assertEquals(1, etat.getVersion()); // un seul pas avait quelque chose à écrire
+        assertTrue(etat.contientTresor(carte.getCaseGlobale(2, 12).getId()));
+        assertTrue(etat.contientDanger(carte.getCaseGlobale(5, 15).getId()));
+        assertEquals(communicant.getId(), etat.getAffectation(carte.getCaseGlobale(9, 19).getZone().getId()));
+        assertEquals(0, bus.getNbPublications());
+
+        present.appliquerDeplacement(carte.getCaseGlobale(2, 12));
+        communicant.step();
+        assertFalse(carte.getTableauNoir().lire().contientTresor(carte.getCaseGlobale(2, 12).getId()));
+    }
+
+    public void testDeuxCommunicantsNeReserventJamaisLaMemeZone() throws InterruptedException {
+        for (int essai = 0; essai < 200; essai++) {
+            ContexteSimulation propre = new ContexteSimulation();
+            Carte grande = new Carte(3, 5);
+            int zoneA = grande.getCaseGlobale(12, 2).getZone().getId();
+            int zoneB = grande.getCaseGlobale(12, 12).getZone().getId();
+            grande.placerObjet(grande.getCaseGlobale(12, 2).getId(), new Tresor(10));
+            grande.placerObjet(grande.getCaseGlobale(12, 12).getId(), new Tresor(10));
+            // deux zones vides au départ : les deux se téléportent au premier pas, vers les mêmes candidates
+            final AgentCommunicant[] communicants = {
+                new AgentCommunicant(grande.getCaseGlobale(5, 0), grande, propre),
+                new AgentCommunicant(grande.getCaseGlobale(0, 5), grande, propre)
+            };
+            final CountDownLatch depart = new CountDownLatch(1);
+            Thread[] threads = new Thread[communicants.length];
+            for (int i = 0; i < communicants.length; i++) {
+                final AgentCommunicant agent = communicants[i];
+                agent.setModeDiffusion(ModeDiffusion.TABLEAU_NOIR);
+                threads[i] = new Thread(() -> {
+                    try {
+                        depart.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    agent.step();
+                });
+                threads[i].start();
+            }
+            depart.countDown();
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            int zone0 = communicants[0].getCaseActuelle().getZone().getId();
+            int zone1 = communicants[1].getCaseActuelle().getZone().getId();
+            assertTrue(zone0 != zone1);
+            assertTrue(zone0 == zoneA || zone0 == zoneB);
+            assertTrue(zone1 == zoneA || zone1 == zoneB);
+            TableauNoir.Instantane etat = grande.getTableauNoir().lire();
+            assertEquals(communicants[0].getId(), etat.getAffectation(zone0));
+            assertEquals(communicants[1].getId(), etat.getAffectation(zone1));
+            assertTrue(propre.getZonesOccupees().isEmpty()); // réservé aux modes COMPLETE et DELTA
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package sma.agents;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import sma.environnement.Carte;
+import sma.environnement.Case;
+import sma.objets.Tresor;
+
+/**
+ * Tests de la carte des connaissances d'un agent cognitif.
+ */
+public class ConnaissancesTest extends TestCase {
+
+    public void testAjoutOubliEtOrdre() {
+        Connaissances connaissances = new Connaissances(200);
+        assertTrue(connaissances.ajouterTresor(130));
+        assertTrue(connaissances.ajouterTresor(5));
+        assertTrue(connaissances.ajouterTresor(64));
+        assertFalse(connaissances.ajouterTresor(5));
+        assertEquals(3, connaissances.getNbTresors());
+
+        assertTrue(connaissances.oublierTresor(5));
+        assertFalse(connaissances.oublierTresor(5));
+        assertFalse(connaissances.connaitTresor(5));
+        assertEquals(130, connaissances.getTresor(0));
+        assertEquals(64, connaissances.getTresor(1));
+
+        assertFalse(connaissances.estAEviter(199));
+        assertTrue(connaissances.ajouterCaseAEviter(199));
+        assertFalse(connaissances.ajouterCaseAEviter(199));
+        assertTrue(connaissances.estAEviter(199));
+        assertEquals(1, connaissances.getNbCasesAEviter());
+    }
+
+    public void testIntersectionAvecLesTresorsDeLaCarte() {
+        Carte carte = new Carte(2, 10);
+        int[] ids = { carte.getCaseGlobale(1, 1).getId(), carte.getCaseGlobale(15, 3).getId(), carte.getCaseGlobale(18, 18).getId() };
+        Tresor[] tresors = new Tresor[ids.length];
+        Connaissances connaissances = new Connaissances(carte.getNbCases());
+        for (int i = 0; i < ids.length; i++) {
+            tresors[i] = new Tresor(10);
+            carte.placerObjet(ids[i], tresors[i]);
+            connaissances.ajouterTresor(ids[i]);
+        }
+        connaissances.ajouterTresor(carte.getCaseGlobale(2, 2).getId()); // signalé à tort
+
+        List<Integer> oublies = new ArrayList<>();
+        assertEquals(1, connaissances.intersecter(carte.getTresorsNonCollectes(), carte.getVersionTresors(), oublies::add));
+        assertEquals(0, connaissances.intersecter(carte.getTresorsNonCollectes(), carte.getVersionTresors(), oublies::add));
+
+        carte.signalerTresorCollecte(ids[1]);
+        carte.retirerObjet(ids[2]);
+        assertEquals(2, connaissances.intersecter(carte.getTresorsNonCollectes(), carte.getVersionTresors(), oublies::add));
+        assertEquals(1, connaissances.getNbTresors());
+        assertEquals(ids[0], connaissances.getTresor(0));
+        assertEquals(3, oublies.size());
+    }
+
+    public void testTresorDejaRamasseSignaleEnRetard() {
+        Carte carte = new Carte(2, 10);
+        int ramasse = carte.getCaseGlobale(15, 3).getId();
+        carte.placerObjet(carte.getCaseGlobale(18, 18).getId(), new Tresor(10));
+        carte.placerObjet(ramasse, new Tresor(10));
+        carte.signalerTresorCollecte(ramasse);
+        AgentCognitif agent = new AgentCognitif(carte.getCaseQG(), carte, new ContexteSimulation());
+        agent.step(); // intersection faite : plus rien ne change côté carte
+
+        Case c = carte.getCase(ramasse);
+        agent.recevoir(new Message(0, Message.TypeMessage.TRESOR_TROUVE, c, c.getZone().getId()));
+        agent.step();
+        assertFalse(agent.getConnaissances().connaitTresor(ramasse));
+    }
+}
@@ -0,0 +1,85 @@
+package sma.concurrent;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import sma.concurrent.BoiteAuxLettres.PolitiqueDebordement;
+
+/**
+ * Tests des politiques de débordement et du dépôt concurrent.
+ */
+public class BoiteAuxLettresTest extends TestCase {
+
+    public void testSupprimerPlusAncien() {
+        BoiteAuxLettres<Integer> boite = new BoiteAuxLettres<>(4, PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(boite.deposer(i));
+        }
+        assertEquals(4, boite.getProfondeur());
+        assertEquals(2, boite.getNbPertes());
+        assertEquals(Integer.valueOf(2), boite.retirer());
+        assertEquals(Integer.valueOf(3), boite.retirer());
+        assertEquals(Integer.valueOf(4), boite.retirer());
+        assertEquals(Integer.valueOf(5), boite.retirer());
+        assertNull(boite.retirer());
+    }
+
+    public void testFusionner() {
+        BoiteAuxLettres<Integer> boite = new BoiteAuxLettres<>(8, PolitiqueDebordement.FUSIONNER,
+                m -> m % 3, BoiteAuxLettres.ATTENTE_MAX_DEFAUT_NANOS);
+        assertTrue(boite.deposer(1));
+        assertFalse(boite.deposer(4)); // même clé que 1, toujours en attente
+        assertTrue(boite.deposer(2));
+        assertEquals(1, boite.getNbFusions());
+        assertEquals(2, boite.getProfondeur());
+
+        assertEquals(Integer.valueOf(1), boite.retirer());
+        assertTrue(boite.deposer(7)); // la clé 1 n'est plus en attente
+        assertEquals(Integer.valueOf(2), boite.retirer());
+        assertEquals(Integer.valueOf(7), boite.retirer());
+    }
+
+    public void testBloquerExpire() {
+        BoiteAuxLettres<Integer> boite = new BoiteAuxLettres<>(2, PolitiqueDebordement.BLOQUER, null, 1_000_000L);
+        assertTrue(boite.deposer(1));
+        assertTrue(boite.deposer(2));
+        assertFalse(boite.deposer(3));
+        assertEquals(1, boite.getNbPertes());
+        assertEquals(Integer.valueOf(1), boite.retirer());
+        assertTrue(boite.deposer(4));
+    }
+
+    public void testExpediteursConcurrents() throws InterruptedException {
+        final int nbExpediteurs = 4;
+        final int parExpediteur = 5000;
+        final BoiteAuxLettres<Integer> boite = new BoiteAuxLettres<>(64, PolitiqueDebordement.BLOQUER,
+                null, 5_000_000_000L);
+        Thread[] expediteurs = new Thread[nbExpediteurs];
+        for (int t = 0; t < nbExpediteurs; t++) {
+            final int base = t * parExpediteur;
+            expediteurs[t] = new Thread(() -> {
+                for (int i = 0; i < parExpediteur; i++) {
+                    boite.deposer(base + i);
+                }
+            });
+            expediteurs[t].start();
+        }
+
+        Set<Integer> recus = new HashSet<>();
+        long limite = System.currentTimeMillis() + 20_000;
+        while (recus.size() < nbExpediteurs * parExpediteur && System.currentTimeMillis() < limite) {
+            Integer m = boite.retirer();
+            if (m != null) {
+                assertTrue("message reçu deux fois : " + m, recus.add(m));
+            } else {
+                Thread.yield();
+            }
+        }
+        for (Thread t : expediteurs) {
+            t.join();
+        }
+        assertEquals(nbExpediteurs * parExpediteur, recus.size());
+        assertEquals(0, boite.getNbPertes());
+    }
+}
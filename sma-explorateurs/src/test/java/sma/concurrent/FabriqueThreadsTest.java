@@ -0,0 +1,24 @@
+package sma.concurrent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests de la fabrique de threads.
+ */
+public class FabriqueThreadsTest extends TestCase {
+
+    public void testThreadVirtuelOuRepli() throws InterruptedException {
+        AtomicBoolean execute = new AtomicBoolean();
+        Thread t = FabriqueThreads.creer(() -> execute.set(true), "agent-test", true);
+
+        assertEquals("agent-test", t.getName());
+        assertEquals(Thread.State.NEW, t.getState());
+        t.start();
+        t.join();
+        assertTrue(execute.get());
+        // sur un JDK 21+ le thread est virtuel, donc démon
+        assertEquals(FabriqueThreads.threadsVirtuelsDisponibles(), t.isDaemon());
+    }
+}
@@ -0,0 +1,124 @@
+package sma.environnement;
+
+import junit.framework.TestCase;
+import sma.agents.AgentReactif;
+import sma.agents.ContexteSimulation;
+import sma.objets.Animal;
+import sma.objets.Obstacle;
+import sma.objets.Tresor;
+
+/**
+ * Tests de la représentation à plat de la carte.
+ */
+public class CarteTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    public void testDimensionsConfigurables() {
+        Carte carte = new Carte(4, 25);
+        assertEquals(100, carte.getCote());
+        assertEquals(10000, carte.getNbCases());
+        assertEquals(16, carte.getNbZones());
+    }
+
+    public void testIdentifiantsEtVues() {
+        Carte carte = new Carte(3, 10);
+        Zone zone = carte.getZone(1, 2);
+        Case c = zone.getCase(3, 4);
+
+        assertEquals(13, c.getXGlobal());
+        assertEquals(24, c.getYGlobal());
+        assertEquals(carte.idCase(13, 24), c.getId());
+        assertEquals(zone.getId(), carte.idZoneDe(c.getId()));
+        assertSame(c, carte.getCase(c.getId()));
+        assertSame(c, carte.getCaseGlobale(13, 24));
+        assertNull(carte.getCaseGlobale(30, 0));
+    }
+
+    public void testObjetsDansLesTableaux() {
+        Carte carte = new Carte(3, 10);
+        int id = carte.idCase(5, 5);
+        Tresor tresor = new Tresor(10);
+
+        carte.placerObjet(id, tresor);
+        assertEquals(Carte.NATURE_TRESOR, carte.getNature(id));
+        assertSame(tresor, carte.getCase(id).getObjet());
+
+        int idObstacle = carte.idCase(6, 5);
+        carte.getCase(idObstacle).setObjet(new Obstacle("rocher"));
+        assertFalse(carte.estAccessible(idObstacle));
+
+        carte.retirerObjet(idObstacle);
+        assertTrue(carte.getCase(idObstacle).isAccessible());
+        assertFalse(carte.getCase(idObstacle).hasObjet());
+    }
+
+    public void testCompteursDeTresorsIncrementaux() {
+        Carte carte = new Carte(3, 10);
+        carte.setVerificationCoherence(true);
+        int idZone1 = carte.idCase(12, 3);
+        int idZone8 = carte.idCase(25, 27);
+        carte.placerObjet(idZone1, new Tresor(5));
+        carte.placerObjet(idZone8, new Tresor(7));
+
+        assertEquals(2, carte.compterTresorsRestants());
+        assertEquals(1, carte.compterTresorsRestants(carte.idZoneDe(idZone1)));
+        assertEquals(0, carte.compterTresorsRestants(0));
+
+        AgentReactif agent = new AgentReactif(carte.getCaseQG(), carte, contexte);
+        agent.deplacerVers(carte.getCase(idZone1));
+        assertEquals(1, carte.compterTresorsRestants());
+        assertEquals(0, carte.compterTresorsRestants(carte.idZoneDe(idZone1)));
+        assertFalse(carte.tousTresorsCollectes());
+
+        carte.retirerObjet(idZone8);
+        assertTrue(carte.tousTresorsCollectes());
+        carte.verifierCoherenceTresors();
+    }
+
+    public void testTableDeVoisinageIncrementale() {
+        Carte carte = new Carte(3, 10);
+        int bord = carte.idCase(9, 4);        // bord droit de la zone 0
+        int autreZone = carte.idCase(10, 4);  // bord gauche de la zone 3
+        assertEquals(autreZone, carte.getVoisin(bord, Carte.DROITE));
+        assertEquals(Carte.AUCUN_VOISIN, carte.getVoisin(0, Carte.HAUT));
+        assertEquals(Carte.AUCUN_VOISIN, carte.getVoisin(0, Carte.GAUCHE));
+
+        int version = carte.getVersionAccessibilite();
+        carte.placerObjet(autreZone, new Obstacle("rocher"));
+        assertEquals(Carte.AUCUN_VOISIN, carte.getVoisin(bord, Carte.DROITE));
+        assertEquals(Carte.AUCUN_VOISIN, carte.getVoisin(carte.idCase(10, 5), Carte.HAUT));
+        assertTrue(carte.getVersionAccessibilite() != version);
+
+        carte.retirerObjet(autreZone);
+        assertEquals(autreZone, carte.getVoisin(bord, Carte.DROITE));
+        assertEquals(autreZone, carte.getVoisin(carte.idCase(11, 4), Carte.GAUCHE));
+    }
+
+    public void testRegistreObjetsParZone() {
+        Carte carte = new Carte(2, 10);
+        Zone zone = carte.getZone(1, 0);
+        int idTresor = zone.idCase(0, 3);
+        int idAnimal = zone.idCase(4, 4);
+        carte.placerObjet(idTresor, new Tresor(1));
+        carte.placerObjet(idAnimal, new Animal("ortie", 1));
+        carte.placerObjet(zone.idCase(0, 0), new Obstacle("rocher"));
+
+        RegistreObjets registre = zone.getRegistre();
+        assertEquals(idTresor, zone.idCaseLocale(registre.getTresors().suivant(0)));
+        assertEquals(-1, registre.getTresors().suivant(zone.indexLocal(idTresor) + 1));
+        assertEquals(idAnimal, zone.idCaseLocale(registre.getAnimaux().suivant(0)));
+        assertEquals(1, registre.premiereCaseLibre(0));
+        assertEquals(0, carte.getZone(0, 0).getRegistre().getTresors().taille());
+
+        int version = registre.getVersion();
+        AgentReactif agent = new AgentReactif(carte.getCase(zone.idCase(0, 2)), carte, contexte);
+        agent.deplacerVers(carte.getCase(idTresor));
+        assertEquals(0, registre.getTresors().taille());
+        assertTrue(registre.getVersion() != version);
+
+        carte.retirerObjet(idAnimal);
+        assertEquals(-1, registre.getAnimaux().suivant(0));
+        carte.verifierCoherenceTresors();
+    }
+}
@@ -0,0 +1,71 @@
+package sma.environnement;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+import sma.agents.Agent;
+import sma.agents.AgentReactif;
+import sma.agents.ContexteSimulation;
+
+/**
+ * Tests de la liste des agents d'une case.
+ */
+public class CaseTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    private static List<Agent> lister(Case c) {
+        List<Agent> agents = new ArrayList<>();
+        for (Agent agent : c.getAgents()) {
+            agents.add(agent);
+        }
+        return agents;
+    }
+
+    public void testAjoutRetraitEtComptage() {
+        Carte carte = new Carte(1, 10);
+        Case qg = carte.getCaseQG();
+        Agent a = new AgentReactif(qg, carte, contexte);
+        Agent b = new AgentReactif(qg, carte, contexte);
+        Agent c = new AgentReactif(qg, carte, contexte);
+
+        qg.ajouterAgent(b); // déjà présent : sans effet
+        assertEquals(3, qg.getNbAgents());
+        assertEquals(3, lister(qg).size());
+
+        qg.retirerAgent(b);
+        qg.retirerAgent(b);
+        assertEquals(2, qg.getNbAgents());
+        assertFalse(qg.contientAgent(b));
+        assertTrue(lister(qg).contains(a));
+        assertTrue(lister(qg).contains(c));
+        assertFalse(lister(qg).contains(b));
+    }
+
+    public void testParcoursPendantLesDeparts() {
+        Carte carte = new Carte(1, 10);
+        Case qg = carte.getCaseQG();
+        Case voisine = carte.getCaseGlobale(0, 1);
+        List<Agent> agents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            agents.add(new AgentReactif(qg, carte, contexte));
+        }
+
+        // chaque agent rencontré part sur la case voisine pendant le parcours
+        int vus = 0;
+        Iterator<Agent> it = qg.getAgents().iterator();
+        while (it.hasNext()) {
+            Agent agent = it.next();
+            agent.deplacerVers(voisine);
+            vus++;
+        }
+
+        assertEquals(5, vus);
+        assertEquals(0, qg.getNbAgents());
+        assertFalse(qg.getAgents().iterator().hasNext());
+        assertEquals(5, voisine.getNbAgents());
+        assertEquals(5, lister(voisine).size());
+    }
+}
@@ -0,0 +1,52 @@
+package sma.environnement;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import sma.agents.Agent;
+import sma.agents.AgentCognitif;
+import sma.agents.AgentReactif;
+import sma.agents.ContexteSimulation;
+import sma.agents.TypologieAgent;
+
+/**
+ * Tests de l'index spatial des agents.
+ */
+public class IndexSpatialTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    public void testSuiviDesZonesEtDesMorts() {
+        Carte carte = new Carte(3, 10);
+        IndexSpatial index = carte.getIndexSpatial();
+        AgentCognitif cognitif = new AgentCognitif(carte.getCaseGlobale(9, 0), carte, contexte);
+        assertTrue(index.getAgents(0, TypologieAgent.COGNITIF).contains(cognitif));
+
+        cognitif.deplacerVers(carte.getCaseGlobale(10, 0)); // passe en zone 3
+        assertFalse(index.getAgents(0, TypologieAgent.COGNITIF).contains(cognitif));
+        assertTrue(index.getAgents(3, TypologieAgent.COGNITIF).contains(cognitif));
+
+        AgentReactif reactif = new AgentReactif(carte.getCaseGlobale(12, 2), carte, contexte);
+        reactif.seFaireAttaquer(1000);
+        assertTrue(index.getAgentsMorts(3).contains(reactif));
+        assertSame(reactif, index.getMortLePlusProche(cognitif.getCaseActuelle()));
+
+        reactif.resetToQG();
+        assertTrue(index.getAgentsMorts(3).isEmpty());
+        assertTrue(index.getAgents(0, TypologieAgent.REACTIF).contains(reactif));
+    }
+
+    public void testKPlusProches() {
+        Carte carte = new Carte(5, 10);
+        Agent loin = new AgentReactif(carte.getCaseGlobale(45, 45), carte, contexte);
+        Agent moyen = new AgentReactif(carte.getCaseGlobale(15, 5), carte, contexte);
+        Agent proche = new AgentReactif(carte.getCaseGlobale(3, 3), carte, contexte);
+        new AgentCognitif(carte.getCaseGlobale(1, 1), carte, contexte);
+
+        List<Agent> resultat = carte.getIndexSpatial().getKPlusProches(carte.getCaseGlobale(0, 0), TypologieAgent.REACTIF, 2, null);
+        assertEquals(2, resultat.size());
+        assertSame(proche, resultat.get(0));
+        assertSame(moyen, resultat.get(1));
+        assertFalse(resultat.contains(loin));
+    }
+}
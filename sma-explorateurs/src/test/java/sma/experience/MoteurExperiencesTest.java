@@ -0,0 +1,90 @@
+package sma.experience;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests de la grille, des statistiques en flux et du moteur d'expériences
+ * (avec un lanceur factice, sans simulation).
+ */
+public class MoteurExperiencesTest extends TestCase {
+
+    public void testGrilleProduitCartesien() {
+        GrilleParametres grille = new GrilleParametres()
+                .axe("cognitifs", "5", "10", "20")
+                .axe("reactifs", "0", "5")
+                .axe("zonesCote", "4");
+        assertEquals(6, grille.getNbPoints());
+        Map<String, String> premier = grille.point(0);
+        assertEquals("5", premier.get("cognitifs"));
+        assertEquals("0", premier.get("reactifs"));
+        Map<String, String> dernier = grille.point(5);
+        assertEquals("20", dernier.get("cognitifs"));
+        assertEquals("5", dernier.get("reactifs"));
+        assertEquals("4", dernier.get("zonesCote"));
+    }
+
+    public void testStatistiquesFlux() {
+        StatistiquesFlux stats = new StatistiquesFlux();
+        Random random = new Random(1);
+        double somme = 0;
+        double sommeCarres = 0;
+        int n = 20000;
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble() * 1000;
+            stats.ajouter(x);
+            somme += x;
+            sommeCarres += x * x;
+        }
+        double moyenne = somme / n;
+        double variance = (sommeCarres - n * moyenne * moyenne) / (n - 1);
+        assertEquals(moyenne, stats.getMoyenne(), 1e-6);
+        assertEquals(variance, stats.getVariance(), 1e-3 * variance);
+        // loi uniforme sur [0, 1000[ : quantiles attendus 500, 900, 990
+        assertEquals(500, stats.getMediane(), 20);
+        assertEquals(900, stats.getP90(), 20);
+        assertEquals(990, stats.getP99(), 10);
+        assertTrue(stats.getDemiLargeurIC95() > 0 && stats.getDemiLargeurIC95() < 10);
+    }
+
+    public void testQuantilePeuDObservations() {
+        EstimateurQuantile mediane = new EstimateurQuantile(0.5);
+        assertTrue(Double.isNaN(mediane.valeur()));
+        mediane.ajouter(3);
+        mediane.ajouter(1);
+        mediane.ajouter(2);
+        assertEquals(2.0, mediane.valeur(), 0);
+    }
+
+    public void testAgregationParPoint() throws InterruptedException {
+        final AtomicInteger appels = new AtomicInteger();
+        LanceurRun factice = (parametres, graine) -> {
+            appels.incrementAndGet();
+            int ticks = Integer.parseInt(parametres.get("cognitifs")) * 10;
+            Properties mesures = new Properties();
+            mesures.setProperty("ticks", Integer.toString(ticks));
+            mesures.setProperty("duree_ms", "1");
+            mesures.setProperty("termine", Boolean.toString(graine % 2 == 0 || ticks < 100));
+            return mesures;
+        };
+        GrilleParametres grille = new GrilleParametres().axe("cognitifs", "5", "20");
+        MoteurExperiences moteur = new MoteurExperiences(grille, 50, 7L, 4, factice);
+        List<AgregatPoint> agregats = moteur.executer();
+
+        assertEquals(100, appels.get());
+        assertEquals(2, agregats.size());
+        AgregatPoint petit = agregats.get(0);
+        assertEquals(50, petit.getNbRuns());
+        assertEquals(50, petit.getNbTermines());
+        assertEquals(50.0, petit.getTicksCompletion().getMoyenne(), 0);
+        AgregatPoint grand = agregats.get(1);
+        assertEquals(50, grand.getNbRuns());
+        assertEquals(grand.getNbTermines(), grand.getTicksCompletion().getCompte());
+        assertTrue(grand.getNbTermines() < 50);
+    }
+}
@@ -0,0 +1,105 @@
+package sma.messaging;
+
+import junit.framework.TestCase;
+import sma.agents.AgentCognitif;
+import sma.agents.ContexteSimulation;
+import sma.agents.Message;
+import sma.concurrent.BoiteAuxLettres;
+import sma.environnement.Carte;
+import sma.environnement.Case;
+import sma.objets.Animal;
+
+/**
+ * Tests du bus de messages par zone.
+ */
+public class BusZonesTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    private static AbonneZone compteur(int[] recus, int rang) {
+        return new AbonneZone() {
+            @Override
+            public void recevoir(Message message) {
+                recus[rang]++;
+            }
+
+            @Override
+            public void recevoirLot(LotMessages lot) {
+                recus[rang] += lot.getNbEntrees();
+            }
+        };
+    }
+
+    public void testPublicationAuxSeulsAbonnesDeLaZone() {
+        BusZones bus = new BusZones(3);
+        int[] recus = new int[2];
+        AbonneZone premier = compteur(recus, 0);
+        AbonneZone second = compteur(recus, 1);
+        bus.abonner(premier, 1);
+        bus.abonner(second, 2);
+
+        assertEquals(1, bus.publier(1, new Message(0, Message.TypeMessage.ZONE_EXPLOREE, null, 1)));
+        bus.deplacer(second, 2, 1);
+        assertEquals(2, bus.publier(1, new Message(0, Message.TypeMessage.ZONE_EXPLOREE, null, 1)));
+        assertEquals(0, bus.publier(2, new Message(0, Message.TypeMessage.ZONE_EXPLOREE, null, 2)));
+
+        assertEquals(2, recus[0]);
+        assertEquals(1, recus[1]);
+        assertEquals(3, bus.getNbPublications());
+        assertEquals(3, bus.getNbLivraisons());
+        assertTrue(bus.getLatenceMaxNanos() >= 0);
+
+        // un lot est livré une fois par abonné, ses entrées comptées à part
+        LotMessages.Tampon tampon = new LotMessages.Tampon();
+        tampon.ajouter(Message.TypeMessage.TRESOR_TROUVE, 12);
+        tampon.ajouter(Message.TypeMessage.ANIMAL_DETECTE, 13);
+        assertEquals(2, bus.publierLot(1, tampon.construire(0, 5)));
+        assertEquals(4, recus[0]);
+        assertEquals(3, recus[1]);
+        assertEquals(4, bus.getNbPublications());
+        assertEquals(5, bus.getNbLivraisons());
+        assertEquals(5, bus.getNbEntrees());
+    }
+
+    public void testAbonnementSuitLAgent() {
+        Carte carte = new Carte(2, 10);
+        BusZones bus = carte.getBus();
+        Case depart = carte.getCaseGlobale(9, 5);
+        int zoneDepart = depart.getZone().getId();
+        AgentCognitif agent = new AgentCognitif(depart, carte, contexte);
+        assertTrue(bus.getAbonnes(zoneDepart).contains(agent));
+
+        // passage de frontière
+        Case voisine = carte.getCaseGlobale(10, 5);
+        int zoneVoisine = voisine.getZone().getId();
+        agent.appliquerDeplacement(voisine);
+        assertFalse(bus.getAbonnes(zoneDepart).contains(agent));
+        assertTrue(bus.getAbonnes(zoneVoisine).contains(agent));
+
+        // un mort ne reçoit plus rien, il est réabonné là où il réapparaît
+        carte.placerObjet(carte.getCaseGlobale(11, 5).getId(), new Animal("ortie", 1000));
+        agent.appliquerDeplacement(carte.getCaseGlobale(11, 5));
+        assertFalse(agent.isAlive());
+        assertTrue(bus.getAbonnes(zoneVoisine).isEmpty());
+        agent.resetToQG();
+        assertTrue(bus.getAbonnes(carte.getCaseQG().getZone().getId()).contains(agent));
+
+        bus.publier(carte.getCaseQG().getZone().getId(),
+                new Message(0, Message.TypeMessage.TRESOR_TROUVE, carte.getCaseGlobale(1, 1), carte.getCaseQG().getZone().getId()));
+        assertEquals(1, agent.getBoiteAuxLettres().getNbDeposes());
+    }
+
+    public void testAbonneUneFoisConstruitSansPerdreLesMessages() {
+        Carte carte = new Carte(2, 10);
+        Case qg = carte.getCaseQG();
+        int zone = qg.getZone().getId();
+        AgentCognitif agent = new AgentCognitif(qg, carte, contexte);
+        assertTrue(carte.getBus().getAbonnes(zone).contains(agent));
+
+        // reçu avant la configuration de la boîte : conservé par le remplacement
+        carte.getBus().publier(zone, new Message(0, Message.TypeMessage.TRESOR_TROUVE, carte.getCaseGlobale(1, 1), zone));
+        agent.configurerBoiteAuxLettres(8, BoiteAuxLettres.PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
+        assertEquals(1, agent.getBoiteAuxLettres().getProfondeur());
+        assertEquals(8, agent.getBoiteAuxLettres().getCapacite());
+    }
+}
@@ -0,0 +1,56 @@
+package sma.messaging;
+
+import junit.framework.TestCase;
+import sma.agents.Message;
+
+/**
+ * Tests de l'encodage compact des lots de messages.
+ */
+public class LotMessagesTest extends TestCase {
+
+    public void testEntreesDeCaseEtDeZone() {
+        LotMessages.Tampon tampon = new LotMessages.Tampon();
+        for (int i = 0; i < 40; i++) { // au-delà de la capacité initiale
+            tampon.ajouter(Message.TypeMessage.TRESOR_TROUVE, 1000 + i);
+        }
+        tampon.ajouterZone(Message.TypeMessage.AUCUN_TRESOR_ZONE, 7);
+        LotMessages lot = tampon.construire(3, 42);
+        tampon.vider();
+        assertTrue(tampon.estVide());
+
+        assertEquals(41, lot.getNbEntrees());
+        assertEquals(Message.TypeMessage.TRESOR_TROUVE, lot.getType(5));
+        assertEquals(1005, lot.getIdCase(5));
+        assertEquals(-1, lot.getIdZone(5));
+        assertEquals(Message.TypeMessage.AUCUN_TRESOR_ZONE, lot.getType(40));
+        assertEquals(LotMessages.AUCUNE_CASE, lot.getIdCase(40));
+        assertEquals(7, lot.getIdZone(40));
+    }
+
+    public void testFormeBinaire() {
+        LotMessages.Tampon tampon = new LotMessages.Tampon();
+        tampon.ajouter(Message.TypeMessage.ANIMAL_DETECTE, Integer.MAX_VALUE >> 1);
+        tampon.ajouterZone(Message.TypeMessage.ZONE_EXPLOREE, 0);
+        tampon.ajouter(Message.TypeMessage.TRESOR_COLLECTE, 17);
+        LotMessages lot = tampon.construire(9, 123_456_789_012L);
+
+        byte[] octets = lot.versOctets();
+        assertEquals(4 + 8 + 4 + 3 * 8, octets.length);
+        LotMessages relu = LotMessages.depuisOctets(octets);
+        assertEquals(9, relu.getExpediteurId());
+        assertEquals(123_456_789_012L, relu.getTick());
+        assertEquals(3, relu.getNbEntrees());
+        assertEquals(Message.TypeMessage.ANIMAL_DETECTE, relu.getType(0));
+        assertEquals(Integer.MAX_VALUE >> 1, relu.getIdCase(0));
+        assertEquals(0, relu.getIdZone(1));
+        assertEquals(Message.TypeMessage.TRESOR_COLLECTE, relu.getType(2));
+        assertEquals(17, relu.getIdCase(2));
+
+        try {
+            LotMessages.depuisOctets(java.util.Arrays.copyOf(octets, octets.length - 3));
+            fail();
+        } catch (IllegalArgumentException attendu) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package sma.messaging;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests du tableau noir versionné (copie sur écriture).
+ */
+public class TableauNoirTest extends TestCase {
+
+    public void testInstantanesImmuablesEtVersionnes() {
+        TableauNoir tableau = new TableauNoir(200, 4);
+        TableauNoir.Instantane vierge = tableau.lire();
+        assertEquals(0, vierge.getVersion());
+
+        TableauNoir.Modifications modifications = new TableauNoir.Modifications();
+        assertEquals(0, tableau.publier(modifications)); // rien à publier
+        modifications.ajouterTresor(3);
+        modifications.ajouterTresor(130);
+        modifications.ajouterDanger(64);
+        modifications.affecterZone(2, 7);
+        assertEquals(1, tableau.publier(modifications));
+        modifications.vider();
+
+        TableauNoir.Instantane premier = tableau.lire();
+        assertFalse(vierge.contientTresor(3)); // l'ancien instantané n'a pas bougé
+        assertEquals(3, premier.tresorSuivant(0));
+        assertEquals(130, premier.tresorSuivant(4));
+        assertEquals(-1, premier.tresorSuivant(131));
+        assertEquals(64, premier.dangerSuivant(0));
+        assertEquals(7, premier.getAffectation(2));
+
+        modifications.retirerTresor(3);
+        modifications.libererZone(2, 8); // pas à lui : sans effet
+        tableau.publier(modifications);
+        modifications.vider();
+        modifications.libererZone(2, 7);
+        tableau.publier(modifications);
+
+        TableauNoir.Instantane dernier = tableau.lire();
+        assertEquals(3, dernier.getVersion());
+        assertTrue(premier.contientTresor(3));
+        assertFalse(dernier.contientTresor(3));
+        assertEquals(TableauNoir.AUCUN_AGENT, dernier.getAffectation(2));
+        assertEquals(3, tableau.getNbPublications());
+        assertEquals(7, tableau.getNbModifications());
+    }
+
+    public void testEcrivainsConcurrentsSansPerte() throws InterruptedException {
+        TableauNoir tableau = new TableauNoir(4 * 1000, 1);
+        Thread[] ecrivains = new Thread[4];
+        for (int t = 0; t < ecrivains.length; t++) {
+            final int base = t * 1000;
+            ecrivains[t] = new Thread(() -> {
+                TableauNoir.Modifications modifications = new TableauNoir.Modifications();
+                for (int i = 0; i < 1000; i += 10) {
+                    for (int j = i; j < i + 10; j++) {
+                        modifications.ajouterTresor(base + j);
+                    }
+                    tableau.publier(modifications);
+                    modifications.vider();
+                }
+            });
+            ecrivains[t].start();
+        }
+        for (Thread ecrivain : ecrivains) {
+            ecrivain.join();
+        }
+        TableauNoir.Instantane etat = tableau.lire();
+        assertEquals(400, etat.getVersion());
+        int nb = 0;
+        for (int id = etat.tresorSuivant(0); id >= 0; id = etat.tresorSuivant(id + 1)) {
+            nb++;
+        }
+        assertEquals(4000, nb);
+    }
+
+    public void testReservationDeZone() {
+        TableauNoir tableau = new TableauNoir(100, 4);
+        assertTrue(tableau.reserverZone(1, -1, 7));
+        assertFalse(tableau.reserverZone(1, -1, 8)); // tenue par 7 : rien n'est écrit
+        assertEquals(1, tableau.getVersion());
+        assertTrue(tableau.reserverZone(1, -1, 7)); // déjà à lui
+        assertTrue(tableau.reserverZone(2, 1, 7)); // libère son ancienne zone au passage
+        assertEquals(TableauNoir.AUCUN_AGENT, tableau.lire().getAffectation(1));
+        assertEquals(7, tableau.lire().getAffectation(2));
+
+        // réservation en lot : sans effet sur une zone tenue par un autre
+        TableauNoir.Modifications modifications = new TableauNoir.Modifications();
+        modifications.reserverZone(2, 8);
+        modifications.reserverZone(3, 8);
+        tableau.publier(modifications);
+        assertEquals(7, tableau.lire().getAffectation(2));
+        assertEquals(8, tableau.lire().getAffectation(3));
+    }
+}
@@ -0,0 +1,106 @@
+package sma.navigation;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+import sma.environnement.Carte;
+import sma.objets.Obstacle;
+
+/**
+ * Tests du cache de champs de distances.
+ */
+public class ChampsDistancesTest extends TestCase {
+
+    public void testDescenteDuGradientEtCompteurs() {
+        Carte carte = new Carte(3, 10);
+        ChampsDistances champs = new ChampsDistances(carte, 2);
+        int cible = carte.idCase(20, 20);
+
+        int courante = 0;
+        int nbPas = 0;
+        while (courante != cible) {
+            courante = champs.prochainPas(courante, cible, FiltreCases.AUCUN);
+            assertTrue(courante != Carte.AUCUN_VOISIN);
+            nbPas++;
+        }
+        assertEquals(40, nbPas);
+        assertEquals(1, champs.getNbEchecs());
+        assertEquals(39, champs.getNbSucces());
+        assertEquals(0, champs.getNbReconstructions());
+    }
+
+    public void testInvalidationEtEvictionLRU() {
+        Carte carte = new Carte(3, 10);
+        ChampsDistances champs = new ChampsDistances(carte, 2);
+        int cible = carte.idCase(5, 0);
+        assertEquals(5, champs.distance(0, cible));
+
+        // un mur et une case signalée dangereuse obligent à reconstruire
+        carte.placerObjet(carte.idCase(3, 0), new Obstacle("rocher"));
+        champs.signalerCaseAEviter(carte.idCase(3, 1));
+        assertEquals(9, champs.distance(0, cible));
+        assertEquals(1, champs.getNbReconstructions());
+
+        champs.distance(0, carte.idCase(1, 1));
+        champs.distance(0, carte.idCase(2, 2));
+        assertEquals(2, champs.getNbChamps());
+        assertEquals(1, champs.getNbEvictions());
+
+        champs.oublier(carte.idCase(2, 2));
+        assertEquals(1, champs.getNbChamps());
+        assertEquals(1, champs.getNbEvictions());   // un oubli explicite n'est pas une éviction LRU
+        assertEquals(1, champs.getNbOublis());
+    }
+
+    public void testSeulsLesChampsQuiAtteignentLaCaseSontPerimes() {
+        Carte carte = new Carte(3, 10);
+        // un mur coupe la colonne x = 0..1 du reste : la cible enfermée n'atteint pas le côté droit
+        for (int y = 0; y < carte.getCote(); y++) {
+            carte.placerObjet(carte.idCase(2, y), new Obstacle("mur"));
+        }
+        ChampsDistances champs = new ChampsDistances(carte, 4);
+        int enfermee = carte.idCase(0, 0);
+        int ouverte = carte.idCase(20, 20);
+        champs.distance(carte.idCase(1, 5), enfermee);
+        champs.distance(carte.idCase(10, 10), ouverte);
+
+        champs.signalerCaseAEviter(carte.idCase(15, 15)); // atteinte seulement par le champ ouvert
+        assertEquals(1, champs.getNbInvalidations());
+        champs.distance(carte.idCase(1, 5), enfermee);
+        champs.distance(carte.idCase(10, 10), ouverte);
+        assertEquals(1, champs.getNbReconstructions());
+        assertEquals(1, champs.getNbSucces());
+    }
+
+    public void testUneSeuleConstructionPourDesDemandesSimultanees() throws InterruptedException {
+        Carte carte = new Carte(10, 10);
+        ChampsDistances champs = new ChampsDistances(carte);
+        int cible = carte.idCase(99, 99);
+        int nbThreads = 8;
+        CountDownLatch depart = new CountDownLatch(1);
+        int[] distances = new int[nbThreads];
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            final int k = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    depart.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                distances[k] = champs.distance(0, cible);
+            });
+            threads[t].start();
+        }
+        depart.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        for (int d : distances) {
+            assertEquals(198, d);
+        }
+        assertEquals(1, champs.getNbEchecs());
+        assertEquals(0, champs.getNbReconstructions());
+        assertEquals(nbThreads - 1, champs.getNbSucces() + champs.getNbAttentes());
+    }
+}
@@ -0,0 +1,57 @@
+package sma.navigation;
+
+import junit.framework.TestCase;
+import sma.environnement.Carte;
+import sma.objets.Obstacle;
+
+/**
+ * Tests du planificateur A*.
+ */
+public class PlanificateurAStarTest extends TestCase {
+
+    public void testCheminDroitEntreZones() {
+        Carte carte = new Carte(3, 10);
+        int depart = carte.idCase(8, 5);
+        int arrivee = carte.idCase(12, 5);
+
+        int[] chemin = PlanificateurAStar.chercher(carte, depart, arrivee, FiltreCases.AUCUN);
+
+        assertEquals(4, chemin.length);
+        assertEquals(arrivee, chemin[chemin.length - 1]);
+        assertEquals(carte.idCase(9, 5), chemin[0]);
+    }
+
+    public void testContourneObstaclesEtCasesEvitees() {
+        Carte carte = new Carte(3, 10);
+        // mur vertical en x = 5 sauf en y = 9
+        for (int y = 0; y < 9; y++) {
+            carte.placerObjet(carte.idCase(5, y), new Obstacle("mur"));
+        }
+        int depart = carte.idCase(4, 0);
+        int arrivee = carte.idCase(6, 0);
+
+        int[] chemin = PlanificateurAStar.chercher(carte, depart, arrivee, FiltreCases.AUCUN);
+        assertEquals(2 + 2 * 9, chemin.length);
+
+        int passage = carte.idCase(5, 9);
+        int[] bloque = PlanificateurAStar.chercher(carte, depart, arrivee, idCase -> idCase == passage);
+        assertTrue(chemin.length > 0);
+        assertTrue(bloque.length > 0); // on passe par y = 10 (zone voisine)
+        for (int idCase : bloque) {
+            assertTrue(idCase != passage);
+        }
+    }
+
+    public void testArriveeInaccessible() {
+        Carte carte = new Carte(1, 10);
+        int arrivee = carte.idCase(5, 5);
+        carte.placerObjet(carte.idCase(4, 5), new Obstacle("mur"));
+        carte.placerObjet(carte.idCase(6, 5), new Obstacle("mur"));
+        carte.placerObjet(carte.idCase(5, 4), new Obstacle("mur"));
+        carte.placerObjet(carte.idCase(5, 6), new Obstacle("mur"));
+
+        assertEquals(0, PlanificateurAStar.chercher(carte, 0, arrivee, FiltreCases.AUCUN).length);
+        // les tableaux de travail réutilisés ne doivent pas garder d'état
+        assertEquals(18, PlanificateurAStar.chercher(carte, 0, carte.idCase(9, 9), FiltreCases.AUCUN).length);
+    }
+}
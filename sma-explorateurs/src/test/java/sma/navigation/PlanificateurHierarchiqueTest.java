@@ -0,0 +1,64 @@
+package sma.navigation;
+
+import junit.framework.TestCase;
+import sma.environnement.Carte;
+import sma.objets.Obstacle;
+
+/**
+ * Tests du planificateur hiérarchique.
+ */
+public class PlanificateurHierarchiqueTest extends TestCase {
+
+    public void testSegmentJusquaLaZoneSuivante() {
+        Carte carte = new Carte(4, 10);
+        PlanificateurHierarchique planificateur = carte.getPlanificateurHierarchique();
+        int depart = carte.idCase(2, 2);
+        int arrivee = carte.idCase(37, 37);
+
+        int[] segment = planificateur.planifier(depart, arrivee, FiltreCases.AUCUN);
+
+        assertTrue(segment.length > 0);
+        int fin = segment[segment.length - 1];
+        assertTrue(carte.idZoneDe(fin) != carte.idZoneDe(depart));
+        for (int i = 0; i < segment.length - 1; i++) {
+            assertEquals(carte.idZoneDe(depart), carte.idZoneDe(segment[i]));
+        }
+
+        // en répétant depuis la fin de chaque segment, on finit par arriver
+        int courante = depart;
+        int pas = 0;
+        while (courante != arrivee && pas < 200) {
+            int[] s = planificateur.planifier(courante, arrivee, FiltreCases.AUCUN);
+            assertTrue(s.length > 0);
+            pas += s.length;
+            courante = s[s.length - 1];
+        }
+        assertEquals(arrivee, courante);
+        assertEquals(70, pas); // chemin optimal sur carte vide
+    }
+
+    public void testReconstruitLesZonesModifiees() {
+        Carte carte = new Carte(4, 10);
+        PlanificateurHierarchique planificateur = carte.getPlanificateurHierarchique();
+        long avant = planificateur.getNbZonesReconstruites();
+        assertEquals(16, avant);
+
+        // mur complet en x = 10 sauf en y = 35 : la première traversée doit passer par ce trou
+        for (int y = 0; y < 40; y++) {
+            if (y != 35) {
+                carte.placerObjet(carte.idCase(10, y), new Obstacle("mur"));
+            }
+        }
+        int depart = carte.idCase(15, 2);
+        int arrivee = carte.idCase(35, 2);
+        int[] segment = planificateur.planifier(carte.idCase(2, 2), arrivee, FiltreCases.AUCUN);
+        assertTrue(segment.length > 0);
+        assertTrue(planificateur.getNbZonesReconstruites() > avant);
+        assertTrue(planificateur.getNbZonesReconstruites() < avant + 16);
+
+        // aucun chemin si le dernier trou est bouché
+        carte.placerObjet(carte.idCase(10, 35), new Obstacle("mur"));
+        assertEquals(0, planificateur.planifier(carte.idCase(2, 2), arrivee, FiltreCases.AUCUN).length);
+        assertTrue(planificateur.planifier(depart, arrivee, FiltreCases.AUCUN).length > 0);
+    }
+}
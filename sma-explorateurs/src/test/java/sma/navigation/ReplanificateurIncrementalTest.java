@@ -0,0 +1,77 @@
+package sma.navigation;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import sma.environnement.Carte;
+import sma.objets.Obstacle;
+
+/**
+ * Tests du replanificateur incrémental (D* Lite).
+ */
+public class ReplanificateurIncrementalTest extends TestCase {
+
+    public void testMemeLongueurQueAStar() {
+        Carte carte = new Carte(3, 10);
+        Random random = new Random(7);
+        for (int i = 0; i < 150; i++) {
+            int id = random.nextInt(carte.getNbCases());
+            if (id != 0 && carte.getObjet(id) == null) {
+                carte.placerObjet(id, new Obstacle("rocher"));
+            }
+        }
+        for (int essai = 0; essai < 20; essai++) {
+            int depart = random.nextInt(carte.getNbCases());
+            int arrivee = random.nextInt(carte.getNbCases());
+            if (!carte.estAccessible(depart)) {
+                continue;
+            }
+            int[] attendu = PlanificateurAStar.chercher(carte, depart, arrivee, FiltreCases.AUCUN);
+            int[] chemin = new ReplanificateurIncremental(carte, arrivee, FiltreCases.AUCUN).chemin(depart);
+            assertEquals(attendu.length, chemin.length);
+        }
+    }
+
+    public void testReparationLocale() {
+        Carte carte = new Carte(6, 10);
+        Random random = new Random(3);
+        for (int i = 0; i < carte.getNbCases() / 8; i++) {
+            int id = random.nextInt(carte.getNbCases());
+            if (carte.getObjet(id) == null) {
+                carte.placerObjet(id, new Obstacle("rocher"));
+            }
+        }
+        int depart = carte.idCase(1, 1);
+        int arrivee = carte.idCase(58, 58);
+        for (int id : new int[] { depart, arrivee }) {
+            if (carte.getObjet(id) != null) {
+                carte.retirerObjet(id);
+            }
+        }
+        Set<Integer> evitees = new HashSet<>();
+        FiltreCases filtre = evitees::contains;
+        ReplanificateurIncremental replanificateur = new ReplanificateurIncremental(carte, arrivee, filtre);
+
+        int[] chemin = replanificateur.chemin(depart);
+        assertTrue(chemin.length >= 114);
+        long expansionsInitiales = replanificateur.getNbExpansions();
+
+        // l'agent avance de 3 cases puis un animal est signalé juste devant lui
+        int position = chemin[2];
+        int animal = chemin[5];
+        evitees.add(animal);
+        replanificateur.signalerCaseInterdite(animal);
+        int[] repare = replanificateur.chemin(position);
+
+        int[] attendu = PlanificateurAStar.chercher(carte, position, arrivee, filtre);
+        assertEquals(attendu.length, repare.length);
+        assertEquals(arrivee, repare[repare.length - 1]);
+        for (int idCase : repare) {
+            assertTrue(idCase != animal);
+        }
+        // seule la partie du chemin proche de l'animal est réparée
+        assertTrue(replanificateur.getNbExpansions() - expansionsInitiales < expansionsInitiales / 4);
+    }
+}
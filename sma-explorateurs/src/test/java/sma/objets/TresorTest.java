@@ -0,0 +1,113 @@
+package sma.objets;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+import sma.agents.Agent;
+import sma.agents.AgentReactif;
+import sma.agents.ContexteSimulation;
+import sma.environnement.Carte;
+import sma.environnement.Case;
+
+/**
+ * Tests de la réclamation atomique d'un trésor.
+ */
+public class TresorTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    public void testArriveeTardive() {
+        Carte carte = new Carte(1, 10);
+        Agent a = new AgentReactif(carte.getCaseQG(), carte, contexte);
+        Agent b = new AgentReactif(carte.getCaseQG(), carte, contexte);
+        Tresor tresor = new Tresor(10);
+
+        tresor.interagir(a);
+        tresor.interagir(b);
+        assertTrue(tresor.isCollecte());
+        assertSame(a, tresor.getReclamant());
+        assertEquals(1, a.getStats().getTresorsCollectes());
+        assertEquals(0, b.getStats().getTresorsCollectes());
+        assertEquals(1, tresor.getNbReclamationsTardives());
+    }
+
+    public void testUnSeulGagnantEntreThreads() throws InterruptedException {
+        Carte carte = new Carte(1, 10);
+        final int nbAgents = 8;
+        for (int essai = 0; essai < 200; essai++) {
+            final Tresor tresor = new Tresor(10);
+            final Agent[] agents = new Agent[nbAgents];
+            for (int i = 0; i < nbAgents; i++) {
+                agents[i] = new AgentReactif(carte.getCaseQG(), carte, contexte);
+            }
+            final CountDownLatch depart = new CountDownLatch(1);
+            Thread[] threads = new Thread[nbAgents];
+            for (int i = 0; i < nbAgents; i++) {
+                final Agent agent = agents[i];
+                threads[i] = new Thread(() -> {
+                    try {
+                        depart.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    tresor.interagir(agent);
+                });
+                threads[i].start();
+            }
+            depart.countDown();
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            int gagnants = 0;
+            for (Agent agent : agents) {
+                gagnants += agent.getStats().getTresorsCollectes();
+            }
+            assertEquals(1, gagnants);
+            assertEquals(1, tresor.getNbReclamationsGagnees());
+            assertEquals(nbAgents - 1, tresor.getNbReclamationsPerdues() + tresor.getNbReclamationsTardives());
+        }
+    }
+
+    public void testUnSeulGagnantEntreAgentsArrivantSurLaCase() throws InterruptedException {
+        final int nbAgents = 8;
+        for (int essai = 0; essai < 100; essai++) {
+            Carte carte = new Carte(1, 10);
+            final Case caseTresor = carte.getCaseGlobale(0, 1);
+            Tresor tresor = new Tresor(10);
+            caseTresor.setObjet(tresor);
+            final Agent[] agents = new Agent[nbAgents];
+            for (int i = 0; i < nbAgents; i++) {
+                agents[i] = new AgentReactif(carte.getCaseQG(), carte, contexte);
+            }
+            final CountDownLatch depart = new CountDownLatch(1);
+            Thread[] threads = new Thread[nbAgents];
+            for (int i = 0; i < nbAgents; i++) {
+                final Agent agent = agents[i];
+                threads[i] = new Thread(() -> {
+                    try {
+                        depart.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    agent.deplacerVers(caseTresor); // la réclamation se fait hors du verrou de la case
+                });
+                threads[i].start();
+            }
+            depart.countDown();
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            int gagnants = 0;
+            for (Agent agent : agents) {
+                gagnants += agent.getStats().getTresorsCollectes();
+            }
+            assertEquals(1, gagnants);
+            assertEquals(nbAgents, caseTresor.getNbAgents());
+            assertEquals(1, tresor.getNbReclamationsGagnees());
+            assertEquals(nbAgents - 1, tresor.getNbReclamationsPerdues() + tresor.getNbReclamationsTardives());
+            assertEquals(0, carte.compterTresorsRestants());
+        }
+    }
+}
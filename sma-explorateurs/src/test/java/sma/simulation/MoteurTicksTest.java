@@ -0,0 +1,106 @@
+package sma.simulation;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import sma.agents.Agent;
+import sma.agents.ContexteSimulation;
+import sma.agents.TypologieAgent;
+import sma.environnement.Carte;
+import sma.environnement.Case;
+import sma.objets.Animal;
+import sma.objets.Tresor;
+
+/**
+ * Tests du moteur à ticks.
+ */
+public class MoteurTicksTest extends TestCase {
+
+    private final ContexteSimulation contexte = new ContexteSimulation();
+
+    /**
+     * Agent de test qui va toujours vers la même case.
+     */
+    private Agent agentVers(Carte carte, Case depart, Case cible) {
+        return new Agent(TypologieAgent.REACTIF, depart, carte, contexte) {
+            @Override
+            public void step() {
+                if (caseActuelle != cible) {
+                    deplacerVers(cible);
+                }
+            }
+        };
+    }
+
+    public void testConflitSurTresorResoluParId() throws InterruptedException {
+        Carte carte = new Carte(1, 10);
+        Case tresor = carte.getCaseGlobale(5, 5);
+        carte.placerObjet(tresor.getId(), new Tresor(10));
+        // le second agent créé (id le plus grand) est passé en premier à la liste
+        Agent premier = agentVers(carte, carte.getCaseGlobale(4, 5), tresor);
+        Agent second = agentVers(carte, carte.getCaseGlobale(6, 5), tresor);
+        MoteurTicks moteur = new MoteurTicks(null, Arrays.asList(second, premier), 2, 0);
+
+        moteur.executerTick();
+
+        assertEquals(tresor, premier.getCaseActuelle());
+        assertEquals(tresor, second.getCaseActuelle());
+        assertEquals(1, premier.getTresorsCollectes().size());
+        assertEquals(0, second.getTresorsCollectes().size());
+        assertEquals(2, tresor.getNbAgents());
+        assertEquals(1, moteur.getNbTicks());
+    }
+
+    public void testReapparitionApresPenalite() throws InterruptedException {
+        Carte carte = new Carte(1, 10);
+        Case piege = carte.getCaseGlobale(5, 5);
+        carte.placerObjet(piege.getId(), new Animal("ortie", 1000));
+        Agent agent = agentVers(carte, carte.getCaseGlobale(4, 5), piege);
+        MoteurTicks moteur = new MoteurTicks(null, Arrays.asList(agent), 1, 0);
+
+        moteur.executerTick();
+        assertFalse(agent.isAlive());
+        for (int i = 1; i < MoteurTicks.TICKS_AVANT_RESPAWN - 1; i++) {
+            moteur.executerTick();
+        }
+        assertFalse(agent.isAlive());
+        moteur.executerTick();
+        assertTrue(agent.isAlive());
+        assertEquals(carte.getCaseQG(), agent.getCaseActuelle());
+    }
+
+    public void testAvanceRapideJusquALaReapparition() throws InterruptedException {
+        Carte carte = new Carte(1, 10);
+        Case piege = carte.getCaseGlobale(5, 5);
+        carte.placerObjet(piege.getId(), new Animal("ortie", 1000));
+        Agent agent = agentVers(carte, carte.getCaseGlobale(4, 5), piege);
+        MoteurTicks moteur = new MoteurTicks(null, Arrays.asList(agent), 1, 0);
+        moteur.setAvanceRapide(true);
+
+        moteur.executerTick();
+        assertFalse(agent.isAlive());
+        moteur.executerTick(); // saute les ticks d'attente
+        assertTrue(agent.isAlive());
+        assertEquals(MoteurTicks.TICKS_AVANT_RESPAWN, moteur.getNbTicks());
+        assertEquals(0, moteur.getRoueTemporelle().getNbEnAttente());
+    }
+
+    public void testParZoneLesPassagesDeZoneSontAppliquesApres() throws InterruptedException {
+        Carte carte = new Carte(2, 10);
+        Case tresor = carte.getCaseGlobale(10, 5);
+        carte.placerObjet(tresor.getId(), new Tresor(10));
+        // id plus petit mais vient d'une autre zone : son passage est résolu après la zone du trésor
+        Agent venuDAilleurs = agentVers(carte, carte.getCaseGlobale(9, 5), tresor);
+        Agent local = agentVers(carte, carte.getCaseGlobale(11, 5), tresor);
+        MoteurTicks moteur = new MoteurTicks(null, Arrays.asList(venuDAilleurs, local), 2, 0, true);
+
+        moteur.executerTick();
+        moteur.arreter();
+
+        assertEquals(tresor, venuDAilleurs.getCaseActuelle());
+        assertEquals(tresor, local.getCaseActuelle());
+        assertEquals(0, venuDAilleurs.getTresorsCollectes().size());
+        assertEquals(1, local.getTresorsCollectes().size());
+        assertEquals(2, carte.getIndexSpatial().getAgents(tresor.getZone().getId(), TypologieAgent.REACTIF).size());
+    }
+}
@@ -0,0 +1,71 @@
+package sma.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests de la roue temporelle (réapparitions planifiées).
+ */
+public class RoueTemporelleTest extends TestCase {
+
+    public void testDeclenchementALEcheance() {
+        RoueTemporelle roue = new RoueTemporelle(8, RoueTemporelle.Mode.TICKS, 0);
+        List<String> journal = new ArrayList<>();
+        roue.planifier(3, () -> journal.add("a"));
+        roue.planifier(1, () -> journal.add("b"));
+        roue.planifier(0, () -> journal.add("c")); // au prochain cran
+
+        assertEquals(2, roue.avancer());
+        assertEquals(2, journal.size());
+        assertTrue(journal.contains("b") && journal.contains("c"));
+        assertEquals(0, roue.avancer());
+        assertEquals(1, roue.avancer());
+        assertEquals("a", journal.get(2));
+        assertEquals(0, roue.getNbEnAttente());
+        assertEquals(3, roue.getNbDeclenches());
+    }
+
+    public void testPlusieursToursDeRoue() {
+        RoueTemporelle roue = new RoueTemporelle(8, RoueTemporelle.Mode.TICKS, 0);
+        int[] declenches = new int[1];
+        roue.planifier(20, () -> declenches[0]++); // même cran que le 4 et le 12, deux tours plus tard
+        roue.planifier(4, () -> declenches[0]++);
+
+        roue.avancerJusqua(19);
+        assertEquals(1, declenches[0]);
+        assertEquals(1, roue.getNbEnAttente());
+        roue.avancerJusqua(20);
+        assertEquals(2, declenches[0]);
+    }
+
+    public void testAnnulation() {
+        RoueTemporelle roue = new RoueTemporelle(RoueTemporelle.Mode.TICKS, 0);
+        int[] declenches = new int[1];
+        RoueTemporelle.Evenement evenement = roue.planifier(5, () -> declenches[0]++);
+        roue.planifier(7, () -> declenches[0]++);
+        evenement.annuler();
+
+        assertEquals(7, roue.prochaineEcheance());
+        roue.avancerJusqua(10);
+        assertEquals(1, declenches[0]);
+        assertEquals(0, roue.getNbEnAttente());
+        assertEquals(Long.MAX_VALUE, roue.prochaineEcheance());
+    }
+
+    public void testModeHorloge() throws InterruptedException {
+        RoueTemporelle roue = new RoueTemporelle(RoueTemporelle.Mode.HORLOGE, 2);
+        CountDownLatch fait = new CountDownLatch(1);
+        roue.planifierDansMs(20, fait::countDown);
+        roue.demarrer();
+        try {
+            assertTrue(fait.await(5, TimeUnit.SECONDS));
+            assertTrue(roue.getInstant() >= 10);
+        } finally {
+            roue.arreter();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package sma.simulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+import sma.agents.Agent;
+import sma.agents.AgentCognitif;
+import sma.concurrent.BoiteAuxLettres;
+import sma.concurrent.BoiteAuxLettres.PolitiqueDebordement;
+import sma.environnement.Carte;
+
+/**
+ * Tests de l'isolement des simulations : configuration immuable, contexte
+ * propre à chaque simulation, runs rejouables à partir de la graine.
+ */
+public class SimulationConfigTest extends TestCase {
+
+    private static SimulationConfig petite() {
+        return SimulationConfig.DEFAUT
+                .avecCarte(3, 8)
+                .avecAgents(3, 3, 2)
+                .avecExecution(ModeExecution.TICKS, 1, 0)
+                .avecGraine(7L);
+    }
+
+    public void testConfigImmuable() {
+        SimulationConfig base = petite();
+        SimulationConfig modifiee = base.avecParametre("cognitifs", "10").avecParametre("navigation", "HIERARCHIQUE");
+        assertEquals(3, base.getNbAgentsCognitifs());
+        assertEquals(10, modifiee.getNbAgentsCognitifs());
+        assertEquals(base.getGraine(), modifiee.getGraine());
+        try {
+            base.avecParametre("inconnu", "1");
+            fail();
+        } catch (IllegalArgumentException attendu) {
+            // ok
+        }
+    }
+
+    public void testBoiteAuxLotsConfigurable() {
+        SimulationConfig config = petite().avecParametre("capaciteLots", "4").avecParametre("politiqueLots", "SUPPRIMER_PLUS_ANCIEN");
+        Simulation simulation = new Simulation(config);
+        for (Agent agent : simulation.getAgents()) {
+            if (agent instanceof AgentCognitif) {
+                BoiteAuxLettres<?> lots = ((AgentCognitif) agent).getBoiteAuxLots();
+                assertEquals(4, lots.getCapacite());
+                assertEquals(PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN, lots.getPolitique());
+            }
+        }
+        try {
+            config.avecBoiteAuxLots(4, PolitiqueDebordement.FUSIONNER); // un lot n'a pas de clé de fusion
+            fail();
+        } catch (IllegalArgumentException attendu) {
+            // ok
+        }
+    }
+
+    public void testIdsPropresAChaqueSimulation() {
+        Simulation a = new Simulation(petite());
+        Simulation b = new Simulation(petite());
+        assertNotSame(a.getContexte(), b.getContexte());
+        assertEquals(a.getAgents().size(), b.getAgents().size());
+        for (int i = 0; i < a.getAgents().size(); i++) {
+            Agent agentA = a.getAgents().get(i);
+            Agent agentB = b.getAgents().get(i);
+            assertEquals(agentA.getId(), agentB.getId());
+        }
+        assertEquals(1, a.getAgents().get(0).getId());
+    }
+
+    public void testMemeGraineMemeRun() throws InterruptedException {
+        SimulationConfig config = petite().avecAgents(5, 5, 2);
+        Properties premier = LanceurSansInterface.executer(config, 200_000);
+        Properties second = LanceurSansInterface.executer(config, 200_000);
+        for (String cle : new String[] { "graine", "ticks", "tresors_collectes", "valeur_collectee", "morts", "secours" }) {
+            assertEquals(cle, premier.getProperty(cle), second.getProperty(cle));
+        }
+        // sans graine : tirée au hasard mais rejouable
+        Simulation hasard = new Simulation(SimulationConfig.DEFAUT.avecCarte(4, 8).avecAgents(0, 0, 0));
+        Simulation rejouee = new Simulation(hasard.getConfig().avecGraine(hasard.getGraineMaitre()));
+        assertEquals(hasard.getCarte().compterTresorsRestants(), rejouee.getCarte().compterTresorsRestants());
+        for (int id = 0; id < hasard.getCarte().getNbCases(); id++) {
+            assertEquals(hasard.getCarte().getIndexObjet(id) == Carte.AUCUN_OBJET,
+                    rejouee.getCarte().getIndexObjet(id) == Carte.AUCUN_OBJET);
+        }
+    }
+
+    public void testDeuxRunsSuccessifsEtSimultanes() throws Exception {
+        // un run arrêté ne doit pas marquer les suivants comme terminés
+        SimulationConfig threads = petite().avecExecution(ModeExecution.THREAD_PAR_AGENT, 1, 0);
+        assertEquals("true", LanceurSansInterface.executer(threads, 200_000).getProperty("termine"));
+        assertEquals("true", LanceurSansInterface.executer(threads, 200_000).getProperty("termine"));
+
+        final Properties[] resultats = new Properties[4];
+        Thread[] runs = new Thread[resultats.length];
+        for (int i = 0; i < runs.length; i++) {
+            final int k = i;
+            runs[i] = new Thread(() -> {
+                try {
+                    resultats[k] = LanceurSansInterface.executer(petite().avecGraine(k), 200_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            runs[i].start();
+        }
+        for (Thread run : runs) {
+            run.join();
+        }
+        for (Properties resultat : resultats) {
+            assertEquals("true", resultat.getProperty("termine"));
+            assertEquals(resultat.getProperty("tresors_initiaux"), resultat.getProperty("tresors_collectes"));
+        }
+    }
+
+    public void testTracesCoupeesParLaConfiguration() throws InterruptedException {
+        SimulationConfig silencieuse = petite().avecAgents(3, 3, 2).avecObjets(2, 4, 2, 20).avecParametre("traces", "false");
+        assertFalse(silencieuse.isTraces());
+        assertTrue(petite().isTraces());
+        assertTrue(new Simulation(petite()).getContexte().isTraces());
+
+        // le run silencieux n'écrit rien, même avec des agents blessés, tués, téléportés
+        PrintStream console = System.out;
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(capture, true));
+        Properties resultat;
+        try {
+            resultat = LanceurSansInterface.executer(silencieuse, 200_000);
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals("true", resultat.getProperty("termine"));
+        assertEquals("", capture.toString());
+    }
+}